@@ -0,0 +1,300 @@
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * 어셈블러 각 단계의 벤치마크. <br>
+ * InstTable 생성, Token 생성, pass1, processLiteralPool, generateObjectCode/encodeObjectCode, T 레코드 구성, pass2, printObjectCode를
+ * 여러 입력 크기(section 수)에서 따로 측정하여 처리량, 평균 지연 시간, 작업당 할당량을 출력한다.
+ * <pre>
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out:src AssemblerBenchmark [--phases pass1,pass2] [--sizes 1,10,100] [--time 1000]
+ *                                       [--warmup 3] [--iterations 5]
+ * </pre>
+ * 입력은 예제 프로그램(COPY/RDREC/WRREC)의 RDREC, WRREC section을 이름만 바꿔 size번 반복한 것이다.
+ * --generate를 주면 size를 줄 수로 보고 ProgramGenerator로 만든 프로그램(1000줄당 section 하나)을 사용한다.
+ * <br>
+ * textRecordFormat/textRecordBuffer/textRecordBuilder는 미리 인코딩한 object code를 30 byte T 레코드로 묶는 방식을 비교한다.
+ * (String.format과 16진수 문자열 연결, ByteBuffer와 textRecord, TextRecordBuilder)
+ * <br>
+ * 같은 작업을 JMH로 측정하는 벤치마크는 jmh/benchmarks/AssemblerPhases.java이다. (gradle jmh)
+ */
+public class AssemblerBenchmark {
+	static final String[] PHASES = {
+			"instTable", "instTableFile", "token", "pass1", "literalPool",
+			"generateObjectCode", "encodeObjectCode",
+			"textRecordFormat", "textRecordBuffer", "textRecordBuilder", "pass2", "printObjectCode"
+	};
+
+	private static final String[] MAIN_SECTION = {
+			"COPY\tSTART\t0", "\tEXTDEF\tBUFFER,BUFEND,LENGTH", "\tEXTREF\tRDREC,WRREC",
+			"FIRST\tSTL\tRETADR", "CLOOP\t+JSUB\tRDREC", "\tLDA\tLENGTH", "\tCOMP\t#0", "\tJEQ\tENDFIL",
+			"\t+JSUB\tWRREC", "\tJ\tCLOOP", "ENDFIL\tLDA\t=C'EOF'", "\tSTA\tBUFFER", "\tLDA\t#3",
+			"\tSTA\tLENGTH", "\t+JSUB\tWRREC", "\tJ\t@RETADR", "RETADR\tRESW\t1", "LENGTH\tRESW\t1",
+			"\tLTORG", "BUFFER\tRESB\t4096", "BUFEND\tEQU\t*", "MAXLEN\tEQU\tBUFEND-BUFFER"
+	};
+	private static final String[] READ_SECTION = {
+			"%s\tCSECT", "\tEXTREF\tBUFFER,LENGTH,BUFEND", "\tCLEAR\tX", "\tCLEAR\tA", "\tCLEAR\tS",
+			"\tLDT\tMAXLEN", "RLOOP\tTD\tINPUT", "\tJEQ\tRLOOP", "\tRD\tINPUT", "\tCOMPR\tA,S", "\tJEQ\tEXIT",
+			"\t+STCH\tBUFFER,X", "\tTIXR\tT", "\tJLT\tRLOOP", "EXIT\t+STX\tLENGTH", "\tRSUB",
+			"INPUT\tBYTE\tX'F1'", "MAXLEN\tWORD\tBUFEND-BUFFER"
+	};
+	private static final String[] WRITE_SECTION = {
+			"%s\tCSECT", "\tEXTREF\tLENGTH,BUFFER", "\tCLEAR\tX", "\t+LDT\tLENGTH", "WLOOP\tTD\t=X'05'",
+			"\tJEQ\tWLOOP", "\t+LDCH\tBUFFER,X", "\tWD\t=X'05'", "\tTIXR\tT", "\tJLT\tWLOOP", "\tRSUB"
+	};
+
+	public static void main(String[] args) throws Exception {
+		List<String> phases = Arrays.asList(PHASES);
+		int[] sizes = { 1, 10, 100, 1000 };
+		long time = 1000;
+		int warmup = 3, iterations = 5;
+		String instFile = "inst_table.txt";
+		boolean generate = false;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--phases": phases = Arrays.asList(args[++i].split(",")); break;
+				case "--sizes": sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray(); break;
+				case "--time": time = Long.parseLong(args[++i]); break;
+				case "--warmup": warmup = Integer.parseInt(args[++i]); break;
+				case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+				case "--inst": instFile = args[++i]; break;
+				case "--generate": generate = true; break;
+				default: break;
+			}
+		}
+
+		Bench bench = new Bench(warmup, iterations, time);
+		InstTable table = new InstTable();
+		System.out.printf("%-20s %8s %14s %14s %14s%n", "phase", "size", "ops/s", "avg(us)", "alloc(B/op)");
+		for (String phase : phases) {
+			boolean sized = !phase.startsWith("instTable");
+			for (int size : sized ? sizes : new int[] { 0 }) {
+				ArrayList<String> lines = generate ? generated(size) : program(size);
+				Bench.Op op = setup(phase, size, lines, table, instFile);
+				Bench.Result r = bench.measure(op);
+				System.out.printf("%-20s %8s %14.1f %14.3f %14.0f%n", phase, sized ? String.valueOf(size) : "-",
+						r.opsPerSec, r.avgNanos / 1e3, r.bytesPerOp);
+			}
+		}
+	}
+
+	/**
+	 * JMH 벤치마크용 작업. 예제 프로그램을 size쌍 반복한 입력으로 setup한다.
+	 * JMH는 default package의 벤치마크를 허용하지 않으므로 다른 package의 벤치마크가 reflection으로 호출한다.
+	 * @return 작업을 한 번 실행하고 결과(Bench.sink)를 반환하는 함수
+	 */
+	public static Callable<Object> operation(String phase, int size, String instFile) throws Exception {
+		Bench.Op op = setup(phase, size, program(size), new InstTable(), instFile);
+		return () -> {
+			op.run();
+			return Bench.sink;
+		};
+	}
+
+	/**
+	 * 단계별 작업을 준비한다. 준비 과정(이전 단계 실행 등)은 측정에 포함되지 않는다.
+	 */
+	static Bench.Op setup(String phase, int size, ArrayList<String> lines, InstTable table, String instFile) throws Exception {
+		switch (phase) {
+			case "instTable":
+				return () -> Bench.sink = new InstTable();
+			case "instTableFile":
+				return () -> Bench.sink = new InstTable(instFile);
+			case "token":
+				return () -> {
+					TokenTable tt = new TokenTable(new SymbolTable(), table);
+					for (String line : lines) tt.putToken(line);
+					Bench.sink = tt;
+				};
+			case "pass1":
+				return () -> {
+					Assembler asm = new Assembler(table);
+					asm.useLines(lines);
+					asm.pass1();
+					Bench.sink = asm;
+				};
+			case "literalPool": {
+				// section당 리터럴 4개 분량을 한 번의 LTORG로 배치 (리터럴 등록 포함)
+				Assembler asm = new Assembler(table);
+				String[] literals = new String[size * 4];
+				for (int i = 0; i < literals.length; i++) {
+					literals[i] = (i % 2 == 0) ? String.format("=C'L%05d'", i) : String.format("=X'%06X'", i);
+				}
+				return () -> {
+					SectionContext ctx = new SectionContext(0, table);
+					for (String lit : literals) ctx.literals.putLiteral(lit);
+					asm.processLiteralPool(ctx);
+					Bench.sink = ctx;
+				};
+			}
+			case "generateObjectCode":
+			case "encodeObjectCode": {
+				Assembler asm = new Assembler(table);
+				asm.useLines(lines);
+				asm.pass1();
+				boolean text = phase.equals("generateObjectCode");
+				ByteBuffer code = ByteBuffer.allocate(0xFF);
+				return () -> {
+					for (int sec = 0; sec < asm.sectionCount(); sec++) {
+						TokenTable tt = asm.getTokenTable(sec);
+						SymbolTable st = asm.getSymbolTable(sec);
+						LiteralTable lt = asm.getLiteralTable(sec);
+						int secStart = asm.getSectionStart(sec);
+						for (int i = 0; i < tt.size(); i++) {
+							Token t = tt.getToken(i);
+							if (!asm.isTextRecordable(t)) continue;
+							if (text) {
+								Bench.sink = asm.generateObjectCode(t, t.location - secStart, st, lt, -1);
+							} else {
+								code.clear();
+								asm.encodeObjectCode(t, t.location - secStart, st, lt, -1, code);
+							}
+						}
+					}
+				};
+			}
+			case "textRecordFormat":
+			case "textRecordBuffer":
+			case "textRecordBuilder": {
+				// pass1 결과의 object code를 미리 인코딩해 두고 T 레코드로 묶는 부분만 측정
+				Assembler asm = new Assembler(table);
+				asm.useLines(lines);
+				asm.pass1();
+				List<byte[]> codes = new ArrayList<>();
+				List<Integer> addrs = new ArrayList<>();
+				ByteBuffer code = ByteBuffer.allocate(0xFF);
+				for (int sec = 0; sec < asm.sectionCount(); sec++) {
+					TokenTable tt = asm.getTokenTable(sec);
+					int secStart = asm.getSectionStart(sec);
+					for (int i = 0; i < tt.size(); i++) {
+						Token t = tt.getToken(i);
+						if (!asm.isTextRecordable(t)) continue;
+						code.clear();
+						int len = asm.encodeObjectCode(t, t.location - secStart, asm.getSymbolTable(sec),
+								asm.getLiteralTable(sec), -1, code);
+						if (len == 0) continue;
+						codes.add(Arrays.copyOf(code.array(), len));
+						addrs.add(t.location - secStart);
+					}
+				}
+				byte[][] data = codes.toArray(new byte[0][]);
+				int[] addr = addrs.stream().mapToInt(Integer::intValue).toArray();
+				return textRecordOp(phase, data, addr);
+			}
+			case "pass2": {
+				Assembler asm = new Assembler(table);
+				asm.useLines(lines);
+				asm.pass1();
+				return () -> {
+					asm.clearObjectCode();
+					asm.pass2();
+				};
+			}
+			case "printObjectCode": {
+				Assembler asm = new Assembler(table);
+				asm.useLines(lines);
+				asm.pass1();
+				asm.pass2();
+				File out = File.createTempFile("bench_objectcode", ".txt");
+				out.deleteOnExit();
+				return () -> asm.printObjectCode(out.getPath());
+			}
+			default:
+				throw new IllegalArgumentException("Unknown phase: " + phase);
+		}
+	}
+
+	/**
+	 * object code 목록을 최대 30 byte의 T 레코드로 묶는 작업. 세 방식 모두 같은 레코드를 만든다.
+	 */
+	private static Bench.Op textRecordOp(String phase, byte[][] data, int[] addr) {
+		final int max = 30;
+		switch (phase) {
+			case "textRecordFormat":
+				return () -> {
+					List<String> out = new ArrayList<>();
+					StringBuilder hex = new StringBuilder();
+					int start = -1, len = 0;
+					for (int i = 0; i < data.length; i++) {
+						if (len == 0) start = addr[i];
+						if (len + data[i].length > max) {
+							out.add(String.format("T%06X%02X%s", start, len, hex));
+							hex.setLength(0);
+							len = 0;
+							start = addr[i];
+						}
+						for (byte b : data[i]) hex.append(String.format("%02X", b & 0xFF));
+						len += data[i].length;
+					}
+					if (len > 0) out.add(String.format("T%06X%02X%s", start, len, hex));
+					Bench.sink = out;
+				};
+			case "textRecordBuffer":
+				return () -> {
+					List<String> out = new ArrayList<>();
+					ByteBuffer buf = ByteBuffer.allocate(0xFF);
+					int start = -1;
+					for (int i = 0; i < data.length; i++) {
+						if (buf.position() == 0) start = addr[i];
+						if (buf.position() + data[i].length > max) {
+							out.add(textRecord(start, buf.array(), buf.position()));
+							buf.clear();
+							start = addr[i];
+						}
+						buf.put(data[i]);
+					}
+					if (buf.position() > 0) out.add(textRecord(start, buf.array(), buf.position()));
+					Bench.sink = out;
+				};
+			default:
+				return () -> {
+					List<String> out = new ArrayList<>();
+					TextRecordBuilder text = new TextRecordBuilder(max);
+					for (int i = 0; i < data.length; i++) {
+						String done = text.add(data[i], 0, data[i].length, addr[i]);
+						if (done != null) out.add(done);
+					}
+					if (!text.isEmpty()) out.add(text.flush());
+					Bench.sink = out;
+				};
+		}
+	}
+
+	/** T 레코드 문자열 (T + 시작주소 6자리 + 길이 2자리 + object code)을 StringBuilder와 Hex로 만든다. */
+	private static String textRecord(int start, byte[] data, int len) {
+		StringBuilder sb = new StringBuilder(9 + len * 2);
+		sb.append('T');
+		Hex.appendHex(sb, start, 6);
+		Hex.appendHex(sb, len, 2);
+		Hex.append(sb, data, 0, len);
+		return sb.toString();
+	}
+
+	/**
+	 * 예제 프로그램의 RDREC/WRREC section을 size쌍 반복한 소스 줄 목록을 만든다.
+	 */
+	static ArrayList<String> program(int size) {
+		ArrayList<String> lines = new ArrayList<>(Arrays.asList(MAIN_SECTION));
+		for (int i = 0; i < size; i++) {
+			for (String l : READ_SECTION) lines.add(String.format(l, i == 0 ? "RDREC" : "RD" + i));
+			for (String l : WRITE_SECTION) lines.add(String.format(l, i == 0 ? "WRREC" : "WR" + i));
+		}
+		lines.add("\tEND\tFIRST");
+		return lines;
+	}
+
+	/**
+	 * ProgramGenerator의 기본 설정으로 약 size줄의 프로그램을 만든다.
+	 */
+	static ArrayList<String> generated(int size) {
+		ProgramGenerator gen = new ProgramGenerator();
+		gen.lines = size;
+		gen.sections = Math.max(1, size / 1000);
+		return gen.generate();
+	}
+
+}
@@ -0,0 +1,73 @@
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * 벤치마크용 최소 측정기. (javac만으로 실행할 때 쓰는 대체. JMH 벤치마크는 jmh/에 있고 gradle jmh로 실행한다) <br>
+ * 작업 하나를 정해진 시간 동안 반복 실행하여 처리량(ops/s), 평균 지연 시간, 작업당 할당량(-prof gc의 alloc.rate.norm에 해당)을 구한다.
+ * warmup 반복 후 측정 반복 결과의 평균을 사용한다. 할당량은 현재 스레드의 할당만 집계한다.
+ */
+final class Bench {
+	/** 측정할 작업 */
+	interface Op {
+		void run() throws Exception;
+	}
+
+	/** 측정 결과 */
+	static final class Result {
+		final double opsPerSec;
+		final double avgNanos;
+		final double bytesPerOp;
+
+		Result(double opsPerSec, double avgNanos, double bytesPerOp) {
+			this.opsPerSec = opsPerSec;
+			this.avgNanos = avgNanos;
+			this.bytesPerOp = bytesPerOp;
+		}
+	}
+
+	private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	/** 결과가 최적화로 사라지지 않도록 값을 흡수한다. */
+	static volatile Object sink;
+
+	private final int warmupIterations;
+	private final int iterations;
+	private final long iterationNanos;
+
+	Bench(int warmupIterations, int iterations, long iterationMillis) {
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+		this.iterationNanos = iterationMillis * 1_000_000L;
+	}
+
+	Result measure(Op op) throws Exception {
+		for (int i = 0; i < warmupIterations; i++) {
+			iteration(op);
+		}
+		long ops = 0, nanos = 0, bytes = 0;
+		for (int i = 0; i < iterations; i++) {
+			long[] r = iteration(op);
+			ops += r[0];
+			nanos += r[1];
+			bytes += r[2];
+		}
+		return new Result(ops * 1e9 / nanos, (double) nanos / ops, (double) bytes / ops);
+	}
+
+	/** @return {실행 횟수, 소요 시간(ns), 할당량(byte)} */
+	private long[] iteration(Op op) throws Exception {
+		long tid = Thread.currentThread().getId();
+		long allocStart = THREADS.getThreadAllocatedBytes(tid);
+		long start = System.nanoTime();
+		long end = start + iterationNanos;
+		long ops = 0;
+		long now;
+		do {
+			op.run();
+			ops++;
+			now = System.nanoTime();
+		} while (now < end);
+		long allocated = THREADS.getThreadAllocatedBytes(tid) - allocStart;
+		return new long[] { ops, now - start, allocated };
+	}
+}
@@ -0,0 +1,125 @@
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 시뮬레이터 장치(TD/RD/WD)의 처리량 벤치마크. <br>
+ * 예제 COPY 프로그램(장치 F1에서 0으로 끝나는 레코드를 읽어 장치 05에 쓰고, 끝에 "EOF"를 쓴다)을 어셈블하여
+ * 여러 MB의 입력 파일을 복사하고, 출력이 기대한 내용과 같은지 확인한다.
+ * <pre>
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out:src DeviceBenchmark [--source ../input.txt] [--megabytes 8] [--record 200] [--seed 1]
+ *                                    [--buffers 1,4096,1048576] [--pipe 65536]
+ * </pre>
+ * buffer 크기별로 FileDevice를 쓰는 경우(1이면 RD/WD마다 channel을 호출한다)와,
+ * 메모리 pipe(PipeDevice)를 host가 명령어 구간마다 채우고 비우는 경우를 측정한다.
+ */
+public class DeviceBenchmark {
+	private static final int INPUT = 0xF1;
+	private static final int OUTPUT = 0x05;
+	/** pipe 모드에서 host가 pipe를 채우고 비우는 간격 (명령어 수) */
+	private static final long SLICE = 100_000;
+
+	public static void main(String[] args) throws Exception {
+		String source = "../input.txt";
+		int megabytes = 8, record = 200, pipe = 65536;
+		long seed = 1;
+		int[] buffers = { 1, 4096, FileDevice.DEFAULT_BUFFER_SIZE };
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--source": source = args[++i]; break;
+				case "--megabytes": megabytes = Integer.parseInt(args[++i]); break;
+				case "--record": record = Integer.parseInt(args[++i]); break;
+				case "--seed": seed = Long.parseLong(args[++i]); break;
+				case "--buffers": buffers = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray(); break;
+				case "--pipe": pipe = Integer.parseInt(args[++i]); break;
+				default: break;
+			}
+		}
+
+		InstTable table = new InstTable();
+		Path dir = Files.createTempDirectory("devbench");
+		LinkingLoader loader = SimulatorBenchmark.assemble(table, dir, Files.readAllLines(Path.of(source)));
+		Path input = dir.resolve("input.bin");
+		Path output = dir.resolve("output.bin");
+		byte[] expected = records(input, megabytes << 20, record, seed);
+		System.out.printf("%d bytes in, %d bytes expected out%n", Files.size(input), expected.length);
+		System.out.printf("%-14s %10s %10s %10s %12s %7s%n", "device", "ms", "MB/s", "MIPS", "transfers", "output");
+
+		for (int size : buffers) {
+			Simulator sim = new Simulator(table);
+			sim.load(loader);
+			long start = System.nanoTime();
+			long transfers;
+			try (FileDevice in = FileDevice.input(input.toString(), size);
+					FileDevice out = FileDevice.output(output.toString(), size)) {
+				sim.attach(INPUT, in);
+				sim.attach(OUTPUT, out);
+				run(sim, Long.MAX_VALUE);
+				out.flush();
+				transfers = in.transfers() + out.transfers();
+			}
+			long nanos = System.nanoTime() - start;
+			boolean same = Arrays.equals(expected, Files.readAllBytes(output));
+			report("file/" + size, nanos, Files.size(input), sim.executed(), transfers, same);
+		}
+
+		// 메모리 pipe: host가 입력을 채우고 출력을 비우며 구간씩 실행한다
+		Simulator sim = new Simulator(table);
+		sim.load(loader);
+		PipeDevice in = new PipeDevice(pipe, true);
+		PipeDevice out = new PipeDevice(pipe, false);
+		sim.attach(INPUT, in);
+		sim.attach(OUTPUT, out);
+		byte[] data = Files.readAllBytes(input);
+		byte[] chunk = new byte[pipe];
+		ByteArrayOutputStream collected = new ByteArrayOutputStream(expected.length);
+		int offered = 0;
+		long start = System.nanoTime();
+		Simulator.Halt halt;
+		do {
+			if (offered < data.length) {
+				offered += in.offer(data, offered, data.length - offered);
+				if (offered == data.length) in.close();
+			}
+			halt = run(sim, SLICE);
+			for (int n; (n = out.poll(chunk, 0, chunk.length)) > 0;) collected.write(chunk, 0, n);
+		} while (halt == Simulator.Halt.STEP_LIMIT);
+		long nanos = System.nanoTime() - start;
+		report("pipe/" + pipe, nanos, data.length, sim.executed(), 0, Arrays.equals(expected, collected.toByteArray()));
+	}
+
+	private static Simulator.Halt run(Simulator sim, long steps) {
+		Simulator.Halt halt = sim.run(steps);
+		if (halt == Simulator.Halt.SELF_LOOP) throw new IllegalStateException("program stopped: " + sim.registers());
+		return halt;
+	}
+
+	private static void report(String name, long nanos, long bytes, long instructions, long transfers, boolean same) {
+		System.out.printf("%-14s %10.1f %10.1f %10.1f %12d %7s%n", name, nanos / 1e6, bytes / 1.048576 / (nanos / 1e3),
+				instructions * 1e3 / nanos, transfers, same ? "same" : "DIFF");
+	}
+
+	/**
+	 * 0을 포함하지 않는 임의 길이(1~maxRecord) 레코드를 0으로 끝내어 size byte 정도의 입력 파일을 만든다.
+	 * @return COPY 프로그램이 쓸 내용 (레코드를 이어 붙이고 "EOF")
+	 */
+	static byte[] records(Path file, int size, int maxRecord, long seed) throws Exception {
+		Random rnd = new Random(seed);
+		ByteArrayOutputStream in = new ByteArrayOutputStream(size + maxRecord + 1);
+		ByteArrayOutputStream out = new ByteArrayOutputStream(size + 3);
+		byte[] rec = new byte[maxRecord];
+		while (in.size() < size) {
+			int len = 1 + rnd.nextInt(maxRecord);
+			for (int i = 0; i < len; i++) rec[i] = (byte) (' ' + rnd.nextInt(95));
+			in.write(rec, 0, len);
+			in.write(0);
+			out.write(rec, 0, len);
+		}
+		out.write(new byte[] { 'E', 'O', 'F' });
+		Files.write(file, in.toByteArray());
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,83 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * START가 0이 아닌 프로그램을 이 어셈블러로 어셈블하여 LinkingLoader로 링크할 수 있는지 확인한다. <br>
+ * 어셈블러는 T/M 레코드 주소를 section 안의 offset으로, D/E 레코드 주소를 START를 포함한 주소로 쓴다.
+ * 여러 load 주소에서 링크하여 T 레코드의 데이터가 section 위치에 놓이고 외부 참조가 ESTAB 주소로 고쳐졌는지,
+ * 실행 시작 주소가 첫 section의 위치인지 비교한다. 하나라도 다르면 종료 코드 1로 끝난다.
+ * <pre>
+ *   java -cp out:src LoaderStartCheck [--addresses 0,2000]
+ * </pre>
+ */
+public class LoaderStartCheck {
+	private static final List<String> PROGRAM = Arrays.asList(
+			"PROG\tSTART\t1000",
+			"\tEXTDEF\tBUF",
+			"\tEXTREF\tROUT",
+			"FIRST\t+JSUB\tROUT",
+			"\tJ\tFIRST",
+			"BUF\tWORD\t7",
+			"LIB\tCSECT",
+			"\tEXTDEF\tROUT",
+			"\tEXTREF\tBUF",
+			"ROUT\tLDA\t#0",
+			"PTR\tWORD\tBUF",
+			"\tRSUB",
+			"\tEND\tFIRST");
+
+	public static void main(String[] args) throws Exception {
+		int[] addresses = { 0, 0x2000 };
+		for (int i = 0; i < args.length; i++) {
+			if ("--addresses".equals(args[i])) {
+				addresses = Arrays.stream(args[++i].split(",")).mapToInt(a -> Integer.parseInt(a, 16)).toArray();
+			}
+		}
+
+		Path dir = Files.createTempDirectory("loaderstart");
+		Path input = dir.resolve("input.txt");
+		Path object = dir.resolve("output_objectcode.txt");
+		Files.write(input, PROGRAM);
+		new Assembler(new InstTable()).assemble(input.toString(), dir.resolve("output_symtab.txt").toString(),
+				dir.resolve("output_littab.txt").toString(), object.toString());
+
+		int failures = 0;
+		for (int address : addresses) {
+			LinkingLoader loader = new LinkingLoader(address);
+			if (!loader.link(Collections.singletonList(object.toString()))) {
+				failures++;
+				System.out.printf("FAIL load %06X: %s%n", address, loader.errors());
+				continue;
+			}
+			int prog = loader.symbolAddress("PROG");
+			int lib = loader.symbolAddress("LIB");
+			failures += expect(address, "section PROG", prog, address);
+			failures += expect(address, "entry", loader.entryAddress(), prog);
+			// +JSUB ROUT: 20비트 주소 필드가 M 레코드로 ROUT의 주소가 된다
+			failures += expect(address, "+JSUB ROUT", read(loader, prog, 4) & 0xFFFFF, loader.symbolAddress("ROUT"));
+			failures += expect(address, "BUF WORD 7", read(loader, loader.symbolAddress("BUF"), 3), 7);
+			failures += expect(address, "ROUT in LIB", loader.symbolAddress("ROUT"), lib);
+			failures += expect(address, "PTR WORD BUF", read(loader, lib + 3, 3), loader.symbolAddress("BUF"));
+		}
+		System.out.printf("%d load addresses, %d failures%n", addresses.length, failures);
+		if (failures > 0) System.exit(1);
+	}
+
+	/** 메모리 이미지의 address부터 bytes byte를 big-endian 정수로 읽는다. */
+	private static int read(LinkingLoader loader, int address, int bytes) {
+		byte[] image = loader.image();
+		int pos = address - loader.loadAddress();
+		int value = 0;
+		for (int i = 0; i < bytes; i++) value = (value << 8) | (image[pos + i] & 0xFF);
+		return value;
+	}
+
+	private static int expect(int address, String what, int actual, int expected) {
+		if (actual == expected) return 0;
+		System.out.printf("MISMATCH load %06X %s: expected %06X, got %06X%n", address, what, expected, actual);
+		return 1;
+	}
+}
@@ -0,0 +1,81 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * parallel 모드 출력이 순차 모드와 같은지 확인한다. <br>
+ * ProgramGenerator로 seed와 section 수를 바꿔 가며 프로그램을 만들고, 같은 입력을 순차 모드와 --parallel로
+ * 어셈블하여 object code, symbol table, literal table 파일을 byte 단위로 비교한다.
+ * 하나라도 다르면 처음 다른 줄을 출력하고 종료 코드 1로 끝난다.
+ * <pre>
+ *   java -cp out:src ParallelDeterminism [--seeds 20] [--sections 1,8,64,256] [--lines-per-section 200]
+ * </pre>
+ * core가 적은 환경에서는 -Djava.util.concurrent.ForkJoinPool.common.parallelism=8 등으로 section들이 실제로 섞여 실행되게 한다.
+ */
+public class ParallelDeterminism {
+	private static final String[] OUTPUTS = { "output_objectcode.txt", "output_symtab.txt", "output_littab.txt" };
+
+	public static void main(String[] args) throws Exception {
+		int seeds = 20;
+		int[] sections = { 1, 8, 64, 256 };
+		int linesPerSection = 200;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--seeds": seeds = Integer.parseInt(args[++i]); break;
+				case "--sections": sections = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray(); break;
+				case "--lines-per-section": linesPerSection = Integer.parseInt(args[++i]); break;
+				default: break;
+			}
+		}
+
+		InstTable table = new InstTable();
+		Path dir = Files.createTempDirectory("determinism");
+		Path input = dir.resolve("input.txt");
+		int runs = 0, failures = 0;
+		for (int count : sections) {
+			for (long seed = 1; seed <= seeds; seed++) {
+				ProgramGenerator gen = new ProgramGenerator();
+				gen.sections = count;
+				gen.lines = count * linesPerSection;
+				gen.seed = seed;
+				Files.write(input, gen.generate());
+				Path sequential = assemble(table, input, dir.resolve("sequential"), false);
+				Path parallel = assemble(table, input, dir.resolve("parallel"), true);
+				runs++;
+				for (String name : OUTPUTS) {
+					byte[] expected = Files.readAllBytes(sequential.resolve(name));
+					byte[] actual = Files.readAllBytes(parallel.resolve(name));
+					if (Arrays.equals(expected, actual)) continue;
+					failures++;
+					System.out.printf("MISMATCH sections=%d seed=%d %s: %s%n", count, seed, name,
+							firstDifference(sequential.resolve(name), parallel.resolve(name)));
+				}
+			}
+		}
+		System.out.printf("%d programs, %d mismatched files%n", runs, failures);
+		if (failures > 0) System.exit(1);
+	}
+
+	/** input을 어셈블하여 out 디렉터리에 세 출력 파일을 만든다. */
+	private static Path assemble(InstTable table, Path input, Path out, boolean parallel) throws Exception {
+		Files.createDirectories(out);
+		Assembler asm = new Assembler(table);
+		asm.setParallel(parallel);
+		asm.assemble(input.toString(), out.resolve(OUTPUTS[1]).toString(), out.resolve(OUTPUTS[2]).toString(),
+				out.resolve(OUTPUTS[0]).toString());
+		return out;
+	}
+
+	/** 두 파일에서 처음 다른 줄 */
+	private static String firstDifference(Path expected, Path actual) throws Exception {
+		List<String> a = Files.readAllLines(expected);
+		List<String> b = Files.readAllLines(actual);
+		for (int i = 0; i < Math.max(a.size(), b.size()); i++) {
+			String x = i < a.size() ? a.get(i) : "<eof>";
+			String y = i < b.size() ? b.get(i) : "<eof>";
+			if (!x.equals(y)) return String.format("line %d: sequential '%s', parallel '%s'", i + 1, x, y);
+		}
+		return "line separators differ";
+	}
+}
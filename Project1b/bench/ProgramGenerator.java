@@ -0,0 +1,385 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 규모 측정용 SIC/XE 프로그램 생성기. <br>
+ * 줄 수, CSECT 수, label 밀도, literal 밀도, EXTDEF/EXTREF 개수, EQU 연쇄 깊이, format 4 비율을 지정하여
+ * 이 어셈블러가 그대로 처리할 수 있는 프로그램을 만든다. 같은 seed와 설정이면 항상 같은 프로그램이 나온다.
+ * <pre>
+ *   java -cp out ProgramGenerator --lines 1000000 --sections 100 --seed 1 --out big.txt
+ * </pre>
+ * BASE 지시어를 쓰지 않으므로 format 3의 메모리 참조는 PC 상대 범위 안에 있도록 만든다.
+ * <br>
+ *  - format 3 참조 대상은 최근 REACH byte 안에 정의된 label만 사용한다. <br>
+ *  - literal은 첫 참조부터 pool 끝까지가 REACH byte를 넘기 전에 LTORG로 배치한다. <br>
+ *  - 외부 심볼(EXTREF)은 format 4 명령어와 WORD 상대식에서만 참조한다.
+ */
+public class ProgramGenerator {
+	/** format 3 PC 상대 주소로 닿는 거리 (disp 범위 -2048..2047에 여유를 둔 값) */
+	private static final int REACH = 1800;
+
+	private static final String[] LOAD_STORE = { "LDA", "STA", "LDX", "STX", "LDT", "COMP", "ADD", "SUB", "LDCH", "STCH" };
+	private static final String[] JUMPS = { "J", "JEQ", "JLT", "JGT", "JSUB" };
+	private static final String[] REGISTERS = { "A", "X", "S", "T" };
+
+	/** 전체 줄 수 (헤더와 END 포함, 대략적인 값) */
+	public int lines = 1000;
+	/** control section 수 (첫 section은 START, 나머지는 CSECT) */
+	public int sections = 1;
+	/** label이 붙는 줄의 비율 */
+	public double labelDensity = 0.2;
+	/** literal을 참조하는 줄의 비율 */
+	public double literalDensity = 0.05;
+	/** section마다 EXTDEF로 내보내고 EXTREF로 가져오는 심볼 수 */
+	public int fanout = 3;
+	/** 줄마다 EQU 연쇄를 시작할 확률 */
+	public double equDensity = 0.01;
+	/** EQU 연쇄 하나의 길이 */
+	public int equDepth = 3;
+	/** format 3/4 명령어 중 format 4의 비율 */
+	public double format4Ratio = 0.1;
+	public long seed = 1;
+
+	private Random rnd;
+	private Writer out;
+	private int loc;
+	private int labelCount;
+	private int equCount;
+	/** 최근 label의 이름과 주소. REACH를 벗어난 것은 앞에서부터 버린다. */
+	private final ArrayDeque<String> recentNames = new ArrayDeque<>();
+	private final ArrayDeque<Integer> recentLocs = new ArrayDeque<>();
+	/** 아직 LTORG로 배치되지 않은 literal */
+	private final List<String> pending = new ArrayList<>();
+	private int literalCount;
+	private int pendingBytes;
+	private int firstLiteralRef;
+
+	public static void main(String[] args) throws IOException {
+		ProgramGenerator gen = new ProgramGenerator();
+		String outFile = null;
+		for (int i = 0; i < args.length - 1; i++) {
+			switch (args[i]) {
+				case "--lines": gen.lines = Integer.parseInt(args[++i]); break;
+				case "--sections": gen.sections = Integer.parseInt(args[++i]); break;
+				case "--labels": gen.labelDensity = Double.parseDouble(args[++i]); break;
+				case "--literals": gen.literalDensity = Double.parseDouble(args[++i]); break;
+				case "--fanout": gen.fanout = Integer.parseInt(args[++i]); break;
+				case "--equ": gen.equDensity = Double.parseDouble(args[++i]); break;
+				case "--equ-depth": gen.equDepth = Integer.parseInt(args[++i]); break;
+				case "--format4": gen.format4Ratio = Double.parseDouble(args[++i]); break;
+				case "--seed": gen.seed = Long.parseLong(args[++i]); break;
+				case "--out": outFile = args[++i]; break;
+				default: break;
+			}
+		}
+		try (Writer w = outFile != null
+				? Files.newBufferedWriter(Paths.get(outFile))
+				: new BufferedWriter(new OutputStreamWriter(System.out))) {
+			gen.generate(w);
+		}
+	}
+
+	/**
+	 * 프로그램을 줄 목록으로 생성한다. 벤치마크에서 파일 없이 입력으로 쓰기 위한 것이다.
+	 */
+	public ArrayList<String> generate() {
+		ArrayList<String> result = new ArrayList<>(lines + 16);
+		Writer collector = new Writer() {
+			private final StringBuilder line = new StringBuilder();
+
+			@Override
+			public void write(char[] buf, int off, int len) {
+				for (int i = off; i < off + len; i++) {
+					if (buf[i] == '\n') {
+						result.add(line.toString());
+						line.setLength(0);
+					} else {
+						line.append(buf[i]);
+					}
+				}
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		try {
+			generate(collector);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return result;
+	}
+
+	/**
+	 * 프로그램을 한 줄씩 out에 쓴다. 전체를 메모리에 두지 않으므로 천만 줄 단위도 생성할 수 있다.
+	 */
+	public void generate(Writer out) throws IOException {
+		if (sections < 1 || sections > 36 * 36 * 36) {
+			throw new IllegalArgumentException("sections must be 1.." + 36 * 36 * 36);
+		}
+		if (fanout < 0 || fanout > 36 * 36) {
+			throw new IllegalArgumentException("fanout must be 0.." + 36 * 36);
+		}
+		this.rnd = new Random(seed);
+		this.out = out;
+		int perSection = Math.max(1, lines / sections);
+
+		for (int sec = 0; sec < sections; sec++) {
+			loc = 0;
+			labelCount = 0;
+			equCount = 0;
+			literalCount = 0;
+			recentNames.clear();
+			recentLocs.clear();
+			pending.clear();
+			pendingBytes = 0;
+
+			// 헤더
+			String name = sec == 0 ? "PROG" : "S" + base36(sec, 5);
+			emit(name, sec == 0 ? "START" : "CSECT", sec == 0 ? "0" : "");
+			int header = 1;
+
+			List<String> exports = new ArrayList<>();
+			for (int j = 0; j < fanout; j++) exports.add(exportName(sec, j));
+			header += emitList("EXTDEF", exports);
+
+			List<String> imports = new ArrayList<>(imports(sec));
+			header += emitList("EXTREF", imports);
+
+			// 본문. 내보낼 심볼은 본문에 고르게 배치한다.
+			int body = Math.max(exports.size() + 1, perSection - header - (sec == sections - 1 ? 1 : 0));
+			int nextExport = 0;
+			for (int i = 0; i < body; i++) {
+				String label = null;
+				if (sec == 0 && i == 0) {
+					label = "FIRST";
+				} else if (nextExport < exports.size() && i >= (long) nextExport * body / exports.size()) {
+					label = exports.get(nextExport++);
+				} else if (rnd.nextDouble() < labelDensity) {
+					label = "L" + base36(labelCount++, 5);
+				}
+				if (label != null) remember(label);
+
+				if (equDepth > 0 && label == null && !recentNames.isEmpty() && rnd.nextDouble() < equDensity) {
+					i += emitEquChain() - 1;
+					continue;
+				}
+				emitBody(label, imports);
+				if (!pending.isEmpty() && loc - firstLiteralRef + pendingBytes > REACH) {
+					emitLtorg();
+				}
+			}
+			if (!pending.isEmpty()) emitLtorg();
+		}
+		emit(null, "END", "FIRST");
+		out.flush();
+	}
+
+	/**
+	 * 본문 한 줄(명령어 또는 데이터)을 만든다.
+	 */
+	private void emitBody(String label, List<String> imports) throws IOException {
+		double r = rnd.nextDouble();
+		boolean extended = rnd.nextDouble() < format4Ratio;
+
+		// literal 참조
+		if (r < literalDensity) {
+			// literal table은 section 전체에서 중복을 합치므로, 이미 배치된 literal은 다시 쓰지 않는다.
+			String lit;
+			if (!pending.isEmpty() && rnd.nextBoolean()) {
+				lit = pick(pending);
+			} else {
+				lit = (literalCount % 2 == 0)
+						? "=C'" + base36(literalCount, 3) + "'"
+						: "=X'" + String.format("%06X", literalCount) + "'";
+				literalCount++;
+				if (pending.isEmpty()) firstLiteralRef = loc;
+				pending.add(lit);
+				pendingBytes += lit.charAt(1) == 'C' ? lit.length() - 4 : (lit.length() - 4) / 2;
+			}
+			String op = rnd.nextBoolean() ? "LDA" : "COMP";
+			emit(label, extended ? "+" + op : op, lit);
+			loc += extended ? 4 : 3;
+			return;
+		}
+
+		r = rnd.nextDouble();
+		// 데이터
+		if (r < 0.08) {
+			switch (rnd.nextInt(4)) {
+				case 0:
+					emit(label, "WORD", String.valueOf(rnd.nextInt(4096)));
+					loc += 3;
+					break;
+				case 1:
+					if (imports.size() >= 2) {
+						emit(label, "WORD", pick(imports) + "-" + pick(imports));
+					} else {
+						emit(label, "WORD", String.valueOf(rnd.nextInt(4096)));
+					}
+					loc += 3;
+					break;
+				case 2:
+					emit(label, "BYTE", "X'" + String.format("%02X", rnd.nextInt(256)) + "'");
+					loc += 1;
+					break;
+				default:
+					emit(label, "RESW", "1");
+					loc += 3;
+					break;
+			}
+			return;
+		}
+		// format 2
+		if (r < 0.25) {
+			switch (rnd.nextInt(3)) {
+				case 0: emit(label, "CLEAR", pick(REGISTERS)); break;
+				case 1: emit(label, "COMPR", pick(REGISTERS) + "," + pick(REGISTERS)); break;
+				default: emit(label, "TIXR", pick(REGISTERS)); break;
+			}
+			loc += 2;
+			return;
+		}
+		// format 4: 외부 심볼 또는 section 내부 심볼 (주소 범위 제한 없음)
+		if (extended) {
+			String target = !imports.isEmpty() && rnd.nextBoolean() ? pick(imports) : recentTarget();
+			if (target == null) {
+				emit(label, "+LDA", "#" + rnd.nextInt(1 << 20));
+			} else if (rnd.nextInt(4) == 0) {
+				emit(label, "+STCH", target + ",X");
+			} else {
+				emit(label, rnd.nextBoolean() ? "+JSUB" : "+LDA", target);
+			}
+			loc += 4;
+			return;
+		}
+		// format 3
+		String target = recentTarget();
+		if (r < 0.3) {
+			emit(label, "RSUB", "");
+		} else if (target == null) {
+			emit(label, "LDA", "#" + rnd.nextInt(4096));
+		} else if (r < 0.5) {
+			emit(label, pick(JUMPS), target);
+		} else if (r < 0.55) {
+			emit(label, pick(LOAD_STORE), target + ",X");
+		} else {
+			emit(label, pick(LOAD_STORE), target);
+		}
+		loc += 3;
+	}
+
+	/**
+	 * 최근 label을 기준으로 한 EQU 연쇄를 만든다. 각 EQU는 바로 앞 EQU를 참조한다.
+	 * 마지막 EQU는 더 앞의 label과의 차(0 이상의 절대값)로 정의한다.
+	 * @return 출력한 줄 수
+	 */
+	private int emitEquChain() throws IOException {
+		String prev = pick(recentNames);
+		for (int d = 0; d < equDepth; d++) {
+			String name = "Q" + base36(equCount++, 5);
+			boolean last = d > 0 && d == equDepth - 1;
+			emit(name, "EQU", last ? prev + "-" + recentNames.peekFirst() : prev);
+			prev = name;
+		}
+		return equDepth;
+	}
+
+	private void emitLtorg() throws IOException {
+		emit(null, "LTORG", "");
+		loc += pendingBytes;
+		pending.clear();
+		pendingBytes = 0;
+	}
+
+	/** 심볼 목록을 한 줄에 3개씩(operand 최대 개수) 출력하고 출력한 줄 수를 반환한다. */
+	private int emitList(String directive, List<String> symbols) throws IOException {
+		int count = 0;
+		for (int i = 0; i < symbols.size(); i += TokenTable.MAX_OPERAND) {
+			emit(null, directive, String.join(",", symbols.subList(i, Math.min(symbols.size(), i + TokenTable.MAX_OPERAND))));
+			count++;
+		}
+		return count;
+	}
+
+	/** 다른 section이 내보내는 심볼 중 fanout개를 고른다. */
+	private Set<String> imports(int sec) {
+		Set<String> result = new LinkedHashSet<>();
+		if (sections < 2 || fanout == 0) return result;
+		int tries = 0;
+		while (result.size() < fanout && tries++ < fanout * 4) {
+			int other = rnd.nextInt(sections - 1);
+			if (other >= sec) other++;
+			result.add(exportName(other, rnd.nextInt(fanout)));
+		}
+		return result;
+	}
+
+	private void remember(String label) {
+		recentNames.addLast(label);
+		recentLocs.addLast(loc);
+	}
+
+	/** PC 상대 범위 안에 있는 최근 label 하나. 없으면 null */
+	private String recentTarget() {
+		while (!recentLocs.isEmpty() && loc - recentLocs.peekFirst() > REACH) {
+			recentLocs.removeFirst();
+			recentNames.removeFirst();
+		}
+		return recentNames.isEmpty() ? null : pick(recentNames);
+	}
+
+	private String pick(String[] values) {
+		return values[rnd.nextInt(values.length)];
+	}
+
+	private String pick(List<String> values) {
+		return values.get(rnd.nextInt(values.size()));
+	}
+
+	private String pick(ArrayDeque<String> values) {
+		// 최근 것일수록 자주 참조되도록 끝에서 가까운 쪽을 고른다.
+		int skip = Math.min(values.size() - 1, rnd.nextInt(8));
+		Iterator<String> it = values.descendingIterator();
+		for (int i = 0; i < skip; i++) it.next();
+		return it.next();
+	}
+
+	private void emit(String label, String operator, String operand) throws IOException {
+		if (label != null) out.write(label);
+		out.write('\t');
+		out.write(operator);
+		if (!operand.isEmpty()) {
+			out.write('\t');
+			out.write(operand);
+		}
+		out.write('\n');
+	}
+
+	/** section sec가 내보내는 j번째 심볼 이름 (6자) */
+	private static String exportName(int sec, int j) {
+		return "X" + base36(sec, 3) + base36(j, 2);
+	}
+
+	private static String base36(int value, int width) {
+		StringBuilder sb = new StringBuilder(Integer.toString(value, 36).toUpperCase());
+		while (sb.length() < width) sb.insert(0, '0');
+		return sb.toString();
+	}
+}
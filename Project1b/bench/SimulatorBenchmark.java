@@ -0,0 +1,229 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 시뮬레이터의 초당 명령어 수(IPS) 벤치마크. <br>
+ * 배열을 도는 이중 루프 프로그램을 크기별로 생성하여 이 어셈블러로 어셈블하고 LinkingLoader로 링크한 뒤,
+ * 처음부터 끝까지 실행하는 것을 한 작업으로 측정한다.
+ * interpreter와 basic block 번역(--threshold)을 나란히 측정하고, 한 번씩 실행한 뒤의
+ * 레지스터, 메모리, 실행한 명령어 수가 같은지 확인한다. (state 열)
+ * subr0 행은 주소 0의 subroutine을 JSUB로 반복 호출하여 RSUB로 끝나는 block이 L로 돌아가는지 확인하고,
+ * 마지막 행(selfmod)은 루프 안의 명령어를 매번 고쳐 쓰는 프로그램으로 block 무효화를 확인한다.
+ * <pre>
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out:src SimulatorBenchmark [--sizes 16,256,4096] [--rounds 200] [--body 6] [--seed 1]
+ *                                       [--threshold 64] [--time 1000] [--warmup 3] [--iterations 5]
+ * </pre>
+ * 안쪽 루프는 배열 원소 하나마다 format 4 indexed load/store, body개의 임의 산술 명령어(형식 2/3, immediate 포함),
+ * ADDR/COMPR/JLT로 이루어지고, 바깥 루프는 rounds번 돌며 JSUB/RSUB 한 번과 메모리 카운터를 갱신한다.
+ */
+public class SimulatorBenchmark {
+	/** state 확인 실행의 최대 명령어 수. 번역이 잘못되어 끝나지 않는 경우를 멈춘다 */
+	private static final long STATE_STEPS = 100_000_000L;
+	/** subroutineAtZero의 subroutine 크기. E record는 START 주소이므로 그 다음 주소(FIRST)에서 시작한다 */
+	private static final int SUBROUTINE_SIZE = 6;
+	/** 안쪽 루프 본문 후보. %d는 작은 양수로 채운다 */
+	private static final String[] BODY = {
+			"\tADD\t#%d", "\tSUB\t#%d", "\tAND\tMASK", "\tOR\t#%d", "\tMUL\t#3", "\tCOMP\t#%d",
+			"\tADDR\tS,A", "\tRMO\tA,B", "\tADD\tTOTAL", "\tSTA\tTEMP", "\tLDCH\tTEMP"
+	};
+
+	public static void main(String[] args) throws Exception {
+		int[] sizes = { 16, 256, 4096 };
+		int rounds = 200, body = 6;
+		int threshold = BlockTranslator.DEFAULT_THRESHOLD;
+		long seed = 1;
+		long time = 1000;
+		int warmup = 3, iterations = 5;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--sizes": sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray(); break;
+				case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+				case "--body": body = Integer.parseInt(args[++i]); break;
+				case "--seed": seed = Long.parseLong(args[++i]); break;
+				case "--threshold": threshold = Integer.parseInt(args[++i]); break;
+				case "--time": time = Long.parseLong(args[++i]); break;
+				case "--warmup": warmup = Integer.parseInt(args[++i]); break;
+				case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+				default: break;
+			}
+		}
+
+		Bench bench = new Bench(warmup, iterations, time);
+		InstTable table = new InstTable();
+		Path dir = Files.createTempDirectory("simbench");
+		System.out.printf("%-8s %14s %14s %14s %9s %8s %7s%n",
+				"size", "instr/run", "interp MIPS", "block MIPS", "speedup", "blocks", "state");
+		List<String> names = new ArrayList<>();
+		List<List<String>> programs = new ArrayList<>();
+		// 프로그램별 시작 주소. -1이면 LinkingLoader의 entry
+		List<Integer> entries = new ArrayList<>();
+		for (int size : sizes) {
+			names.add(String.valueOf(size));
+			programs.add(program(size, rounds, body, seed));
+			entries.add(-1);
+		}
+		names.add("subr0");
+		programs.add(subroutineAtZero(rounds));
+		entries.add(SUBROUTINE_SIZE);
+		names.add("selfmod");
+		programs.add(selfModifying(rounds * 100));
+		entries.add(-1);
+		for (int p = 0; p < programs.size(); p++) {
+			LinkingLoader loader = assemble(table, dir, programs.get(p));
+			int entry = entries.get(p) >= 0 ? entries.get(p) : loader.entryAddress();
+			Simulator interp = new Simulator(table);
+			Simulator translated = new Simulator(table);
+			translated.setTranslation(threshold);
+			interp.load(loader);
+			translated.load(loader);
+			interp.reset(entry);
+			translated.reset(entry);
+			Simulator.Halt interpHalt = interp.run(STATE_STEPS);
+			Simulator.Halt translatedHalt = translated.run(STATE_STEPS);
+			long perRun = interp.executed();
+			boolean same = interpHalt == translatedHalt && perRun == translated.executed()
+					&& interp.registers().equals(translated.registers())
+					&& Arrays.equals(interp.memory, translated.memory);
+			if (!same) {
+				BlockTranslator tr = translated.translator();
+				System.out.printf("%-8s %14d %14s %14s %9s %8s %7s  (%s/%s, %d/%d instructions)%n", names.get(p), perRun,
+						"-", "-", "-", tr.translated() + "/" + tr.invalidated(), "DIFF", interpHalt, translatedHalt,
+						perRun, translated.executed());
+				continue;
+			}
+
+			double interpMips = mips(bench, interp, entry, perRun);
+			double blockMips = mips(bench, translated, entry, perRun);
+			BlockTranslator tr = translated.translator();
+			System.out.printf("%-8s %14d %14.1f %14.1f %8.2fx %8s %7s%n", names.get(p), perRun, interpMips, blockMips,
+					blockMips / interpMips, tr.translated() + "/" + tr.invalidated(), same ? "same" : "DIFF");
+		}
+	}
+
+	/** 처음부터 끝까지 실행하는 것을 반복 측정하여 초당 명령어 수(백만)를 구한다. */
+	private static double mips(Bench bench, Simulator sim, int entry, long perRun) throws Exception {
+		Bench.Result r = bench.measure(() -> {
+			sim.reset(entry);
+			if (sim.run(Long.MAX_VALUE) != Simulator.Halt.EXIT) throw new IllegalStateException("program did not exit");
+		});
+		return r.opsPerSec * perRun / 1e6;
+	}
+
+	/** 소스를 어셈블하고 링크한다. */
+	static LinkingLoader assemble(InstTable table, Path dir, List<String> lines) throws Exception {
+		Path input = dir.resolve("input.txt");
+		Files.write(input, lines);
+		Path object = dir.resolve("objectcode.txt");
+		new Assembler(table).assemble(input.toString(), dir.resolve("symtab.txt").toString(),
+				dir.resolve("littab.txt").toString(), object.toString());
+		LinkingLoader loader = new LinkingLoader(0);
+		if (!loader.link(Collections.singletonList(object.toString()))) {
+			throw new IllegalStateException("link failed: " + loader.errors());
+		}
+		return loader;
+	}
+
+	/**
+	 * size개 word 배열을 rounds번 도는 프로그램을 만든다.
+	 * @param body : 원소마다 실행할 임의 산술 명령어 수
+	 */
+	static List<String> program(int size, int rounds, int body, long seed) {
+		Random rnd = new Random(seed);
+		List<String> out = new ArrayList<>();
+		out.add("LOOPS\tSTART\t0");
+		out.add("FIRST\tSTL\tRETADR");
+		out.add("\tLDA\t#0");
+		out.add("\tSTA\tCOUNT");
+		out.add("OUTER\tCLEAR\tX");
+		out.add("\tLDS\t#3");
+		out.add("\t+LDT\t#" + size * 3);
+		out.add("INNER\t+LDA\tARRAY,X");
+		for (int i = 0; i < body; i++) {
+			out.add(String.format(BODY[rnd.nextInt(BODY.length)], 1 + rnd.nextInt(100)));
+		}
+		out.add("\t+STA\tARRAY,X");
+		out.add("\tADDR\tS,X");
+		out.add("\tCOMPR\tX,T");
+		out.add("\tJLT\tINNER");
+		out.add("\tJSUB\tSTEP");
+		out.add("\tLDA\tCOUNT");
+		out.add("\tADD\t#1");
+		out.add("\tSTA\tCOUNT");
+		out.add("\tCOMP\tROUNDS");
+		out.add("\tJLT\tOUTER");
+		out.add("\tJ\t@RETADR");
+		out.add("STEP\tLDA\tTOTAL");
+		out.add("\tADD\tCOUNT");
+		out.add("\tSTA\tTOTAL");
+		out.add("\tRSUB");
+		out.add("RETADR\tRESW\t1");
+		out.add("COUNT\tRESW\t1");
+		out.add("TOTAL\tRESW\t1");
+		out.add("TEMP\tRESW\t1");
+		out.add("MASK\tWORD\t65535");
+		out.add("ROUNDS\tWORD\t" + rounds);
+		for (int i = 0; i < size; i++) {
+			out.add((i == 0 ? "ARRAY" : "") + "\tWORD\t" + rnd.nextInt(1000));
+		}
+		out.add("\tEND\tFIRST");
+		return out;
+	}
+
+	/**
+	 * 주소 0에 있는 subroutine(ADD #1, RSUB)을 calls번 JSUB로 호출하는 프로그램을 만든다. FIRST(SUBROUTINE_SIZE)에서 시작한다.
+	 * RSUB는 target이 0으로 해석되므로 주소 0에서 시작하는 block의 RSUB를 자기 자신으로 가는 분기로
+	 * 번역하면 결과가 달라진다.
+	 */
+	static List<String> subroutineAtZero(int calls) {
+		List<String> out = new ArrayList<>();
+		out.add("SUBR0\tSTART\t0");
+		out.add("INCR\tADD\t#1");
+		out.add("\tRSUB");
+		out.add("FIRST\tSTL\tRETADR");
+		out.add("\tLDA\t#0");
+		out.add("\tLDX\t#0");
+		out.add("LOOP\tJSUB\tINCR");
+		out.add("\tTIX\tCALLS");
+		out.add("\tJLT\tLOOP");
+		out.add("\tJ\t@RETADR");
+		out.add("RETADR\tRESW\t1");
+		out.add("CALLS\tWORD\t" + calls);
+		out.add("\tEND\tFIRST");
+		return out;
+	}
+
+	/**
+	 * 루프를 돌 때마다 PATCH의 immediate operand(증가량 1~4)를 STCH로 고쳐 쓰는 프로그램을 만든다.
+	 * 시작할 때 증가량을 1로 되돌리므로 여러 번 실행해도 결과가 같다.
+	 */
+	static List<String> selfModifying(int limit) {
+		List<String> out = new ArrayList<>();
+		out.add("SELFMOD\tSTART\t0");
+		out.add("FIRST\tSTL\tRETADR");
+		out.add("\tLDA\t#1");
+		out.add("\tSTCH\tPATCH+2");
+		out.add("\tLDA\t#0");
+		out.add("\tSTA\tCOUNT");
+		out.add("LOOP\tLDA\tCOUNT");
+		out.add("PATCH\tADD\t#1");
+		out.add("\tSTA\tCOUNT");
+		out.add("\tAND\t#3");
+		out.add("\tADD\t#1");
+		out.add("\tSTCH\tPATCH+2");
+		out.add("\tLDA\tCOUNT");
+		out.add("\tCOMP\tLIMIT");
+		out.add("\tJLT\tLOOP");
+		out.add("\tJ\t@RETADR");
+		out.add("RETADR\tRESW\t1");
+		out.add("COUNT\tRESW\t1");
+		out.add("LIMIT\tWORD\t" + limit);
+		out.add("\tEND\tFIRST");
+		return out;
+	}
+}
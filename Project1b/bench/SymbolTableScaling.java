@@ -0,0 +1,97 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * SymbolTable 검색 비용의 규모별 비교. <br>
+ * 심볼 수(size)를 바꿔 가며 table을 만들고, 등록된 이름을 임의 순서로 LOOKUPS번 searchSymbol하는 것을 한 작업으로 측정하여
+ * 검색 한 번의 평균 시간을 출력한다. 'vs first' 열은 첫 size 대비 비율이다.
+ * all 열은 모든 이름에서 고르므로 size가 커지면 table과 이름 문자열이 CPU cache를 벗어나 메모리 지연만큼 늘어난다.
+ * hot 열은 임의로 고른 HOT_SET개 이름에서만 골라 cache 효과를 빼므로, 검색 비용이 심볼 수와 무관하면 1 근처에 머문다.
+ * <br>
+ * packed는 8자 이하 이름(long 키만으로 비교), hashed는 9자 이상 이름(해시 키와 문자열 비교),
+ * miss는 등록되지 않은 이름의 검색이다.
+ * <pre>
+ *   java -Xmx2g -cp out:src SymbolTableScaling [--sizes 100,1000,10000,100000,1000000] [--time 1000]
+ *                                             [--warmup 3] [--iterations 5] [--seed 1]
+ * </pre>
+ */
+public class SymbolTableScaling {
+	/** 작업 하나에서 검색하는 횟수 */
+	private static final int LOOKUPS = 1 << 16;
+	/** hot 열에서 검색하는 이름 수 */
+	private static final int HOT_SET = 1024;
+
+	public static void main(String[] args) throws Exception {
+		int[] sizes = { 100, 1_000, 10_000, 100_000, 1_000_000 };
+		long time = 1000;
+		int warmup = 3, iterations = 5;
+		long seed = 1;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--sizes": sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray(); break;
+				case "--time": time = Long.parseLong(args[++i]); break;
+				case "--warmup": warmup = Integer.parseInt(args[++i]); break;
+				case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+				case "--seed": seed = Long.parseLong(args[++i]); break;
+				default: break;
+			}
+		}
+
+		Bench bench = new Bench(warmup, iterations, time);
+		System.out.printf("%-8s %10s %14s %10s %14s %10s%n", "keys", "size", "all ns/op", "vs first", "hot ns/op",
+				"vs first");
+		for (String kind : new String[] { "packed", "hashed", "miss" }) {
+			double firstAll = 0, firstHot = 0;
+			for (int size : sizes) {
+				SymbolTable table = new SymbolTable();
+				for (int i = 0; i < size; i++) {
+					table.putSymbol(name(kind, i), i * 3);
+				}
+				double all = perLookup(bench, table, kind, queries(kind, size, size, new Random(seed)));
+				double hot = perLookup(bench, table, kind, queries(kind, size, Math.min(size, HOT_SET), new Random(seed)));
+				if (firstAll == 0) {
+					firstAll = all;
+					firstHot = hot;
+				}
+				System.out.printf("%-8s %10d %14.2f %9.2fx %14.2f %9.2fx%n", kind, size, all, all / firstAll, hot,
+						hot / firstHot);
+			}
+		}
+	}
+
+	/** queries를 모두 검색하는 것을 반복 측정하여 검색 한 번의 평균 시간(ns)을 구한다. */
+	private static double perLookup(Bench bench, SymbolTable table, String kind, String[] queries) throws Exception {
+		int expectMiss = "miss".equals(kind) ? queries.length : 0;
+		Bench.Result r = bench.measure(() -> {
+			int misses = 0;
+			for (String q : queries) {
+				if (table.searchSymbol(q) < 0) misses++;
+			}
+			if (misses != expectMiss) throw new IllegalStateException(kind + ": " + misses + " misses");
+		});
+		return r.avgNanos / queries.length;
+	}
+
+	/** i번째 심볼 이름. packed/miss는 8자 이하, hashed는 9자 이상이다. */
+	private static String name(String kind, int i) {
+		String id = Integer.toString(i, 36).toUpperCase();
+		return "hashed".equals(kind) ? "LONGLABEL" + id : "L" + id;
+	}
+
+	/**
+	 * 검색할 이름 LOOKUPS개. 등록된 이름 중 임의로 고른 set개에서 고르고, miss이면 등록되지 않은 이름을 만든다.
+	 * 같은 이름은 같은 String 객체를 쓴다.
+	 */
+	private static String[] queries(String kind, int size, int set, Random rnd) {
+		String[] pool = new String[set];
+		for (int i = 0; i < set; i++) {
+			int k = set == size ? i : rnd.nextInt(size);
+			pool[i] = "miss".equals(kind) ? "M" + Integer.toString(k, 36).toUpperCase() : name(kind, k);
+		}
+		String[] q = new String[LOOKUPS];
+		for (int i = 0; i < LOOKUPS; i++) {
+			q[i] = pool[rnd.nextInt(set)];
+		}
+		return q;
+	}
+}
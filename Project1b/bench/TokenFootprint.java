@@ -0,0 +1,53 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+
+/**
+ * Token 저장 방식별 heap 사용량 비교. <br>
+ * ProgramGenerator로 만든 소스에 대해 기본(Token 객체) 모드와 columnar 모드로 각각 pass1을 수행하고,
+ * GC 후 pass1 결과(TokenTable, SymbolTable, LiteralTable)가 차지하는 heap을 출력한다.
+ * 소스 줄 자체는 두 경우 모두 측정 전에 만들어 두므로 결과에 포함되지 않는다.
+ * <pre>
+ *   java -Xmx4g -cp out TokenFootprint [--lines 1000000]
+ * </pre>
+ */
+public class TokenFootprint {
+	public static void main(String[] args) {
+		int lines = 1_000_000;
+		for (int i = 0; i < args.length - 1; i++) {
+			if ("--lines".equals(args[i])) lines = Integer.parseInt(args[++i]);
+		}
+		ProgramGenerator gen = new ProgramGenerator();
+		gen.lines = lines;
+		gen.sections = Math.max(1, lines / 1000);
+		ArrayList<String> source = gen.generate();
+		InstTable table = new InstTable();
+
+		System.out.printf("%-10s %10s %14s %12s%n", "mode", "tokens", "heap(MB)", "B/token");
+		for (boolean columnar : new boolean[] { false, true }) {
+			long before = usedHeap();
+			Assembler asm = new Assembler(table);
+			asm.setColumnar(columnar);
+			asm.useLines(source);
+			asm.pass1();
+			long after = usedHeap();
+			int tokens = 0;
+			for (int sec = 0; sec < asm.sectionCount(); sec++) tokens += asm.getTokenTable(sec).size();
+			System.out.printf("%-10s %10d %14.1f %12.1f%n", columnar ? "columnar" : "objects", tokens,
+					(after - before) / 1e6, (double) (after - before) / tokens);
+			Bench.sink = asm;
+			Bench.sink = null;
+		}
+	}
+
+	/** GC를 여러 번 요청한 뒤의 heap 사용량 */
+	private static long usedHeap() {
+		MemoryMXBean mem = ManagementFactory.getMemoryMXBean();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			used = Math.min(used, mem.getHeapMemoryUsage().getUsed());
+		}
+		return used;
+	}
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 어셈블러 각 단계의 JMH 벤치마크. <br>
+ * 측정하는 작업은 bench/AssemblerBenchmark와 같다. (InstTable 생성, Token 생성, pass1, processLiteralPool,
+ * generateObjectCode/encodeObjectCode, T 레코드 구성, pass2, printObjectCode)
+ * 입력은 예제 프로그램의 RDREC/WRREC section을 size쌍 반복한 것이다.
+ * <br>
+ * 어셈블러 클래스는 default package에 있어 이 package에서 이름으로 쓸 수 없으므로,
+ * trial마다 AssemblerBenchmark.operation을 reflection으로 한 번 불러 작업을 Callable로 받는다.
+ * <pre>
+ *   gradle jmh                                   (처리량, 평균 시간, -prof gc)
+ *   gradle jmh -PjmhArgs="AssemblerPhases.phase -p phase=pass1,pass2 -p size=100 -prof gc"
+ * </pre>
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AssemblerPhases {
+	/** instTable 파일을 읽는 단계가 쓰는 파일 (gradle jmh의 작업 디렉토리 src 기준) */
+	private static final String INST_FILE = "inst_table.txt";
+
+	/** 입력 크기에 따라 달라지는 단계 */
+	@State(Scope.Benchmark)
+	public static class Sized {
+		@Param({ "token", "pass1", "literalPool", "generateObjectCode", "encodeObjectCode",
+				"textRecordFormat", "textRecordBuffer", "textRecordBuilder", "pass2", "printObjectCode" })
+		public String phase;
+
+		@Param({ "1", "10", "100", "1000" })
+		public int size;
+
+		Callable<Object> op;
+
+		@Setup
+		public void setup() throws Exception {
+			op = operation(phase, size);
+		}
+	}
+
+	/** 입력과 무관한 InstTable 생성 단계 */
+	@State(Scope.Benchmark)
+	public static class Table {
+		@Param({ "instTable", "instTableFile" })
+		public String table;
+
+		Callable<Object> op;
+
+		@Setup
+		public void setup() throws Exception {
+			op = operation(table, 0);
+		}
+	}
+
+	@Benchmark
+	public Object phase(Sized s) throws Exception {
+		return s.op.call();
+	}
+
+	@Benchmark
+	public Object instTable(Table t) throws Exception {
+		return t.op.call();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Callable<Object> operation(String phase, int size) throws Exception {
+		Method m = Class.forName("AssemblerBenchmark").getMethod("operation", String.class, int.class, String.class);
+		return (Callable<Object>) m.invoke(null, phase, size, INST_FILE);
+	}
+}
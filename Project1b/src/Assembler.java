@@ -1,6 +1,13 @@
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Assembler :
@@ -22,11 +29,17 @@ import java.util.*;
  *  + 제공하는 프로그램 구조의 개선방법을 제안하고 싶은 분들은 보고서의 결론 뒷부분에 첨부 바랍니다. 내용에 따라 가산점이 있을 수 있습니다.
  */
 public class Assembler {
-	private static final int MAX_TEXT_RECORD_LENGTH = 30;
+	static final int MAX_TEXT_RECORD_LENGTH = 30;
+	/** T 레코드 하나가 가질 수 있는 최대 byte 수 (길이 필드 2자리) */
+	static final int MAX_RECORD_BYTES = 0xFF;
 	/** instruction 명세를 저장한 공간 */
 	private InstTable instTable;
 	/** 읽어들인 input 파일의 내용을 한 줄 씩 저장하는 공간. */
 	private ArrayList<String> lineList;
+	/** lineList 각 줄의 input 파일 줄 번호 (1부터). null이면 줄 순서를 그대로 쓴다 */
+	private int[] lineNumbers;
+	/** 메모리 매핑 모드로 읽어들인 input 파일. 설정되면 lineList 대신 사용한다. */
+	private MappedSource mappedSource;
 	/** 프로그램의 section별로 symbol table을 저장하는 공간*/
 	private ArrayList<SymbolTable> symtabList;
 	/** 프로그램의 section별로 프로그램을 저장하는 공간*/
@@ -42,18 +55,52 @@ public class Assembler {
 	private ArrayList<String> sectionNames;
 	private ArrayList<Integer> sectionLengths;
 
-	// Pass1
-	private int currentSection;
-	private int locctr;
 	private ArrayList<Integer> sectionStartAddr;
 
+	/** pass1/pass2에서 section별 처리를 병렬로 수행할지 여부 */
+	private boolean parallel;
+	/** input 파일을 메모리 매핑하여 읽을지 여부 */
+	private boolean mapped;
+	/** TokenTable을 columnar 모드로 만들지 여부 */
+	private boolean columnar;
+	/** T 레코드 하나의 최대 byte 수 */
+	private int maxTextRecordLength = MAX_TEXT_RECORD_LENGTH;
+	/** 소스를 한 번만 읽는 one-pass 모드 여부 */
+	private boolean onePass;
+	/** 텍스트 deck과 함께 쓸 binary object 파일 이름. null이면 쓰지 않는다. */
+	private String binaryObjectFile;
+	/** 주소 → 소스 줄 debug 파일(LineTableWriter) 이름. null이면 쓰지 않는다. */
+	private String lineTableFile;
+	/** 증분 어셈블용 section 캐시. null이면 사용하지 않는다. */
+	private SectionCache cache;
+	/** pass1에서 만들어진 section 목록 */
+	private ArrayList<SectionContext> sectionList;
+	/** 단계별 소요 시간과 카운터 */
+	private final AssemblerMetrics metrics = new AssemblerMetrics();
+
+	/**
+	 * 클래스 초기화. 빌드 시 생성된 기본 instruction Table을 사용한다.
+	 */
+	public Assembler() {
+		this(new InstTable());
+	}
+
 	/**
 	 * 클래스 초기화. instruction Table을 초기화와 동시에 세팅한다.
 	 *
-	 * @param instFile : instruction 명세를 작성한 파일 이름.
+	 * @param instFile : instruction 명세를 작성한 파일 이름. null이면 기본 테이블을 사용한다.
 	 */
 	public Assembler(String instFile) {
-		instTable = new InstTable("inst_table.txt");
+		this(instFile == null ? new InstTable() : new InstTable(instFile));
+	}
+
+	/**
+	 * 클래스 초기화. 이미 만들어진 instruction Table을 공유한다. (batch 모드에서 여러 Assembler가 함께 사용)
+	 *
+	 * @param instTable : 공유할 instruction Table. 읽기 전용으로만 사용된다.
+	 */
+	public Assembler(InstTable instTable) {
+		this.instTable = instTable;
 		lineList = new ArrayList<>();
 		symtabList = new ArrayList<>();
 		tokenList = new ArrayList<>();
@@ -62,39 +109,280 @@ public class Assembler {
 		sectionStartAddr = new ArrayList<>();
 		sectionNames = new ArrayList<>();
 		sectionLengths = new ArrayList<>();
+		sectionList = new ArrayList<>();
+	}
+
+	/**
+	 * pass1/pass2를 section 단위로 병렬 처리할지 설정한다. 출력 결과는 순차 처리와 같다.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * input 파일을 메모리 매핑하여 읽을지 설정한다.
+	 */
+	public void setMapped(boolean mapped) {
+		this.mapped = mapped;
+	}
+
+	/**
+	 * 토큰을 Token 객체 대신 열 단위 배열에 저장할지 설정한다. 큰 소스에서 메모리를 줄인다.
+	 */
+	public void setColumnar(boolean columnar) {
+		this.columnar = columnar;
+	}
+
+	/**
+	 * T 레코드 하나의 최대 byte 수를 설정한다. 기본값은 30이고 최대 0xFF이다.
+	 */
+	public void setMaxTextRecordLength(int length) {
+		new TextRecordBuilder(length); // 범위 검사
+		this.maxTextRecordLength = length;
+	}
+
+	int getMaxTextRecordLength() {
+		return maxTextRecordLength;
+	}
+
+	/**
+	 * one-pass 모드를 설정한다. 소스를 한 번 읽으면서 object code를 바로 출력하고
+	 * forward reference는 심볼이 정의될 때 출력된 레코드를 고쳐 채운다. (OnePassAssembler)
+	 * parallel/mmap/columnar/cache 설정은 사용하지 않는다.
+	 */
+	public void setOnePass(boolean onePass) {
+		this.onePass = onePass;
+	}
+
+	/**
+	 * object program을 텍스트 deck과 함께 binary object 파일(BinaryObjectWriter)로도 저장하도록 설정한다.
+	 * @param fileName : binary 파일 이름. null이면 저장하지 않는다.
+	 */
+	public void setBinaryObjectFile(String fileName) {
+		this.binaryObjectFile = fileName;
 	}
 
 	/**
-	 * 어셈블러의 메인 루틴
+	 * section별 주소 범위를 소스 줄 번호와 label로 대응시키는 line table 파일(LineTable)을 쓰도록 설정한다.
+	 * @param fileName : line table 파일 이름. null이면 쓰지 않는다.
+	 */
+	public void setLineTableFile(String fileName) {
+		this.lineTableFile = fileName;
+	}
+
+	String getLineTableFile() {
+		return lineTableFile;
+	}
+
+	/**
+	 * 증분 어셈블용 section 캐시를 설정한다. 소스가 바뀌지 않은 section은 캐시에서 복원된다.
+	 */
+	public void setCache(SectionCache cache) {
+		this.cache = cache;
+	}
+
+	/** 단계별 소요 시간과 카운터를 반환한다. */
+	public AssemblerMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * 마지막 어셈블에서 캐시를 쓰지 않고 새로 처리한 section 수를 반환한다.
+	 */
+	public int reassembledSections() {
+		int count = 0;
+		for (SectionContext ctx : sectionList) {
+			if (ctx.cachedRecords == null) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * 어셈블러의 메인 루틴<br>
+	 * 옵션: --mmap, --parallel, --columnar, --one-pass, --text-length &lt;n&gt;, --binary, --line-table,
+	 *       --cache &lt;디렉토리&gt; [--watch], --stats,
+	 *       --batch &lt;디렉토리|목록 파일&gt; [--out &lt;디렉토리&gt;] [--jobs &lt;n&gt;]
+	 * <br>
+	 * --stats이면 단계별 시간과 카운터를 출력하고 output_metrics.json에 저장한다.
+	 * --binary이면 object program을 output_objectcode.obj에도 binary 형식으로 저장한다.
+	 * --line-table이면 주소 → 소스 줄 대응표를 output_linetable.bin에 저장한다.
+	 * --batch에서는 --watch를 제외한 옵션을 파일마다 적용한다. (출력 이름은 BatchAssembler 참고)
 	 */
 	public static void main(String[] args) {
-		Assembler asm = new Assembler("inst_table.txt");
+		boolean mmap = false;
+		boolean parallel = false;
+		String batch = null;
+		String outDir = ".";
+		int jobs = Runtime.getRuntime().availableProcessors();
+		String cacheDir = null;
+		boolean watch = false;
+		boolean stats = false;
+		boolean columnar = false;
+		boolean onePass = false;
+		int textLength = MAX_TEXT_RECORD_LENGTH;
+		boolean binary = false;
+		boolean lineTable = false;
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if ("--mmap".equals(arg)) mmap = true;
+			else if ("--parallel".equals(arg)) parallel = true;
+			else if ("--batch".equals(arg) && i + 1 < args.length) batch = args[++i];
+			else if ("--out".equals(arg) && i + 1 < args.length) outDir = args[++i];
+			else if ("--jobs".equals(arg) && i + 1 < args.length) jobs = Integer.parseInt(args[++i]);
+			else if ("--cache".equals(arg) && i + 1 < args.length) cacheDir = args[++i];
+			else if ("--watch".equals(arg)) watch = true;
+			else if ("--stats".equals(arg)) stats = true;
+			else if ("--columnar".equals(arg)) columnar = true;
+			else if ("--one-pass".equals(arg)) onePass = true;
+			else if ("--text-length".equals(arg) && i + 1 < args.length) textLength = Integer.parseInt(args[++i]);
+			else if ("--binary".equals(arg)) binary = true;
+			else if ("--line-table".equals(arg)) lineTable = true;
+		}
+
+		if (batch != null) {
+			if (watch) {
+				System.err.println("--watch cannot be used with --batch");
+				System.exit(1);
+			}
+			try {
+				BatchAssembler runner = new BatchAssembler(new InstTable(), jobs, mmap, parallel);
+				runner.setColumnar(columnar);
+				runner.setOnePass(onePass);
+				runner.setMaxTextRecordLength(textLength);
+				runner.setBinary(binary);
+				runner.setLineTable(lineTable);
+				runner.setStats(stats);
+				runner.setCache(cacheDir != null ? new SectionCache(cacheDir) : null);
+				if (!runner.run(batch, outDir)) System.exit(1);
+			} catch (IOException e) {
+				System.err.println("I/O Error: " + e.getMessage());
+				System.exit(1);
+			}
+			return;
+		}
+
 		try {
-			asm.loadInputFile("input.txt");
-			asm.pass1();
-			asm.printSymbolTable("output_symtab.txt");
-			asm.printLiteralTable("output_littab.txt");
-			asm.pass2();
-			asm.printObjectCode("output_objectcode.txt");
+			InstTable instTable = new InstTable();
+			SectionCache cache = cacheDir != null ? new SectionCache(cacheDir) : null;
+			do {
+				long start = System.nanoTime();
+				Assembler asm = new Assembler(instTable);
+				asm.setParallel(parallel);
+				asm.setMapped(mmap);
+				asm.setColumnar(columnar);
+				asm.setCache(cache);
+				asm.setOnePass(onePass);
+				asm.setMaxTextRecordLength(textLength);
+				asm.setBinaryObjectFile(binary ? "output_objectcode.obj" : null);
+				asm.setLineTableFile(lineTable ? "output_linetable.bin" : null);
+				asm.assemble("input.txt", "output_symtab.txt", "output_littab.txt", "output_objectcode.txt");
+				if (cache != null) {
+					System.out.printf("%d sections, %d reassembled, %.2f ms%n", asm.sectionList.size(),
+							asm.reassembledSections(), (System.nanoTime() - start) / 1e6);
+				}
+				if (stats) {
+					asm.getMetrics().printSummary(System.out);
+					asm.getMetrics().writeJson("output_metrics.json");
+				}
+			} while (watch && cache != null && waitForChange(Paths.get("input.txt")));
 		} catch (IOException e) {
 			System.err.println("I/O Error: " + e.getMessage());
 		}
 	}
 
+	/**
+	 * input 파일이 바뀔 때까지 기다린다. (--watch 모드에서 캐시를 유지한 채 다시 어셈블하기 위해 사용)
+	 * @return 파일이 바뀌면 true, 대기가 중단되면 false
+	 */
+	private static boolean waitForChange(Path input) throws IOException {
+		Path dir = input.toAbsolutePath().getParent();
+		Path name = input.getFileName();
+		try (WatchService ws = dir.getFileSystem().newWatchService()) {
+			dir.register(ws, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+			while (true) {
+				WatchKey key = ws.take();
+				boolean changed = false;
+				for (WatchEvent<?> ev : key.pollEvents()) {
+					if (name.equals(ev.context())) changed = true;
+				}
+				key.reset();
+				if (changed) {
+					// 저장이 끝날 때까지 잠시 기다린 뒤 쌓인 이벤트를 비운다
+					Thread.sleep(50);
+					WatchKey more;
+					while ((more = ws.poll()) != null) {
+						more.pollEvents();
+						more.reset();
+					}
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * input 파일 하나를 어셈블하여 세 가지 출력 파일을 만든다.<br>
+	 * 모든 상태가 이 인스턴스에 있으므로 서로 다른 Assembler 인스턴스는 동시에 실행할 수 있다.
+	 */
+	void assemble(String inputFile, String symtabFile, String littabFile, String objectFile) throws IOException {
+		if (onePass) {
+			new OnePassAssembler(this, instTable).assemble(inputFile, symtabFile, littabFile, objectFile);
+			// one-pass 출력은 파일을 고쳐 쓰며 만들어지므로 완성된 deck을 변환한다
+			if (binaryObjectFile != null) ObjectConverter.toBinary(objectFile, binaryObjectFile);
+			return;
+		}
+		AssemblerMetrics.Span load = metrics.begin(AssemblerMetrics.Phase.LOAD, -1);
+		if (mapped) loadInputFileMapped(inputFile);
+		else loadInputFile(inputFile);
+		metrics.end(load);
+		pass1();
+		printSymbolTable(symtabFile);
+		printLiteralTable(littabFile);
+		pass2(objectFile);
+		if (lineTableFile != null) printLineTable(lineTableFile);
+	}
+
 
 	/**
 	 * inputFile을 읽어들여서 lineList에 저장한다.<br>
 	 * @param inputFile : input 파일 이름.
 	 */
-	private void loadInputFile(String inputFile) throws IOException {
+	void loadInputFile(String inputFile) throws IOException {
 		BufferedReader br = new BufferedReader(new FileReader(inputFile));
 		String line;
+		int[] numbers = new int[1024];
+		int lineNumber = 0;
 		while ((line = br.readLine()) != null) {
+			lineNumber++;
 			line = line.trim();
 			if (line.isEmpty() || line.startsWith(".")) continue;
+			if (lineList.size() == numbers.length) numbers = Arrays.copyOf(numbers, numbers.length * 2);
+			numbers[lineList.size()] = lineNumber;
 			lineList.add(line);
 		}
 		br.close();
+		lineNumbers = numbers;
+	}
+
+	/**
+	 * 이미 정리된(trim, 빈 줄/주석 줄 제거) 소스 줄 목록을 그대로 사용한다. (벤치마크 등에서 파일 I/O 없이 사용)
+	 * @param lines : 읽기 전용으로 공유되는 줄 목록
+	 */
+	void useLines(ArrayList<String> lines) {
+		lineList = lines;
+		lineNumbers = null;
+	}
+
+	/**
+	 * inputFile을 메모리 매핑하여 읽어들인다. 각 줄은 lineList에 복사되지 않고
+	 * 매핑된 버퍼 위의 구간으로 pass1에 전달된다.<br>
+	 * @param inputFile : input 파일 이름.
+	 */
+	private void loadInputFileMapped(String inputFile) throws IOException {
+		mappedSource = new MappedSource(inputFile);
 	}
 
 	/**
@@ -102,78 +390,159 @@ public class Assembler {
 	 *   1) 프로그램 소스를 스캔하여 토큰단위로 분리한 뒤 토큰테이블 생성<br>
 	 *   2) label을 symbolTable에 정리<br>
 	 *   <br><br>
-	 *    주의사항 : SymbolTable과 TokenTable은 프로그램의 section별로 하나씩 선언되어야 한다.
+	 *    주의사항 : SymbolTable과 TokenTable은 프로그램의 section별로 하나씩 선언되어야 한다.<br>
+	 *    소스를 먼저 CSECT 위치에서 section 구간으로 나눈 뒤 구간별로 pass1Section을 수행한다.
+	 *    parallel 모드이면 각 구간을 동시에 처리하고, 결과는 section 순서대로 합친다.
+	 */
+	void pass1() {
+		AssemblerMetrics.Span span = metrics.begin(AssemblerMetrics.Phase.PASS1, -1);
+		List<int[]> ranges = splitSections();
+		SectionContext[] sections = new SectionContext[ranges.size()];
+		if (parallel) {
+			IntStream.range(0, sections.length).parallel()
+					.forEach(sec -> sections[sec] = loadOrPass1Section(sec, ranges.get(sec)[0], ranges.get(sec)[1]));
+		} else {
+			for (int sec = 0; sec < sections.length; sec++) {
+				sections[sec] = loadOrPass1Section(sec, ranges.get(sec)[0], ranges.get(sec)[1]);
+			}
+		}
+
+		for (SectionContext ctx : sections) {
+			sectionList.add(ctx);
+			symtabList.add(ctx.symbols);
+			tokenList.add(ctx.tokens);
+			littabList.add(ctx.literals);
+			sectionNames.add(ctx.name);
+			sectionLengths.add(ctx.length);
+			sectionStartAddr.add(ctx.startAddr);
+		}
+		metrics.end(span);
+	}
+
+	/**
+	 * 캐시가 설정되어 있으면 section 구간의 해시로 캐시를 찾고, 없으면 pass1Section을 수행한다.
+	 */
+	private SectionContext loadOrPass1Section(int sec, int from, int to) {
+		AssemblerMetrics.Span span = metrics.begin(AssemblerMetrics.Phase.PASS1, sec);
+		SectionContext ctx = null;
+		if (cache == null) {
+			ctx = pass1Section(sec, from, to);
+		} else {
+			List<CharSequence> lines = lines(from, to);
+			String hash = SectionCache.hash(sec == 0, maxTextRecordLength, instTable, lines);
+			ctx = cache.load(hash, sec, instTable, columnar, lines);
+			if (ctx == null) {
+				ctx = pass1Section(sec, from, to);
+				ctx.hash = hash;
+			}
+		}
+		ctx.firstLine = from;
+		metrics.end(span);
+		return ctx;
+	}
+
+	/** 소스의 [from, to) 줄 목록 (복사 없는 view) */
+	private List<CharSequence> lines(int from, int to) {
+		return new AbstractList<CharSequence>() {
+			@Override
+			public CharSequence get(int index) {
+				return line(from + index);
+			}
+
+			@Override
+			public int size() {
+				return to - from;
+			}
+		};
+	}
+
+	/** 소스의 줄 수 */
+	private int lineCount() {
+		return mappedSource != null ? mappedSource.size() : lineList.size();
+	}
+
+	/** 소스의 lineIdx번째 줄의 input 파일 줄 번호 (1부터) */
+	int sourceLineNumber(int lineIdx) {
+		if (mappedSource != null) return mappedSource.lineNumber(lineIdx);
+		return lineNumbers != null ? lineNumbers[lineIdx] : lineIdx + 1;
+	}
+
+	/** 소스의 lineIdx번째 줄 */
+	private CharSequence line(int lineIdx) {
+		return mappedSource != null ? mappedSource.line(lineIdx) : lineList.get(lineIdx);
+	}
+
+	/**
+	 * 소스를 section 구간으로 나눈다. 각 CSECT 줄에서 새 구간이 시작되고, END 줄 이후는 버린다.
+	 * @return [시작 줄, 끝 줄) 구간 목록. 빈 구간은 포함하지 않는다.
+	 */
+	private List<int[]> splitSections() {
+		List<int[]> ranges = new ArrayList<>();
+		SourceLexer lexer = new SourceLexer(instTable);
+		int count = lineCount();
+		int from = 0;
+		for (int lineIdx = 0; lineIdx < count; lineIdx++) {
+			lexer.scan(line(lineIdx));
+			if ("CSECT".equals(lexer.directive) && lineIdx > from) {
+				ranges.add(new int[] { from, lineIdx });
+				from = lineIdx;
+			} else if ("END".equals(lexer.directive)) {
+				count = lineIdx + 1;
+				break;
+			}
+		}
+		if (count > from) ranges.add(new int[] { from, count });
+		return ranges;
+	}
+
+	/**
+	 * section 구간 하나에 대해 pass1을 수행한다.<br>
+	 * locctr 등 section 내부 상태는 모두 SectionContext에 있으므로 여러 구간을 동시에 처리해도 안전하다.
+	 * @param sec : section 번호
+	 * @param from : 구간의 첫 줄
+	 * @param to : 구간의 마지막 줄 다음
+	 * @return 처리된 section
 	 */
-	private void pass1() {
-		// 초기화
-		currentSection = -1;
-		ArrayList<Token> deferredEquList = new ArrayList<>();
-		boolean inWRREC = false;    // WRREC 디버깅용
+	private SectionContext pass1Section(int sec, int from, int to) {
+		SectionContext ctx = new SectionContext(sec, instTable, columnar);
+		TokenTable tt = ctx.tokens;
+		SymbolTable st = ctx.symbols;
+		LiteralTable lt = ctx.literals;
+		List<Token> equTokens = new ArrayList<>();
+		List<Integer> equLines = new ArrayList<>();
+		// 나눗셈이 있는 WORD와 그 줄 번호 (심볼이 모두 정해진 뒤 0으로 나누는지 확인한다)
+		List<Token> divWords = new ArrayList<>();
+		List<Integer> divLines = new ArrayList<>();
 
 		// 각 라인 토큰화
-		for (String line : lineList) {
-			// 첫 섹션이 없으면 기본 섹션 설정
-			if (currentSection < 0) {
-				symtabList.add(new SymbolTable());
-				tokenList.add(new TokenTable(symtabList.get(0), instTable));
-				littabList.add(new LiteralTable());
-				currentSection = 0;
-				locctr = 0;
-				sectionStartAddr.add(locctr);
-				sectionNames.add("NONAME");
-				sectionLengths.add(0);
-			}
-
-			TokenTable tt = tokenList.get(currentSection);
-			SymbolTable st = symtabList.get(currentSection);
-			LiteralTable lt = littabList.get(currentSection);
-
-			tt.putToken(line);
-			Token tok = tt.getToken(tt.size() - 1);
-			tok.location = locctr; // 토큰 위치 기록
+		for (int lineIdx = from; lineIdx < to; lineIdx++) {
+			tt.putToken(line(lineIdx));
+			int tokIdx = tt.size() - 1;
+			tt.setLocation(tokIdx, ctx.locctr); // 토큰 위치 기록
+			Token tok = tt.getToken(tokIdx);
 
 			// START
 			if ("START".equals(tok.operator)) {
-				String secName = tok.label.isEmpty() ? "NONAME" : tok.label;
-				// 첫 번째 섹션 이름을 변경
-				sectionNames.set(0, secName);
+				ctx.name = tok.label.isEmpty() ? "NONAME" : tok.label;
 				// locctr을 피연산자로 설정
-				locctr = (tok.operand.length > 0 && !tok.operand[0].isEmpty())
+				ctx.locctr = (tok.operand.length > 0 && !tok.operand[0].isEmpty())
 						? Integer.parseInt(tok.operand[0], 16)
 						: 0;
-				// 시작 주소와 길이 초기화
-				sectionStartAddr.set(0, locctr);
-				sectionLengths.set(0, 0);
+				// 시작 주소 초기화
+				ctx.startAddr = ctx.locctr;
 				// 레이블이 있으면 심볼 테이블에 등록
 				if (!tok.label.isEmpty()) {
-					st.putSymbol(tok.label, locctr);
+					st.putSymbol(tok.label, ctx.locctr);
 				}
 				continue;
 			}
 
-			// 새 섹션 시작: CSECT
+			// 새 섹션 시작: CSECT (구간의 첫 줄)
 			else if ("CSECT".equals(tok.operator)) {
-				// WRREC 디버깅용
-				String name = tok.label != null && !tok.label.isEmpty() ? tok.label : "NONAME";
-				inWRREC = name.equals("WRREC");
-
-				// 이전 섹션 리터럴 flush 및 길이 저장
-				int prevLen = locctr - sectionStartAddr.get(currentSection);
-				sectionLengths.set(currentSection, prevLen);
-
-				// 새 섹션 설정
-				currentSection++;
-				String secName = tok.label != null && !tok.label.isEmpty() ? tok.label : "NONAME";
-				sectionNames.add(secName);
-				sectionLengths.add(0);
-				sectionStartAddr.add(0);
-
-				symtabList.add(new SymbolTable());
-				tokenList.add(new TokenTable(symtabList.get(currentSection), instTable));
-				littabList.add(new LiteralTable());
-				locctr = 0;
+				ctx.name = tok.label != null && !tok.label.isEmpty() ? tok.label : "NONAME";
+				ctx.locctr = 0;
 				if (tok.label != null && !tok.label.isEmpty()) {
-					symtabList.get(currentSection).putSymbol(tok.label, locctr);
+					st.putSymbol(tok.label, ctx.locctr);
 				}
 				continue;
 			}
@@ -184,199 +553,274 @@ public class Assembler {
 			}
 
 			String mnemonic = tok.operator.startsWith("+") ? tok.operator.substring(1) : tok.operator;
+			int line = sourceLineNumber(lineIdx);
+			checkExpression(tok, mnemonic, line);
+			if ("WORD".equals(mnemonic) && tok.expression() != null && tok.expression().hasDivision()) {
+				divWords.add(tok);
+				divLines.add(line);
+			}
 
 			// 레이블 등록 (EQU 제외)
 			if (!"EQU".equals(mnemonic) && tok.label != null && !tok.label.isEmpty()) {
-				st.putSymbol(tok.label, locctr);
+				st.putSymbol(tok.label, ctx.locctr);
 			}
 
-			// EQU 처리 분리
+			// EQU는 구간 처리 후 계산
 			if ("EQU".equals(mnemonic)) {
-				deferredEquList.add(tok);
+				equTokens.add(tok);
+				equLines.add(line);
 				continue;
 			}
 
 			// LOCCTR 증가
-			switch (mnemonic) {
-				case "WORD":
-					locctr += 3;
-					break;
-				case "RESW":
-					locctr += 3 * Integer.parseInt(tok.operand[0]);
-					break;
-				case "RESB":
-					locctr += Integer.parseInt(tok.operand[0]);
-					break;
-				case "BYTE":
-					String opnd = tok.operand[0];
-					if (opnd.startsWith("C'") && opnd.endsWith("'")) {
-						locctr += opnd.substring(2, opnd.length() - 1).length();
-					} else if (opnd.startsWith("X'") && opnd.endsWith("'")) {
-						String hex = opnd.substring(2, opnd.length() - 1);
-						locctr += (hex.length() + 1) / 2;
-					}
-					break;
-				case "LTORG":
-					processLiteralPool(currentSection);
-					continue;
-				case "END":
-					processLiteralPool(currentSection);
-					// 마지막 섹션 리터럴 flush 및 길이 저장
-					int finalLen = locctr - sectionStartAddr.get(currentSection);
-					sectionLengths.set(currentSection, finalLen);
-					break;
-				default:
-					int fmt = instTable.getInstructionLength(tok.operator);
-					if (fmt > 0) {
-						locctr += fmt;
-					}
-			}
-
-			if ("END".equals(mnemonic)) {
-				break;
+			if ("LTORG".equals(mnemonic) || "END".equals(mnemonic)) {
+				processLiteralPool(ctx);
+			} else {
+				ctx.locctr += tokenSize(tok, mnemonic);
 			}
+			tt.setByteSize(tokIdx, ctx.locctr - tok.location);
 		}
 
+		// section 길이 저장 (다음 CSECT, END 또는 소스 끝까지)
+		ctx.length = ctx.locctr - ctx.startAddr;
+
 		// EQU 후처리
-		for (int sec = 0; sec < tokenList.size(); sec++) {
-			SymbolTable st = symtabList.get(sec);
-			for (Token eqTok : tokenList.get(sec).getTokenList()) {
-				if (!"EQU".equals(eqTok.operator)) continue;
-
-				String label = eqTok.label;
-				String expr = eqTok.operand[0].trim();
-				int value;
-				if ("*".equals(expr)) {
-					value = eqTok.location;
-				} else if (expr.contains("-")) {
-					String[] terms = expr.split("-");
-					if (terms.length == 2) {
-						int a = st.getSymbol(terms[0].trim());
-						int b = st.getSymbol(terms[1].trim());
-						value = a - b;
-					} else {
-						continue;
-					}
-				} else {
-					try {
-						value = Integer.parseInt(expr);
-					} catch (NumberFormatException e) {
-						value = st.getSymbol(expr);
-					}
-				}
-				st.putSymbol(label, value);
-			}
+		AssemblerMetrics.Span equ = metrics.begin(AssemblerMetrics.Phase.EQU, sec);
+		resolveEquates(equTokens, equLines, st);
+		metrics.end(equ);
+
+		// pass2와 같은 값으로 WORD를 계산하여 0으로 나누는 식을 보고한다
+		for (int i = 0; i < divWords.size(); i++) {
+			Token t = divWords.get(i);
+			t.expression().evaluate(st, t.location - ctx.startAddr, reportAt(divLines.get(i)));
 		}
+		return ctx;
 	}
 
+	/**
+	 * LTORG/END/EQU를 제외한 토큰 하나가 차지하는 byte 수 (LOCCTR 증가량)
+	 * @param mnemonic : 앞의 '+'를 뗀 operator
+	 */
+	int tokenSize(Token tok, String mnemonic) {
+		switch (mnemonic) {
+			case "WORD":
+				return 3;
+			case "RESW":
+				return 3 * Integer.parseInt(tok.operand[0]);
+			case "RESB":
+				return Integer.parseInt(tok.operand[0]);
+			case "BYTE":
+				String opnd = tok.operand[0];
+				if (opnd.startsWith("C'") && opnd.endsWith("'")) {
+					return opnd.substring(2, opnd.length() - 1).length();
+				} else if (opnd.startsWith("X'") && opnd.endsWith("'")) {
+					String hex = opnd.substring(2, opnd.length() - 1);
+					return (hex.length() + 1) / 2;
+				}
+				return 0;
+			default:
+				int fmt = instTable.getInstructionLength(tok.operator);
+				return fmt > 0 ? fmt : 0;
+		}
+	}
 
+	/**
+	 * EQU/WORD의 operand가 식으로 파싱되지 않으면 줄 번호와 함께 오류를 출력한다.
+	 * 그런 식은 어셈블을 멈추지 않고 0으로 계산한다. (Expression.ZERO)
+	 * @param line : input 파일의 줄 번호
+	 */
+	static void checkExpression(Token tok, String mnemonic, int line) {
+		if (!"EQU".equals(mnemonic) && !"WORD".equals(mnemonic)) return;
+		if (tok.expression() != null) return;
+		try {
+			Expression.parse(tok.operand[0]);
+		} catch (IllegalArgumentException e) {
+			reportAt(line).accept(e.getMessage());
+		}
+	}
 
+	/**
+	 * 식 평가 중의 오류를 줄 번호와 함께 출력하는 함수 (Expression.evaluate의 errors)
+	 * @param line : input 파일의 줄 번호
+	 */
+	static Consumer<String> reportAt(int line) {
+		return message -> System.err.println("Line " + line + ": " + message);
+	}
 
 	/**
-	 * literal pool 처리: 아직 주소가 할당되지 않은(-1) 리터럴에 대해
-	 * 현재 locctr 을 주소로 설정하고, 크기만큼 locctr 을 증가시킴
+	 * section의 EQU들을 의존 순서(위상 정렬)대로 계산하여 symbol table에 등록한다.<br>
+	 * 각 EQU의 식은 한 번만 파싱되고, 식이 참조하는 다른 EQU가 먼저 계산되므로
+	 * 뒤에서 정의되는 EQU를 참조하는 연쇄도 한 번의 선형 탐색으로 풀린다.
+	 * symbol table에는 EQU가 나온 순서대로 등록한다. (이미 label로 있는 이름은 등록되지 않는다)
+	 * 순환 참조가 있으면 오류를 출력하고 순환을 이루는 참조를 0으로 계산한다.
+	 * 0으로 나누는 식은 줄 번호와 함께 오류를 출력하고 그 나눗셈을 0으로 계산한다.
+	 * @param equLines : 각 EQU의 input 파일 줄 번호
 	 */
+	private void resolveEquates(List<Token> equTokens, List<Integer> equLines, SymbolTable st) {
+		int n = equTokens.size();
+		if (n == 0) return;
+		Expression[] exprs = new Expression[n];
+		HashMap<String, Integer> equIndex = new HashMap<>();
+		for (int i = 0; i < n; i++) {
+			Token t = equTokens.get(i);
+			exprs[i] = t.expression();
+			if (exprs[i] == null) exprs[i] = Expression.ZERO; // pass1에서 오류로 보고됨
+			// 같은 이름의 label이 있으면 EQU는 무시된다 (putSymbol의 중복 방지와 같은 규칙)
+			if (st.searchSymbol(t.label) < 0) equIndex.putIfAbsent(t.label, i);
+		}
+
+		int[] values = new int[n];
+		byte[] state = new byte[n];	// 0: 미방문, 1: 계산 중, 2: 완료
+		int[] stack = new int[n];
+		int[] next = new int[n];	// 다음에 확인할 심볼 참조 번호
+		Expression.Resolver resolver = symbol -> {
+			Integer j = equIndex.get(symbol);
+			if (j != null) return state[j] == 2 ? values[j] : Expression.UNDEFINED;
+			int v = st.searchSymbol(symbol);
+			return v < 0 ? Expression.UNDEFINED : v;
+		};
+
+		for (int root = 0; root < n; root++) {
+			if (state[root] != 0) continue;
+			int sp = 0;
+			stack[sp++] = root;
+			state[root] = 1;
+			while (sp > 0) {
+				int i = stack[sp - 1];
+				Expression e = exprs[i];
+				if (next[i] < e.symbolCount()) {
+					Integer j = equIndex.get(e.symbol(next[i]++));
+					if (j == null || state[j] == 2) continue;
+					if (state[j] == 1) {
+						System.err.println("Circular EQU definition: " + equTokens.get(i).label + " -> " + equTokens.get(j).label);
+						continue;
+					}
+					state[j] = 1;
+					stack[sp++] = j;
+					continue;
+				}
+				values[i] = e.evaluate(resolver, equTokens.get(i).location, reportAt(equLines.get(i)));
+				state[i] = 2;
+				sp--;
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			st.putSymbol(equTokens.get(i).label, values[i]);
+		}
+	}
+
 	/**
-	 * literal pool 처리: 아직 주소가 -1인 리터럴에 대해
+	 * literal pool 처리: 아직 pool에 배치되지 않은 리터럴에 대해
 	 *   1) 현재 locctr을 주소로 설정
 	 *   2) 리터럴 크기만큼 locctr을 증가
+	 *   3) 배치된 리터럴 구간을 pool로 기록 (pass2에서 그대로 T 레코드로 출력)
 	 */
-	private void processLiteralPool(int sec) {
-		LiteralTable lt = littabList.get(sec);
-		for (int i = 0; i < lt.size(); i++) {
-			if (lt.getLocation(i) == -1) {
-				lt.setLocation(i, locctr);
-
-				String lit = lt.getLiteral(i);
-				int size = 0;
-
-				if (lit.startsWith("=C'") && lit.endsWith("'")) {
-					size = lit.substring(3, lit.length() - 1).length();
-				} else if (lit.startsWith("=X'") && lit.endsWith("'")) {
-					int hexLen = lit.substring(3, lit.length() - 1).length();
-					size = (hexLen + 1) / 2;
-				}
-
-				locctr += size;
+	void processLiteralPool(SectionContext ctx) {
+		long begin = System.nanoTime();
+		LiteralTable lt = ctx.literals;
+		int start = lt.pendingStart();
+		for (int i = start; i < lt.size(); i++) {
+			lt.setLocation(i, ctx.locctr);
+
+			String lit = lt.getLiteral(i);
+			int size = 0;
+
+			if (lit.startsWith("=C'") && lit.endsWith("'")) {
+				size = lit.substring(3, lit.length() - 1).length();
+			} else if (lit.startsWith("=X'") && lit.endsWith("'")) {
+				int hexLen = lit.substring(3, lit.length() - 1).length();
+				size = (hexLen + 1) / 2;
 			}
+
+			ctx.locctr += size;
 		}
+		lt.addPool(start, lt.size());
+		metrics.addTime(AssemblerMetrics.Phase.LITERAL_POOL, System.nanoTime() - begin);
 	}
 
-	private void printSymbolTable(String fileName) throws IOException {
-		BufferedWriter bw = new BufferedWriter(new FileWriter(fileName));
-		for (int i=0; i<symtabList.size(); i++){
-			bw.write(symtabList.get(i).toString()); bw.newLine();
+	/**
+	 * section별 symbol table을 출력한다. 테이블 전체를 문자열로 만들지 않고 한 줄씩 쓴다.
+	 */
+	void printSymbolTable(String fileName) throws IOException {
+		AssemblerMetrics.Span span = metrics.begin(AssemblerMetrics.Phase.PRINT_SYMTAB, -1);
+		try (RecordWriter out = new RecordWriter(fileName)) {
+			for (int i=0; i<symtabList.size(); i++){
+				symtabList.get(i).write(out); out.newLine();
+			}
+			metrics.add(AssemblerMetrics.Counter.BYTES_WRITTEN, out.bytesWritten());
 		}
-		bw.close();
+		metrics.end(span);
 	}
 
-	private void printLiteralTable(String fileName) throws IOException {
-		BufferedWriter bw = new BufferedWriter(new FileWriter(fileName));
-		for (int i = 0; i < littabList.size(); i++) {
-			bw.write(littabList.get(i).toString());
+	/**
+	 * section별 literal table을 출력한다. 테이블 전체를 문자열로 만들지 않고 한 줄씩 쓴다.
+	 */
+	void printLiteralTable(String fileName) throws IOException {
+		AssemblerMetrics.Span span = metrics.begin(AssemblerMetrics.Phase.PRINT_LITTAB, -1);
+		try (RecordWriter out = new RecordWriter(fileName)) {
+			for (int i = 0; i < littabList.size(); i++) {
+				littabList.get(i).write(out);
+			}
+			metrics.add(AssemblerMetrics.Counter.BYTES_WRITTEN, out.bytesWritten());
 		}
-		bw.close();
+		metrics.end(span);
+	}
+
+	String generateObjectCode(Token t, int currentOffset, SymbolTable st, LiteralTable lt, int baseReg) {
+		ByteBuffer code = ByteBuffer.allocate(MAX_RECORD_BYTES);
+		int len = encodeObjectCode(t, currentOffset, st, lt, baseReg, code);
+		return Hex.toHex(code.array(), 0, len);
 	}
 
-	private String generateObjectCode(Token t, int currentOffset, SymbolTable st, LiteralTable lt, int baseReg) {
+	/**
+	 * 토큰의 object code를 byte 단위로 out의 현재 위치부터 기록한다.<br>
+	 * 16진수 문자열 변환은 레코드를 출력할 때 한 번만 수행한다.
+	 * @return 기록한 byte 수. object code가 없는 토큰이면 0
+	 */
+	int encodeObjectCode(Token t, int currentOffset, SymbolTable st, LiteralTable lt, int baseReg, ByteBuffer out) {
+		int startPos = out.position();
 		String mnemonic = t.operator.startsWith("+") ? t.operator.substring(1) : t.operator;
 
 		// WORD 상수
 		if ("WORD".equalsIgnoreCase(mnemonic)) {
-			String op = t.operand[0].trim();
-			int value;
-			if (op.contains("-")) {
-				String[] parts = op.split("-");
-				int a = st.getSymbol(parts[0].trim());
-				int b = st.getSymbol(parts[1].trim());
-				value = a - b;
-			} else {
-				value = Integer.parseInt(op);
-			}
-			// 3바이트(6hex)로 반환
-			return String.format("%06X", value & 0xFFFFFF);
+			// 외부 심볼은 0으로 계산되고 M 레코드로 보정된다
+			Expression expr = t.expression();
+			if (expr == null) expr = Expression.ZERO; // pass1에서 오류로 보고됨
+			int value = expr.evaluate(st, currentOffset);
+			// 3바이트
+			putWord(out, value);
+			return 3;
 		}
 
 		// BYTE 상수
 		if ("BYTE".equalsIgnoreCase(mnemonic)) {
 			String op = t.operand[0];
-			byte[] data;
 			if (op.startsWith("C'") && op.endsWith("'")) {
-				data = op.substring(2, op.length()-1)
-						.getBytes(StandardCharsets.US_ASCII);
-			} else if (op.startsWith("X'") && op.endsWith("'")) {
-				String hex = op.substring(2, op.length()-1);
-				data = new byte[(hex.length()+1)/2];
-				for (int i = 0; i < data.length; i++) {
-					int start = 2*i;
-					int end   = Math.min(start+2, hex.length());
-					data[i]  = (byte)Integer.parseInt(hex.substring(start,end),16);
+				for (int k = 2; k < op.length() - 1; k++) {
+					char c = op.charAt(k);
+					out.put((byte) (c < 0x80 ? c : '?'));
 				}
+			} else if (op.startsWith("X'") && op.endsWith("'")) {
+				putHexDigits(out, op, 2, op.length() - 1);
 			} else {
 				// =12 같은 10진수 리터럴은 3바이트 WORD 크기
-				int val = Integer.parseInt(op);
-				data = new byte[] {
-						(byte)((val >> 16)&0xFF),
-						(byte)((val >>  8)&0xFF),
-						(byte)( val        &0xFF)
-				};
+				putWord(out, Integer.parseInt(op));
 			}
-			// 바이트 → HEX 문자열
-			StringBuilder sb = new StringBuilder();
-			for (byte b : data) sb.append(String.format("%02X", b & 0xFF));
-			return sb.toString();
+			return out.position() - startPos;
 		}
 
 		// format 1/2/3/4
 		Instruction inst = instTable.getInst(mnemonic);
-		if (inst == null) return "";
+		if (inst == null) return 0;
 
 		int format = inst.format;
 		if (t.operator.startsWith("+")) format = 4;
 
 		// Format 1
 		if (format == 1) {
-			return String.format("%02X", inst.opcode);
+			out.put((byte) inst.opcode);
+			return 1;
 		}
 
 		// Format 2
@@ -385,7 +829,15 @@ public class Assembler {
 			int r2 = (t.operand.length > 1 && !t.operand[1].isEmpty())
 					? getRegisterNumber(t.operand[1])
 					: 0;
-			return String.format("%02X%X%X", inst.opcode, r1, r2);
+			// SHIFTL/SHIFTR r1,n은 n-1을, SVC n은 n을 기록한다
+			if ("SHIFTL".equals(inst.mnemonic) || "SHIFTR".equals(inst.mnemonic)) {
+				r2 = t.operand.length > 1 ? (smallNumber(t.operand[1]) - 1) & 0xF : 0;
+			} else if ("SVC".equals(inst.mnemonic)) {
+				r1 = smallNumber(t.operand[0]) & 0xF;
+			}
+			out.put((byte) inst.opcode);
+			out.put((byte) ((r1 << 4) | r2));
+			return 2;
 		}
 
 		// Format 3/4
@@ -397,18 +849,13 @@ public class Assembler {
 		// RSUB은 operand 0으로 비워둠.
 		if (format == 3 && "RSUB".equalsIgnoreCase(mnemonic)) {
 			int opcode3 = (inst.opcode & 0xFC) | 0b11;
-			return String.format("%02X%01X%03X", opcode3, 0, 0);
+			putFormat34(out, opcode3, 0, 0, 3);
+			return 3;
 		}
 
 		// 리터럴 처리
 		if (op.startsWith("=")) {
-			int litIndex = -1;
-			for (int idx = 0; idx < lt.size(); idx++) {
-				if (lt.getLiteral(idx).equals(op)) {
-					litIndex = idx;
-					break;
-				}
-			}
+			int litIndex = lt.indexOf(op);
 			if (litIndex >= 0) {
 				targetAddr = lt.getLocation(litIndex);
 			}
@@ -423,28 +870,23 @@ public class Assembler {
 		// immediate (#) or indirect (@)
 		else if (op.startsWith("#")) {
 			n = 0; i = 1;
-			String val = op.substring(1);
-			try {
+			Expression expr = t.expression();
+			if (expr != null && expr.isConstant()) {
 				// 즉시 상수만 special case
-				int constVal = Integer.parseInt(val);
-				b = 0; p = 0; x = 0; e = 0;
+				int constVal = expr.evaluate(st, currentOffset);
 				// opcode 상위 비트, n/i 비트
 				int op6 = (inst.opcode & 0xFC) | (n<<1) | i;
-				int nixbpe = 0;
-				// 즉시 상수값 채워서 리턴
-				return String.format("%02X%01X%03X", op6, nixbpe, constVal & 0xFFF);
-			} catch (NumberFormatException ex) {
-				targetAddr = st.searchSymbol(val);
-				if (targetAddr < 0) targetAddr = 0;
+				// 즉시 상수값 채워서 리턴 (format 4는 e 비트와 20비트 상수)
+				putFormat34(out, op6, e, constVal, format);
+				return format;
 			}
+			targetAddr = operandAddress(t, op.substring(1), st, currentOffset);
 		} else if (op.startsWith("@")) {
 			n = 1; i = 0;
-			targetAddr = st.searchSymbol(op.substring(1));
-			if (targetAddr < 0) targetAddr = 0;
+			targetAddr = operandAddress(t, op.substring(1), st, currentOffset);
 		} else {
 			// Simple/direct
-			targetAddr = st.searchSymbol(op);
-			if (targetAddr < 0) targetAddr = 0;
+			targetAddr = operandAddress(t, op, st, currentOffset);
 		}
 
 		// Indexed addressing
@@ -459,11 +901,64 @@ public class Assembler {
 		opcode |= flags;
 		int nixbpe = (x << 3) | (b << 2) | (p << 1) | e;
 
-		if (format == 3) {
-			return String.format("%02X%01X%03X", opcode, nixbpe, disp & 0xFFF);
+		putFormat34(out, opcode, nixbpe, format == 3 ? disp : targetAddr, format);
+		return format;
+	}
+
+	/**
+	 * 명령어 operand의 주소를 구한다. 심볼 하나이면 바로 찾고, 식이면 토큰에 저장된 파싱 결과로 계산한다.
+	 * @return 주소. 찾을 수 없거나 음수이면 0
+	 */
+	private int operandAddress(Token t, String text, SymbolTable st, int currentOffset) {
+		Expression expr = t.expression();
+		int addr;
+		if (expr == null || expr.singleSymbol() != null) {
+			addr = st.searchSymbol(text);
+		} else {
+			addr = expr.evaluate(st, currentOffset);
+		}
+		return addr < 0 ? 0 : addr;
+	}
+
+	// 3바이트 WORD 값 기록
+	private static void putWord(ByteBuffer out, int value) {
+		out.put((byte) (value >> 16));
+		out.put((byte) (value >> 8));
+		out.put((byte) value);
+	}
+
+	// 형식 3(12비트 disp) 또는 형식 4(20비트 address) 명령어 기록
+	private static void putFormat34(ByteBuffer out, int opcode, int nixbpe, int addr, int format) {
+		out.put((byte) opcode);
+		if (format == 4) {
+			out.put((byte) ((nixbpe << 4) | ((addr >> 16) & 0xF)));
+			out.put((byte) (addr >> 8));
 		} else {
-			return String.format("%02X%01X%05X", opcode, nixbpe, targetAddr);
+			out.put((byte) ((nixbpe << 4) | ((addr >> 8) & 0xF)));
 		}
+		out.put((byte) addr);
+	}
+
+	// s[from, to) 구간의 16진수 문자열을 byte로 기록. 홀수 자리면 마지막 한 자리가 한 byte가 된다.
+	private static void putHexDigits(ByteBuffer out, String s, int from, int to) {
+		for (int k = from; k < to; k += 2) {
+			int hi = Character.digit(s.charAt(k), 16);
+			if (k + 1 < to) {
+				out.put((byte) ((hi << 4) | Character.digit(s.charAt(k + 1), 16)));
+			} else {
+				out.put((byte) hi);
+			}
+		}
+	}
+
+	// 형식 2의 숫자 operand (0~16). 숫자가 아니면 0
+	private static int smallNumber(String s) {
+		s = s.trim();
+		if (s.isEmpty() || s.length() > 2) return 0;
+		for (int k = 0; k < s.length(); k++) {
+			if (!Character.isDigit(s.charAt(k))) return 0;
+		}
+		return Math.min(Integer.parseInt(s), 16);
 	}
 
 	private int getRegisterNumber(String reg) {
@@ -479,7 +974,7 @@ public class Assembler {
 		};
 	}
 
-	private List<String> generateModificationRecords(Token t, int currentOffset, Set<String> extDefSymbols, Set<String> extRefSymbols) {
+	List<String> generateModificationRecords(Token t, int currentOffset, Set<String> extDefSymbols, Set<String> extRefSymbols) {
 		List<String> mods = new ArrayList<>();
 
 		String op = t.operand[0];
@@ -493,83 +988,53 @@ public class Assembler {
 
 		// Format 4 명령어 (+)
 		else if (t.operator.startsWith("+")) {
-			String symbol = op.replaceAll("^[#@]", "").split(",")[0];
-			if (extRefSymbols.contains(symbol)) {
-				mods.add(String.format("M%06X05+%s", currentOffset + 1, symbol));
-			}
-		}
-
-		// WORD 상대식
-		if ("WORD".equalsIgnoreCase(t.operator)) {
-			int modAddr = currentOffset;
-			// 부호/심볼 파싱
-			char sign = '+';
-			int pos = 0, len = op.length();
-			while (pos < len) {
-				char c = op.charAt(pos);
-				// 부호 만나면 저장
-				if (c == '+' || c == '-') {
-					sign = c;
-					pos++;
-					continue;
-				}
-				// 심볼 이름 읽기
-				int start = pos;
-				while (pos < len
-						&& (Character.isLetterOrDigit(op.charAt(pos))
-						|| op.charAt(pos) == '_')) {
-					pos++;
+			Expression expr = t.expression();
+			if (expr == null) {
+				String symbol = op.replaceAll("^[#@]", "").split(",")[0];
+				if (extRefSymbols.contains(symbol)) {
+					mods.add(String.format("M%06X05+%s", currentOffset + 1, symbol));
 				}
-				if (start == pos) break;
-				String sym = op.substring(start, pos);
-
-				// EXTDEF 혹은 EXTREF 심볼이면 M 레코드 생성
-				if (extRefSymbols.contains(sym)
-					|| extDefSymbols.contains(sym)) {
-					mods.add(String.format("M%06X06%c%s", modAddr, sign, sym));
-				}
-				// 다음 term은 기본 '+'
-				sign = '+';
+			} else {
+				addModifications(mods, expr, currentOffset + 1, "05", extRefSymbols, null);
 			}
 		}
 
-		// EQU 상대식
-		if ("EQU".equalsIgnoreCase(t.operator) && op.contains("-")) {
-			int modAddr = currentOffset;
-			char sign = '+';
-			int pos = 0, len = op.length();
-			while (pos < len) {
-				char c = op.charAt(pos);
-				if (c == '+' || c == '-') {
-					sign = c;
-					pos++;
-					continue;
-				}
-				int start = pos;
-				while (pos < len &&
-						(Character.isLetterOrDigit(op.charAt(pos)) || op.charAt(pos) == '_')) {
-					pos++;
-				}
-				if (start == pos) break;
-				String sym = op.substring(start, pos);
+		// WORD 상대식 (pass2에서 파싱된 식의 항과 부호를 그대로 사용)
+		if ("WORD".equalsIgnoreCase(t.operator) && t.expression() != null) {
+			addModifications(mods, t.expression(), currentOffset, "06", extRefSymbols, extDefSymbols);
+		}
 
-				if (extDefSymbols.contains(sym) || extRefSymbols.contains(sym)) {
-					mods.add(String.format("M%06X06%c%s", modAddr, sign, sym));
-				}
-				sign = '+';
-			}
+		// EQU 상대식
+		if ("EQU".equalsIgnoreCase(t.operator) && t.expression() != null) {
+			addModifications(mods, t.expression(), currentOffset, "06", extRefSymbols, extDefSymbols);
 		}
 
 		return mods;
 	}
 
+	/**
+	 * 식에서 재배치가 필요한 항마다 M 레코드를 추가한다. 곱셈/나눗셈 안의 항(부호 0)은 제외한다.
+	 * @param length : 수정할 half-byte 수 ("05" 또는 "06")
+	 * @param extDefSymbols : EXTDEF 심볼도 재배치할 경우 그 목록, 아니면 null
+	 */
+	private static void addModifications(List<String> mods, Expression expr, int addr, String length,
+			Set<String> extRefSymbols, Set<String> extDefSymbols) {
+		for (int k = 0; k < expr.symbolCount(); k++) {
+			int sign = expr.sign(k);
+			String sym = expr.symbol(k);
+			if (sign == 0) continue;
+			if (extRefSymbols.contains(sym) || (extDefSymbols != null && extDefSymbols.contains(sym))) {
+				mods.add(String.format("M%06X%s%c%s", addr, length, sign > 0 ? '+' : '-', sym));
+			}
+		}
+	}
+
 	/**
 	 * 해당 토큰이 T 레코드에 포함 가능한지 여부를 반환
 	 * - START, END, CSECT, EXTDEF, EXTREF, EQU, RESW, RESB, LTORG 제외
-	 * - 주석 또는 연산자 없는 경우 제외
+	 * - 주석 줄 등 연산자 없는 경우 제외
 	 */
-	private boolean isTextRecordable(Token t) {
-		if (t.comment != null && t.comment.startsWith(".")) return false;
+	boolean isTextRecordable(Token t) {
 		if (t.operator == null || t.operator.isEmpty()) return false;
 
 		String op = t.operator.toUpperCase();
@@ -621,184 +1086,251 @@ public class Assembler {
 
 	/**
 	 * pass2 과정을 수행한다.<br>
-	 *   1) 분석된 내용을 바탕으로 object code를 생성하여 codeList에 저장.
+	 *   1) 분석된 내용을 바탕으로 object code를 생성하여 codeList에 저장.<br>
+	 *   2) parallel 모드이면 section별 레코드를 fork-join pool에서 동시에 생성한 뒤 section 순서대로 이어붙인다.
 	 */
-	private void pass2() {
+	void pass2() {
+		AssemblerMetrics.Span span = metrics.begin(AssemblerMetrics.Phase.PASS2, -1);
 		// 각 컨트롤 섹션별로 H/D/R/T/M/E 레코드 생성
-		for (int sec = 0; sec < tokenList.size(); sec++) {
-			TokenTable tt = tokenList.get(sec);
-			SymbolTable st = symtabList.get(sec);
-			LiteralTable lt = littabList.get(sec);
-			int secStart = sectionStartAddr.get(sec);
-			int secLength = sectionLengths.get(sec);
-
-			// 섹션별로 아직 처리되지 않은 리터럴 인덱스 모아두기
-			List<Integer> litIdxs = new ArrayList<>();
-			for (int i = 0; i < lt.size(); i++) {
-				int loc = lt.getLocation(i);
-				if (loc > secStart && loc < secStart + secLength) {
-					litIdxs.add(i);
-				}
+		if (parallel) {
+			List<List<String>> sections = IntStream.range(0, tokenList.size())
+					.parallel()
+					.mapToObj(this::generateOrLoadSection)
+					.collect(Collectors.toList());
+			for (List<String> records : sections) {
+				codeList.addAll(records);
+			}
+		} else {
+			for (int sec = 0; sec < tokenList.size(); sec++) {
+				codeList.addAll(generateOrLoadSection(sec));
 			}
+		}
+		metrics.end(span);
+	}
 
-			// BASE 디렉티브로 설정된 base 레지스터 값 결정
-			int baseReg = -1;
-			for (Token t : tt.getTokenList()) {
-				if ("BASE".equalsIgnoreCase(t.operator) && t.operand.length > 0) {
-					baseReg = st.getSymbol(t.operand[0]);
-					break;
+	/**
+	 * pass2를 수행하면서 section 하나가 끝날 때마다 그 레코드를 objectFile에 바로 쓴다.<br>
+	 * codeList에 모으지 않으므로 object program 전체가 한꺼번에 메모리에 있지 않다.
+	 * 출력 내용은 pass2() 후 printObjectCode()를 호출한 것과 같다.
+	 * parallel 모드에서는 앞선 몇 개 section만 미리 생성해 두고 section 순서대로 쓴다.
+	 * binary object 파일이 설정되어 있으면 같은 section을 binary로도 쓴다.
+	 * @param objectFile : 저장되는 파일 이름
+	 */
+	void pass2(String objectFile) throws IOException {
+		AssemblerMetrics.Span span = metrics.begin(AssemblerMetrics.Phase.PASS2, -1);
+		long writing = 0;
+		try (RecordWriter out = new RecordWriter(objectFile);
+				BinaryObjectWriter binary = binaryObjectFile != null ? new BinaryObjectWriter(binaryObjectFile) : null) {
+			int count = tokenList.size();
+			boolean first = true;
+			if (parallel) {
+				ForkJoinPool pool = ForkJoinPool.commonPool();
+				int window = Math.max(2, pool.getParallelism() * 2);
+				ArrayDeque<ForkJoinTask<List<String>>> ahead = new ArrayDeque<>();
+				int next = 0;
+				for (int sec = 0; sec < count; sec++) {
+					while (next < count && next < sec + window) {
+						int s = next++;
+						ahead.add(pool.submit(() -> generateOrLoadSection(s)));
+					}
+					List<String> records = ahead.poll().join();
+					long start = System.nanoTime();
+					first = writeRecords(out, binary, records, first);
+					writing += System.nanoTime() - start;
+				}
+			} else {
+				for (int sec = 0; sec < count; sec++) {
+					List<String> records = generateOrLoadSection(sec);
+					long start = System.nanoTime();
+					first = writeRecords(out, binary, records, first);
+					writing += System.nanoTime() - start;
 				}
 			}
+			metrics.add(AssemblerMetrics.Counter.BYTES_WRITTEN, out.bytesWritten());
+		}
+		// 레코드를 쓴 시간은 printObjectCode로 세고 pass2에서는 뺀다
+		metrics.addTime(AssemblerMetrics.Phase.PRINT_OBJECT, writing);
+		metrics.end(span, writing);
+	}
 
-			// 섹션 이름
-			Token first = tt.getToken(0);
-			String progName = (first.label != null && !first.label.isEmpty()) ? first.label : sectionNames.get(sec);
+	/**
+	 * 레코드를 줄 구분자로 이어 쓴다. (printObjectCode처럼 마지막 레코드 뒤에는 구분자가 없다)
+	 * @param binary : 같은 section을 추가할 binary writer. 없으면 null
+	 * @param first : 아직 아무 레코드도 쓰지 않았는지 여부
+	 * @return 다음 호출에 넘길 first 값
+	 */
+	private boolean writeRecords(RecordWriter out, BinaryObjectWriter binary, List<String> records, boolean first)
+			throws IOException {
+		for (String r : records) {
+			if (!first) out.newLine();
+			out.write(r);
+			first = false;
+		}
+		if (binary != null) binary.addRecords(records);
+		return first;
+	}
 
-			// 출력할 내용이 없으면 건너뛰기
-			boolean hasContent = false;
-			for (Token t : tt.getTokenList()) {
-				if ("EXTDEF".equalsIgnoreCase(t.operator)
-						|| "EXTREF".equalsIgnoreCase(t.operator)
-						|| isTextRecordable(t)) {
-					hasContent = true;
-					break;
+	/**
+	 * 캐시에서 복원된 section이면 저장된 레코드를, 아니면 generateSection의 결과를 반환한다.
+	 * 캐시가 설정되어 있으면 새로 생성한 section을 캐시에 저장한다.
+	 */
+	private List<String> generateOrLoadSection(int sec) {
+		SectionContext ctx = sectionList.get(sec);
+		AssemblerMetrics.Span span = metrics.begin(AssemblerMetrics.Phase.PASS2, sec);
+		List<String> records = ctx.cachedRecords;
+		if (records == null) {
+			records = generateSection(sec);
+			if (cache != null && ctx.hash != null) {
+				try {
+					cache.store(ctx, records);
+				} catch (IOException e) {
+					System.err.println("Cache write failed: " + e.getMessage());
 				}
 			}
-			if (!hasContent) continue;
+		}
+		metrics.end(span);
+		metrics.recordSection(ctx, records);
+		return records;
+	}
 
-			// H 레코드
-			codeList.add(String.format("H%-6s%06X%06X", progName, secStart, secLength));
+	/**
+	 * section 하나의 H/D/R/T/M/E 레코드를 생성한다.<br>
+	 * section의 TokenTable/SymbolTable/LiteralTable만 읽으므로 여러 section을 동시에 처리해도 안전하다.
+	 * @param sec : section 번호
+	 * @return 생성된 레코드 목록 (section 구분용 빈 줄 포함). 출력할 내용이 없으면 빈 목록
+	 */
+	private List<String> generateSection(int sec) {
+		List<String> out = new ArrayList<>();
+		TokenTable tt = tokenList.get(sec);
+		SymbolTable st = symtabList.get(sec);
+		LiteralTable lt = littabList.get(sec);
+		int secStart = sectionStartAddr.get(sec);
+		int secLength = sectionLengths.get(sec);
 
-			// D, R 레코드
-			StringBuilder dRec = new StringBuilder("D");
-			StringBuilder rRec = new StringBuilder("R");
-			Set<String> extDefSet = new LinkedHashSet<>();
-			Set<String> extRefSet = new LinkedHashSet<>();
+		// pass1에서 LTORG/END마다 기록된 리터럴 pool을 순서대로 출력
+		int pool = 0;
 
-			for (Token t : tt.getTokenList()) {
-				if ("EXTDEF".equalsIgnoreCase(t.operator)) {
-					for (String sym : t.operand) {
-						extDefSet.add(sym);
-						int addr = st.getSymbol(sym);
-						dRec.append(String.format("%-6s%06X", sym, addr));
-					}
-				} else if ("EXTREF".equalsIgnoreCase(t.operator)) {
-					for (String sym : t.operand) {
-						extRefSet.add(sym);
-						rRec.append(String.format("%-6s", sym));
-					}
-				}
+		// BASE 디렉티브로 설정된 base 레지스터 값 결정
+		int baseReg = -1;
+		for (Token t : tt.getTokenList()) {
+			if ("BASE".equalsIgnoreCase(t.operator) && t.operand.length > 0) {
+				baseReg = st.getSymbol(t.operand[0]);
+				break;
 			}
-			if (dRec.length() > 1) codeList.add(dRec.toString());
-			if (rRec.length() > 1) codeList.add(rRec.toString());
-
-			// T/M 레코드 생성
-			List<String> mRecs = new ArrayList<>();
-			StringBuilder tBuffer = new StringBuilder();
-			int tStart = -1, tLen = 0;
-
-			for (Token t : tt.getTokenList()) {
-				// LTORG 또는 END 만나면 리터럴 처리 및 flush
-				if ("LTORG".equalsIgnoreCase(t.operator) || "END".equalsIgnoreCase(t.operator)) {
-					if ("LTORG".equalsIgnoreCase(t.operator)) {
-						if (tLen > 0) {
-							codeList.add(String.format("T%06X%02X%s", tStart, tLen, tBuffer));
-							tBuffer.setLength(0);
-							tLen = 0;
-						}
-						// 2) litIdxs 에 모인 리터럴들을 각각 개행해서 찍기
-						for (int idx : litIdxs) {
-							byte[] data = literalToBytes(lt.getLiteral(idx));
-							String obj   = bytesToHex(data);
-							int  start   = lt.getLocation(idx) - secStart;
-							codeList.add(String.format("T%06X%02X%s",
-									start, data.length, obj));
-						}
-						litIdxs.clear();
-						continue;
-					}
+		}
 
-					// opcode-only 버퍼가 남아있으면 flush
-					StringBuilder full = new StringBuilder(tBuffer);
-					int fullLen = tLen;
-					for (int idx : litIdxs) {
-						byte[] data = literalToBytes(lt.getLiteral(idx));
-						full.append(bytesToHex(data));
-						fullLen += data.length;
-					}
-					codeList.add(String.format("T%06X%02X%s", tStart, fullLen, full.toString()));
+		// 섹션 이름
+		Token first = tt.getToken(0);
+		String progName = (first.label != null && !first.label.isEmpty()) ? first.label : sectionNames.get(sec);
 
-					// 버퍼 초기화
-					tBuffer.setLength(0);
-					tLen = 0;
-					litIdxs.clear();
+		// 출력할 내용이 없으면 건너뛰기
+		boolean hasContent = false;
+		for (Token t : tt.getTokenList()) {
+			if ("EXTDEF".equalsIgnoreCase(t.operator)
+					|| "EXTREF".equalsIgnoreCase(t.operator)
+					|| isTextRecordable(t)) {
+				hasContent = true;
+				break;
+			}
+		}
+		if (!hasContent) return out;
 
-					if ("END".equalsIgnoreCase(t.operator)) break;
-					continue;
-				}
+		// H 레코드
+		out.add(String.format("H%-6s%06X%06X", progName, secStart, secLength));
 
-				if (!isTextRecordable(t)) continue;
+		// D, R 레코드
+		StringBuilder dRec = new StringBuilder("D");
+		StringBuilder rRec = new StringBuilder("R");
+		Set<String> extDefSet = new LinkedHashSet<>();
+		Set<String> extRefSet = new LinkedHashSet<>();
 
-				String objCode = generateObjectCode(t, t.location - secStart, st, lt, baseReg);
-				if (objCode.isEmpty()) continue;
+		for (Token t : tt.getTokenList()) {
+			if ("EXTDEF".equalsIgnoreCase(t.operator)) {
+				for (String sym : t.operand) {
+					extDefSet.add(sym);
+					int addr = st.getSymbol(sym);
+					dRec.append(String.format("%-6s%06X", sym, addr));
+				}
+			} else if ("EXTREF".equalsIgnoreCase(t.operator)) {
+				for (String sym : t.operand) {
+					extRefSet.add(sym);
+					rRec.append(String.format("%-6s", sym));
+				}
+			}
+		}
+		if (dRec.length() > 1) out.add(dRec.toString());
+		if (rRec.length() > 1) out.add(rRec.toString());
 
-				int objLen = objCode.length()/2;
+		// T/M 레코드 생성. 길이 제한과 16진수 변환은 TextRecordBuilder가 맡는다.
+		List<String> mRecs = new ArrayList<>();
+		TextRecordBuilder text = new TextRecordBuilder(maxTextRecordLength);
+		ByteBuffer code = ByteBuffer.allocate(MAX_RECORD_BYTES);
 
-				// 새 T 레코드 시작
-				if (tLen == 0) {
-					tStart = t.location - secStart;
+		for (Token t : tt.getTokenList()) {
+			// LTORG: 버퍼를 flush하고 이 LTORG의 pool에 속한 리터럴들을 각각 한 레코드로 출력
+			if ("LTORG".equalsIgnoreCase(t.operator)) {
+				if (!text.isEmpty()) out.add(text.flush());
+				if (pool < lt.poolCount()) {
+					emitLiteralPool(pool++, secStart, lt, text, out);
 				}
+				continue;
+			}
 
-				// 길이 초과하면 flush
-				if (tLen + objLen > MAX_TEXT_RECORD_LENGTH) {
-					codeList.add(String.format("T%06X%02X%s", tStart, tLen, tBuffer));
-					tBuffer.setLength(0);
-					tLen = 0;
-					tStart = t.location - secStart;
+			// END: 남은 리터럴을 마지막 레코드에 이어 붙이고 (길이 제한 적용) flush
+			if ("END".equalsIgnoreCase(t.operator)) {
+				if (pool < lt.poolCount()) {
+					for (int idx = lt.getPoolStart(pool); idx < lt.getPoolEnd(pool); idx++) {
+						byte[] data = literalToBytes(lt.getLiteral(idx));
+						String done = text.add(data, 0, data.length, lt.getLocation(idx) - secStart);
+						if (done != null) out.add(done);
+					}
+					pool++;
 				}
+				out.add(text.flush());
+				break;
+			}
 
-				tBuffer.append(objCode);
-				tLen += objLen;
+			if (!isTextRecordable(t)) continue;
 
-				// M 레코드 수집
-				mRecs.addAll(generateModificationRecords(t, t.location - secStart, extDefSet, extRefSet));
-			}
+			code.clear();
+			int objLen = encodeObjectCode(t, t.location - secStart, st, lt, baseReg, code);
+			if (objLen == 0) continue;
 
-			// 루프 종료 후 버퍼 flush
-			if (tLen > 0) {
-				codeList.add(String.format("T%06X%02X%s", tStart, tLen, tBuffer));
-				tBuffer.setLength(0);
-				tLen = 0;
-			}
+			String done = text.add(code.array(), 0, objLen, t.location - secStart);
+			if (done != null) out.add(done);
 
-			// 남은 리터럴들을 모두 T 레코드로 찍기
-			for (int idx : litIdxs) {
-				byte[] data = literalToBytes(lt.getLiteral(idx));
-				String obj = bytesToHex(data);
-				int start = lt.getLocation(idx) - secStart;
-				codeList.add(String.format("T%06X%02X%s", start, data.length, obj));
-			}
-			litIdxs.clear();
+			// M 레코드 수집
+			mRecs.addAll(generateModificationRecords(t, t.location - secStart, extDefSet, extRefSet));
+		}
 
-			// M 레코드 출력
-			for (String m : mRecs) {
-				codeList.add(m);
-			}
+		// 루프 종료 후 버퍼 flush
+		if (!text.isEmpty()) out.add(text.flush());
 
+		// 남은 리터럴 pool들을 모두 T 레코드로 찍기
+		while (pool < lt.poolCount()) {
+			emitLiteralPool(pool++, secStart, lt, text, out);
+		}
 
-			// E 레코드
-			if (sec == 0 && first.operand != null && first.operand.length > 0) {
-				int entry = st.getSymbol(first.operand[0]);
-				codeList.add(String.format("E%06X", secStart));
-			} else {
-				codeList.add("E");
-			}
-			codeList.add(""); // 섹션 구분
+		// M 레코드 출력
+		for (String m : mRecs) {
+			out.add(m);
+		}
+
+
+		// E 레코드
+		if (sec == 0 && first.operand != null && first.operand.length > 0) {
+			int entry = st.getSymbol(first.operand[0]);
+			out.add(String.format("E%06X", secStart));
+		} else {
+			out.add("E");
 		}
+		out.add(""); // 섹션 구분
+
+		return out;
 	}
 
 	// 헬퍼 1: literal -> byte[]
-	private byte[] literalToBytes(String lit) {
+	byte[] literalToBytes(String lit) {
 		if (lit.startsWith("=C'")) {
 			String chars = lit.substring(3, lit.length() - 1);
 			return chars.getBytes(StandardCharsets.US_ASCII);
@@ -824,11 +1356,7 @@ public class Assembler {
 
 	// 헬퍼 2: byte[] -> hex string
 	private String bytesToHex(byte[] data) {
-		StringBuilder sb = new StringBuilder();
-		for (byte bt : data) {
-			sb.append(String.format("%02X", bt & 0xFF));
-		}
-		return sb.toString();
+		return Hex.toHex(data, 0, data.length);
 	}
 
 	// 헬퍼 3: LTORG 케이스를 위한 emitLiteralRecords
@@ -843,18 +1371,80 @@ public class Assembler {
 	}
 
 
+	// 헬퍼 4: 리터럴 pool 하나를 리터럴별 T 레코드로 출력
+	private void emitLiteralPool(int pool, int secStart, LiteralTable lt, TextRecordBuilder text, List<String> out) {
+		for (int idx = lt.getPoolStart(pool); idx < lt.getPoolEnd(pool); idx++) {
+			out.add(text.single(lt.getLocation(idx) - secStart, literalToBytes(lt.getLiteral(idx))));
+		}
+	}
+
+	/** pass2 결과를 비운다. (같은 pass1 결과로 pass2를 반복 실행할 때 사용) */
+	void clearObjectCode() {
+		codeList.clear();
+	}
+
+	/** pass1에서 만들어진 section 수 */
+	int sectionCount() {
+		return tokenList.size();
+	}
+
+	TokenTable getTokenTable(int sec) {
+		return tokenList.get(sec);
+	}
+
+	SymbolTable getSymbolTable(int sec) {
+		return symtabList.get(sec);
+	}
+
+	LiteralTable getLiteralTable(int sec) {
+		return littabList.get(sec);
+	}
+
+	int getSectionStart(int sec) {
+		return sectionStartAddr.get(sec);
+	}
+
+	String getSectionName(int sec) {
+		return sectionNames.get(sec);
+	}
+
+	/**
+	 * pass1의 토큰 위치로 line table 파일을 만든다. (LineTable)<br>
+	 * section의 토큰 i는 소스의 firstLine + i번째 줄에서 나왔으므로 줄 번호를 바로 얻는다.
+	 * @param fileName : 저장되는 파일 이름
+	 */
+	void printLineTable(String fileName) throws IOException {
+		try (LineTableWriter out = new LineTableWriter(fileName)) {
+			for (SectionContext ctx : sectionList) {
+				TokenTable tt = ctx.tokens;
+				for (int i = 0; i < tt.size(); i++) {
+					Token tok = tt.getToken(i);
+					if ("START".equals(tok.operator) || "CSECT".equals(tok.operator)) continue;
+					out.token(tok.location, sourceLineNumber(ctx.firstLine + i), "EQU".equals(tok.operator) ? "" : tok.label);
+				}
+				out.endSection(ctx.name, ctx.startAddr, ctx.startAddr + ctx.length);
+			}
+		}
+	}
+
 	/**
 	 * 작성된 codeList를 출력형태에 맞게 출력한다.<br>
 	 * @param fileName : 저장되는 파일 이름
 	 */
-	private void printObjectCode(String fileName) throws IOException {
+	void printObjectCode(String fileName) throws IOException {
+		AssemblerMetrics.Span span = metrics.begin(AssemblerMetrics.Phase.PRINT_OBJECT, -1);
+		long written = 0;
 		BufferedWriter bw = new BufferedWriter(new FileWriter(fileName));
 		for (int i = 0; i < codeList.size(); i++) {
 			bw.write(codeList.get(i));
+			written += codeList.get(i).length();
 			if (i < codeList.size() - 1) {
 				bw.newLine();
+				written += System.lineSeparator().length();
 			}
 		}
 		bw.close();
+		metrics.add(AssemblerMetrics.Counter.BYTES_WRITTEN, written);
+		metrics.end(span);
 	}
-}
\ No newline at end of file
+}
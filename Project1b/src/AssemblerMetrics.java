@@ -0,0 +1,265 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 어셈블 한 번의 단계별 소요 시간과 카운터를 모으는 클래스. <br>
+ * 단계(load, pass1, pass2, print...)와 section별 처리마다 JFR 이벤트(sicxe.Phase, sicxe.Section)도 함께 기록한다.
+ * JFR 기록이 꺼져 있으면 이벤트는 commit에서 바로 버려진다.
+ * <br><br>
+ * parallel 모드에서는 여러 section이 동시에 기록하므로 값은 LongAdder로 누적한다.
+ * pass1/pass2 등 전체 단계의 시간은 벽시계 시간이고, section 안에서 수행되는 equ/literalPool은
+ * 모든 section의 합이다. (pass1 시간에 포함된다)
+ * 전체 단계를 section별로 잰 측정(section 번호가 0 이상)은 JFR 이벤트만 기록하고 시간에는 더하지 않는다.
+ * 각 단계의 시간은 서로 겹치지 않는다. (streaming pass2에서 레코드를 쓰는 시간은 printObjectCode로만 센다)
+ */
+public class AssemblerMetrics {
+	/** 시간을 측정하는 단계 */
+	enum Phase {
+		LOAD("load", false),
+		PASS1("pass1", false),
+		EQU("equ", true),
+		LITERAL_POOL("literalPool", true),
+		PASS2("pass2", false),
+		PRINT_SYMTAB("printSymbolTable", false),
+		PRINT_LITTAB("printLiteralTable", false),
+		PRINT_OBJECT("printObjectCode", false),
+		ONE_PASS("onePass", false);
+
+		final String label;
+		/** section별 측정을 모두 더하는 단계인지 여부. 아니면 전체 단계(section -1)의 측정만 더한다 */
+		final boolean perSection;
+
+		Phase(String label, boolean perSection) {
+			this.label = label;
+			this.perSection = perSection;
+		}
+	}
+
+	/** 개수를 세는 항목 */
+	enum Counter {
+		SECTIONS("sections"),
+		CACHED_SECTIONS("cachedSections"),
+		TOKENS("tokens"),
+		SYMBOLS("symbols"),
+		SYMBOL_LOOKUPS("symbolLookups"),
+		SYMBOL_MISSES("symbolMisses"),
+		LITERALS("literals"),
+		LITERAL_POOLS("literalPools"),
+		T_RECORDS("textRecords"),
+		M_RECORDS("modificationRecords"),
+		RECORDS("records"),
+		BYTES_WRITTEN("bytesWritten");
+
+		final String label;
+
+		Counter(String label) {
+			this.label = label;
+		}
+	}
+
+	private final LongAdder[] nanos = newAdders(Phase.values().length);
+	private final LongAdder[] counts = newAdders(Counter.values().length);
+
+	private static LongAdder[] newAdders(int n) {
+		LongAdder[] adders = new LongAdder[n];
+		for (int i = 0; i < n; i++) adders[i] = new LongAdder();
+		return adders;
+	}
+
+	/**
+	 * 단계 측정을 시작한다.
+	 * @param section : section 번호. 프로그램 전체 단계이면 -1
+	 */
+	Span begin(Phase phase, int section) {
+		PhaseEvent event = new PhaseEvent();
+		event.phase = phase.label;
+		event.section = section;
+		event.begin();
+		return new Span(phase, section, event, System.nanoTime());
+	}
+
+	/**
+	 * begin으로 시작한 단계 측정을 끝내고 시간을 누적한다.
+	 * 전체 단계를 section별로 잰 측정이면 이벤트만 기록한다.
+	 */
+	void end(Span span) {
+		end(span, 0);
+	}
+
+	/**
+	 * begin으로 시작한 단계 측정을 끝낸다.
+	 * @param excluded : 측정 구간 안에서 다른 단계로 센 시간. 이 단계의 시간에서 뺀다
+	 */
+	void end(Span span, long excluded) {
+		if (span.section < 0 || span.phase.perSection) {
+			nanos[span.phase.ordinal()].add(System.nanoTime() - span.start - excluded);
+		}
+		span.event.commit();
+	}
+
+	/** 이벤트 없이 시간만 누적한다. (LTORG마다 호출되는 literal pool 처리 등) */
+	void addTime(Phase phase, long nanos) {
+		this.nanos[phase.ordinal()].add(nanos);
+	}
+
+	void add(Counter counter, long n) {
+		counts[counter.ordinal()].add(n);
+	}
+
+	public long nanos(Phase phase) {
+		return nanos[phase.ordinal()].sum();
+	}
+
+	public long count(Counter counter) {
+		return counts[counter.ordinal()].sum();
+	}
+
+	/**
+	 * pass2까지 끝난 section 하나의 카운터를 누적하고 sicxe.Section 이벤트를 기록한다.
+	 * @param records : section의 레코드 목록
+	 */
+	void recordSection(SectionContext ctx, Iterable<String> records) {
+		int tRecords = 0, mRecords = 0, total = 0;
+		for (String r : records) {
+			if (r.isEmpty()) continue;
+			total++;
+			if (r.charAt(0) == 'T') tRecords++;
+			else if (r.charAt(0) == 'M') mRecords++;
+		}
+		boolean cached = ctx.cachedRecords != null;
+		add(Counter.SECTIONS, 1);
+		if (cached) add(Counter.CACHED_SECTIONS, 1);
+		add(Counter.TOKENS, ctx.tokens.size());
+		add(Counter.SYMBOLS, ctx.symbols.size());
+		add(Counter.SYMBOL_LOOKUPS, ctx.symbols.lookupCount());
+		add(Counter.SYMBOL_MISSES, ctx.symbols.missCount());
+		add(Counter.LITERALS, ctx.literals.size());
+		add(Counter.LITERAL_POOLS, ctx.literals.poolCount());
+		add(Counter.T_RECORDS, tRecords);
+		add(Counter.M_RECORDS, mRecords);
+		add(Counter.RECORDS, total);
+
+		SectionEvent event = new SectionEvent();
+		if (event.shouldCommit()) {
+			event.section = ctx.index;
+			event.name = ctx.name;
+			event.length = ctx.length;
+			event.tokens = ctx.tokens.size();
+			event.symbols = ctx.symbols.size();
+			event.literals = ctx.literals.size();
+			event.records = total;
+			event.cached = cached;
+			event.commit();
+		}
+	}
+
+	/**
+	 * 사람이 읽을 요약을 출력한다.
+	 */
+	public void printSummary(PrintStream out) {
+		out.println("phase                    ms");
+		for (Phase p : Phase.values()) {
+			out.printf("  %-20s %10.3f%n", p.label, nanos(p) / 1e6);
+		}
+		out.println("counter               count");
+		for (Counter c : Counter.values()) {
+			out.printf("  %-20s %10d%n", c.label, count(c));
+		}
+	}
+
+	/**
+	 * 모든 값을 JSON 객체 하나로 저장한다. 시간은 nanosecond 단위이다.
+	 * @param fileName : 저장되는 파일 이름
+	 */
+	public void writeJson(String fileName) throws IOException {
+		try (BufferedWriter bw = new BufferedWriter(new FileWriter(fileName))) {
+			bw.write(toJson());
+			bw.newLine();
+		}
+	}
+
+	String toJson() {
+		StringBuilder sb = new StringBuilder("{\"phases\":{");
+		for (Phase p : Phase.values()) {
+			if (p.ordinal() > 0) sb.append(',');
+			sb.append('"').append(p.label).append("\":").append(nanos(p));
+		}
+		sb.append("},\"counters\":{");
+		for (Counter c : Counter.values()) {
+			if (c.ordinal() > 0) sb.append(',');
+			sb.append('"').append(c.label).append("\":").append(count(c));
+		}
+		return sb.append("}}").toString();
+	}
+
+	/** 진행 중인 단계 측정 */
+	static final class Span {
+		final Phase phase;
+		final int section;
+		final PhaseEvent event;
+		final long start;
+
+		Span(Phase phase, int section, PhaseEvent event, long start) {
+			this.phase = phase;
+			this.section = section;
+			this.event = event;
+			this.start = start;
+		}
+	}
+}
+
+/**
+ * 어셈블 단계 하나의 JFR 이벤트. section이 -1이면 프로그램 전체 단계이다.
+ */
+@Name("sicxe.Phase")
+@Label("Assembler Phase")
+@Category("SIC/XE Assembler")
+class PhaseEvent extends Event {
+	@Label("Phase")
+	String phase;
+
+	@Label("Section")
+	int section;
+}
+
+/**
+ * pass2까지 끝난 section 하나의 JFR 이벤트.
+ */
+@Name("sicxe.Section")
+@Label("Assembler Section")
+@Category("SIC/XE Assembler")
+@Description("Per-section sizes after pass2")
+class SectionEvent extends Event {
+	@Label("Section")
+	int section;
+
+	@Label("Name")
+	String name;
+
+	@Label("Length")
+	int length;
+
+	@Label("Tokens")
+	int tokens;
+
+	@Label("Symbols")
+	int symbols;
+
+	@Label("Literals")
+	int literals;
+
+	@Label("Records")
+	int records;
+
+	@Label("Cached")
+	boolean cached;
+}
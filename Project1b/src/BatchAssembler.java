@@ -0,0 +1,279 @@
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 여러 input 파일을 한 JVM에서 어셈블하는 batch 실행기. <br>
+ * 모든 작업이 하나의 InstTable을 공유하고, 파일마다 별도의 Assembler 인스턴스를 사용한다.
+ * 가상 스레드를 지원하는 JVM(21+)에서는 파일마다 가상 스레드를 쓰고, 그렇지 않으면 고정 크기 스레드 풀을 쓴다.
+ * 어느 경우든 동시에 실행되는 작업 수는 jobs개로 제한된다.
+ * <br><br>
+ * 입력 foo.txt의 결과는 출력 디렉토리의 foo_symtab.txt, foo_littab.txt, foo_objectcode.txt로 저장된다.
+ * (설정에 따라 foo_objectcode.obj, foo_linetable.bin, foo_metrics.json도 저장된다)
+ * 디렉토리를 주면 하위 디렉토리까지 찾은 .txt 파일을 input으로 쓴다.
+ * 하위 디렉토리에 있는 input은 출력 디렉토리 아래의 같은 상대 경로에 저장한다.
+ * 확장자만 다른 input처럼 출력 이름이 겹치는 파일은 어셈블하지 않고 실패로 보고한다.
+ */
+public class BatchAssembler {
+	/** 디렉토리에서 input으로 찾는 파일의 확장자 */
+	static final String SOURCE_EXTENSION = ".txt";
+	private static final String[] OUTPUT_SUFFIXES = {
+			"_symtab.txt", "_littab.txt", "_objectcode.txt", "_objectcode.obj", "_linetable.bin", "_metrics.json"
+	};
+
+	private final InstTable instTable;
+	private final int jobs;
+	private final boolean mapped;
+	private final boolean parallel;
+	private boolean columnar;
+	private boolean onePass;
+	private int maxTextRecordLength = Assembler.MAX_TEXT_RECORD_LENGTH;
+	private boolean binary;
+	private boolean lineTable;
+	private boolean stats;
+	private SectionCache cache;
+
+	/**
+	 * @param instTable : 모든 작업이 공유할 instruction Table
+	 * @param jobs : 동시에 실행할 최대 작업 수
+	 * @param mapped : input 파일을 메모리 매핑하여 읽을지 여부
+	 * @param parallel : 파일 내부의 section도 병렬 처리할지 여부
+	 */
+	public BatchAssembler(InstTable instTable, int jobs, boolean mapped, boolean parallel) {
+		this.instTable = instTable;
+		this.jobs = Math.max(1, jobs);
+		this.mapped = mapped;
+		this.parallel = parallel;
+	}
+
+	/** 모든 작업에서 Token을 columnar TokenTable에 저장할지 여부 (Assembler.setColumnar) */
+	public void setColumnar(boolean columnar) {
+		this.columnar = columnar;
+	}
+
+	/** 모든 작업을 one-pass 모드로 어셈블할지 여부 (Assembler.setOnePass) */
+	public void setOnePass(boolean onePass) {
+		this.onePass = onePass;
+	}
+
+	/** 모든 작업의 T 레코드 최대 길이 (Assembler.setMaxTextRecordLength) */
+	public void setMaxTextRecordLength(int length) {
+		this.maxTextRecordLength = length;
+	}
+
+	/** 파일마다 binary object 파일(_objectcode.obj)도 저장할지 여부 */
+	public void setBinary(boolean binary) {
+		this.binary = binary;
+	}
+
+	/** 파일마다 주소 → 소스 줄 대응표(_linetable.bin)도 저장할지 여부 */
+	public void setLineTable(boolean lineTable) {
+		this.lineTable = lineTable;
+	}
+
+	/** 파일마다 단계별 시간과 카운터(_metrics.json)도 저장할지 여부 */
+	public void setStats(boolean stats) {
+		this.stats = stats;
+	}
+
+	/** 모든 작업이 공유할 section 캐시. null이면 캐시를 쓰지 않는다 */
+	public void setCache(SectionCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * 작업 하나의 결과
+	 */
+	static class Result {
+		final Path input;
+		final long nanos;
+		final String error;
+
+		Result(Path input, long nanos, String error) {
+			this.input = input;
+			this.nanos = nanos;
+			this.error = error;
+		}
+	}
+
+	/**
+	 * batch를 실행하고 파일별 소요 시간을 출력한다.
+	 * @param source : input 파일이 있는 디렉토리, 또는 input 파일 경로를 한 줄에 하나씩 적은 목록 파일
+	 * @param outDir : 출력 디렉토리
+	 * @return 모든 파일이 성공하면 true
+	 */
+	public boolean run(String source, String outDir) throws IOException {
+		Path root = Paths.get(source);
+		List<Path> inputs = listInputs(root);
+		Path out = Paths.get(outDir);
+		Files.createDirectories(out);
+
+		long start = System.nanoTime();
+		List<Result> results = assembleAll(inputs, Files.isDirectory(root) ? root : root.toAbsolutePath().getParent(), out);
+		long total = System.nanoTime() - start;
+
+		int failed = 0;
+		for (Result r : results) {
+			if (r.error == null) {
+				System.out.printf("%10.2f ms  %s%n", r.nanos / 1e6, r.input);
+			} else {
+				System.out.printf("%10.2f ms  %s  FAILED: %s%n", r.nanos / 1e6, r.input, r.error);
+				failed++;
+			}
+		}
+		System.out.printf("%d files, %d failed, %.2f ms total, %d jobs (%s)%n",
+				results.size(), failed, total / 1e6, jobs, virtualThreadFactory() != null ? "virtual threads" : "thread pool");
+		return failed == 0;
+	}
+
+	/**
+	 * 모든 input 파일을 어셈블한다. 결과는 inputs와 같은 순서로 반환된다.
+	 * @param root : 출력 이름의 상대 경로를 정하는 기준 디렉토리
+	 */
+	List<Result> assembleAll(List<Path> inputs, Path root, Path outDir) throws IOException {
+		Method virtual = virtualThreadFactory();
+		Semaphore permits = new Semaphore(jobs);
+		ExecutorService executor;
+		try {
+			executor = virtual != null
+					? (ExecutorService) virtual.invoke(null)
+					: Executors.newFixedThreadPool(jobs);
+		} catch (ReflectiveOperationException e) {
+			executor = Executors.newFixedThreadPool(jobs);
+		}
+
+		try {
+			List<Future<Result>> futures = new ArrayList<>();
+			List<Result> results = new ArrayList<>();
+			Map<Path, Path> owners = new HashMap<>();
+			for (Path input : inputs) {
+				Path base = outDir.resolve(outputBase(root, input));
+				Path owner = owners.putIfAbsent(base, input);
+				if (owner != null) {
+					// 앞선 input의 출력을 덮어쓰지 않는다
+					futures.add(null);
+					results.add(new Result(input, 0, "output name " + base + " collides with " + owner));
+					continue;
+				}
+				futures.add(executor.submit(() -> {
+					permits.acquire();
+					try {
+						return assembleOne(input, base);
+					} finally {
+						permits.release();
+					}
+				}));
+				results.add(null);
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				if (futures.get(i) == null) continue;
+				try {
+					results.set(i, futures.get(i).get());
+				} catch (Exception e) {
+					throw new IOException(e);
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * 출력 파일 이름의 앞부분. root 아래의 input은 확장자를 뺀 상대 경로를, 그 밖의 input은 확장자를 뺀 파일 이름을 쓴다.
+	 */
+	static Path outputBase(Path root, Path input) {
+		Path rel = input.getFileName();
+		Path abs = input.toAbsolutePath().normalize();
+		Path dir = root.toAbsolutePath().normalize();
+		if (abs.startsWith(dir)) rel = dir.relativize(abs);
+		String name = rel.getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		if (dot > 0) name = name.substring(0, dot);
+		return rel.resolveSibling(name);
+	}
+
+	/**
+	 * 파일 하나를 새 Assembler 인스턴스로 어셈블한다. 실패해도 예외를 던지지 않고 결과에 기록한다.
+	 * @param base : 출력 파일 경로의 앞부분 (여기에 OUTPUT_SUFFIXES를 붙인다)
+	 */
+	private Result assembleOne(Path input, Path base) {
+		long start = System.nanoTime();
+		try {
+			if (base.getParent() != null) Files.createDirectories(base.getParent());
+			Assembler asm = new Assembler(instTable);
+			asm.setMapped(mapped);
+			asm.setParallel(parallel);
+			asm.setColumnar(columnar);
+			asm.setOnePass(onePass);
+			asm.setMaxTextRecordLength(maxTextRecordLength);
+			asm.setCache(cache);
+			asm.setBinaryObjectFile(binary ? output(base, 3) : null);
+			asm.setLineTableFile(lineTable ? output(base, 4) : null);
+			asm.assemble(input.toString(), output(base, 0), output(base, 1), output(base, 2));
+			if (stats) asm.getMetrics().writeJson(output(base, 5));
+			return new Result(input, System.nanoTime() - start, null);
+		} catch (Exception e) {
+			return new Result(input, System.nanoTime() - start, e.toString());
+		}
+	}
+
+	private static String output(Path base, int kind) {
+		return base.resolveSibling(base.getFileName() + OUTPUT_SUFFIXES[kind]).toString();
+	}
+
+	/**
+	 * 디렉토리이면 하위 디렉토리까지의 SOURCE_EXTENSION 파일(이전 batch의 출력 파일 제외)을,
+	 * 아니면 목록 파일의 각 줄을 input으로 사용한다.
+	 */
+	static List<Path> listInputs(Path source) throws IOException {
+		if (Files.isDirectory(source)) {
+			try (Stream<Path> files = Files.walk(source)) {
+				return files.filter(Files::isRegularFile)
+						.filter(p -> p.getFileName().toString().endsWith(SOURCE_EXTENSION))
+						.filter(p -> !isOutputFile(p))
+						.sorted()
+						.collect(Collectors.toList());
+			}
+		}
+		List<Path> inputs = new ArrayList<>();
+		Path dir = source.toAbsolutePath().getParent();
+		for (String line : Files.readAllLines(source)) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) continue;
+			inputs.add(dir.resolve(line));
+		}
+		return inputs;
+	}
+
+	private static boolean isOutputFile(Path p) {
+		String name = p.getFileName().toString();
+		for (String suffix : OUTPUT_SUFFIXES) {
+			if (name.endsWith(suffix)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Executors.newVirtualThreadPerTaskExecutor를 반환한다. 지원하지 않는 JVM이면 null
+	 */
+	private static Method virtualThreadFactory() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+
+/**
+ * 텍스트 deck(H/D/R/T/M/E)과 같은 내용을 담는 binary object 파일의 형식. <br>
+ * 모든 정수는 big-endian이고, 문자열은 길이 1 byte + ASCII이다.
+ * <pre>
+ * header (24 byte)
+ *   magic "SXOB", u16 version, u16 0, i32 section 수, i64 index 위치, i32 0
+ * section (index가 가리키는 위치)
+ *   u16 문자열 수, 문자열들          (0번은 section 이름, D/R/M은 이 번호로 심볼을 가리킨다)
+ *   i32 시작 주소, i32 길이, i32 E 레코드 주소 (없으면 -1)
+ *   u16 D 개수, (u16 이름, i32 주소)*
+ *   u16 R 개수, (u16 이름)*
+ *   i32 T 개수, (i32 시작 주소, u8 길이, byte[길이])*
+ *   i32 M 개수, (i32 주소, u8 half-byte 수, u8 부호, u16 심볼)*   -- 8 byte 고정 크기
+ * index (파일 끝)
+ *   section마다 i64 위치, i32 크기, 문자열 이름
+ * </pre>
+ * header의 index 위치로 바로 이동하여 section 목록을 얻고, 필요한 section만 읽을 수 있다.
+ * u16/u8 필드에 들어가지 않는 개수와 길이, MAX_SIZE를 넘는 파일은 writer가 쓰지 않고 오류로 끝낸다.
+ */
+final class BinaryObjectFile {
+	static final byte[] MAGIC = { 'S', 'X', 'O', 'B' };
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 24;
+	/** u16 필드(문자열 수와 번호, D/R 개수)의 최댓값 */
+	static final int MAX_U16 = 0xFFFF;
+	/** 파일의 최대 크기. reader가 파일 전체를 한 번에 매핑하고 int 위치로 읽는다 */
+	static final long MAX_SIZE = Integer.MAX_VALUE;
+
+	private BinaryObjectFile() {
+	}
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * binary object 파일 reader. 파일을 메모리 매핑하고 header와 index만 먼저 읽는다.
+ * section 내용은 section(int)을 호출할 때 해당 위치에서 바로 읽는다.
+ */
+final class BinaryObjectReader {
+	private final MappedByteBuffer buffer;
+	private final long[] offsets;
+	private final int[] sizes;
+	private final String[] names;
+	private final HashMap<String, Integer> nameIndex = new HashMap<>();
+
+	BinaryObjectReader(String fileName) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			if (channel.size() > BinaryObjectFile.MAX_SIZE) throw new IOException("Object file too large: " + fileName);
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		ByteBuffer b = buffer.duplicate();
+		byte[] magic = new byte[4];
+		if (b.remaining() < BinaryObjectFile.HEADER_SIZE) throw new IOException("Not an object file: " + fileName);
+		b.get(magic);
+		if (!Arrays.equals(magic, BinaryObjectFile.MAGIC)) throw new IOException("Not an object file: " + fileName);
+		int version = b.getShort() & 0xFFFF;
+		if (version != BinaryObjectFile.VERSION) throw new IOException("Unsupported object file version " + version);
+		b.getShort();
+		int count = b.getInt();
+		long indexOffset = b.getLong();
+
+		offsets = new long[count];
+		sizes = new int[count];
+		names = new String[count];
+		b.position((int) indexOffset);
+		for (int i = 0; i < count; i++) {
+			offsets[i] = b.getLong();
+			sizes[i] = b.getInt();
+			names[i] = readString(b);
+			nameIndex.putIfAbsent(names[i], i);
+		}
+	}
+
+	/** 파일이 binary object 형식(magic)으로 시작하는지 확인한다. */
+	static boolean isBinary(String fileName) throws IOException {
+		Path path = Paths.get(fileName);
+		if (Files.size(path) < BinaryObjectFile.HEADER_SIZE) return false;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			while (magic.hasRemaining() && channel.read(magic) >= 0) {
+			}
+			return Arrays.equals(magic.array(), BinaryObjectFile.MAGIC);
+		}
+	}
+
+	int sectionCount() {
+		return offsets.length;
+	}
+
+	String sectionName(int i) {
+		return names[i];
+	}
+
+	/** @return 이름이 name인 첫 section의 번호. 없으면 -1 */
+	int indexOf(String name) {
+		Integer i = nameIndex.get(name);
+		return i == null ? -1 : i;
+	}
+
+	/** i번째 section을 읽는다. */
+	ObjectSection section(int i) {
+		ByteBuffer b = buffer.duplicate();
+		b.position((int) offsets[i]);
+		b.limit((int) offsets[i] + sizes[i]);
+
+		String[] strings = new String[b.getShort() & 0xFFFF];
+		for (int k = 0; k < strings.length; k++) strings[k] = readString(b);
+
+		ObjectSection sec = new ObjectSection();
+		sec.name = strings[0];
+		sec.start = b.getInt();
+		sec.length = b.getInt();
+		sec.entry = b.getInt();
+		int defs = b.getShort() & 0xFFFF;
+		for (int k = 0; k < defs; k++) {
+			String name = strings[b.getShort() & 0xFFFF];
+			sec.definitions.add(new ObjectSection.Definition(name, b.getInt()));
+		}
+		int refs = b.getShort() & 0xFFFF;
+		for (int k = 0; k < refs; k++) sec.references.add(strings[b.getShort() & 0xFFFF]);
+		int texts = b.getInt();
+		for (int k = 0; k < texts; k++) {
+			int start = b.getInt();
+			byte[] data = new byte[b.get() & 0xFF];
+			b.get(data);
+			sec.texts.add(new ObjectSection.Text(start, data));
+		}
+		int mods = b.getInt();
+		for (int k = 0; k < mods; k++) {
+			int address = b.getInt();
+			int halfBytes = b.get() & 0xFF;
+			char sign = (char) (b.get() & 0xFF);
+			sec.modifications.add(new ObjectSection.Modification(address, halfBytes, sign, strings[b.getShort() & 0xFFFF]));
+		}
+		return sec;
+	}
+
+	private static String readString(ByteBuffer b) {
+		byte[] bytes = new byte[b.get() & 0xFF];
+		b.get(bytes);
+		return new String(bytes, StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,164 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * binary object 파일 writer. section을 하나씩 추가하면 바로 파일에 쓰고,
+ * close에서 index를 파일 끝에 쓴 뒤 header를 채운다.
+ */
+final class BinaryObjectWriter implements Closeable {
+	private final FileChannel channel;
+	private long position = BinaryObjectFile.HEADER_SIZE;
+	private final List<Long> offsets = new ArrayList<>();
+	private final List<Integer> sizes = new ArrayList<>();
+	private final List<String> names = new ArrayList<>();
+
+	BinaryObjectWriter(String fileName) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		channel.position(position); // header는 close에서 채운다
+	}
+
+	/**
+	 * section 하나를 파일에 추가한다.
+	 * @throws IllegalArgumentException section이 형식의 필드 크기를 넘는 경우
+	 * @throws IOException 파일이 MAX_SIZE를 넘게 되는 경우
+	 */
+	void add(ObjectSection sec) throws IOException {
+		byte[] bytes = encode(sec);
+		checkSize(position + bytes.length);
+		offsets.add(position);
+		sizes.add(bytes.length);
+		names.add(sec.name);
+		writeFully(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * 텍스트 레코드 목록(generateSection의 결과)을 section으로 읽어 추가한다.
+	 * 출력할 내용이 없는 section(빈 목록)은 건너뛴다.
+	 */
+	void addRecords(List<String> records) throws IOException {
+		if (records.isEmpty()) return;
+		add(ObjectSection.parse(records));
+	}
+
+	int sectionCount() {
+		return offsets.size();
+	}
+
+	static byte[] encode(ObjectSection sec) throws IOException {
+		// section 안의 문자열 표
+		List<String> strings = new ArrayList<>();
+		HashMap<String, Integer> stringIndex = new HashMap<>();
+		intern(sec.name, strings, stringIndex);
+		for (ObjectSection.Definition d : sec.definitions) intern(d.name, strings, stringIndex);
+		for (String r : sec.references) intern(r, strings, stringIndex);
+		for (ObjectSection.Modification m : sec.modifications) intern(m.symbol, strings, stringIndex);
+
+		checkCount("string", strings.size(), sec);
+		checkCount("D record entry", sec.definitions.size(), sec);
+		checkCount("R record entry", sec.references.size(), sec);
+
+		ByteArrayOutputStream buf = new ByteArrayOutputStream(64 + sec.texts.size() * 40);
+		DataOutputStream out = new DataOutputStream(buf);
+		out.writeShort(strings.size());
+		for (String s : strings) writeString(out, s);
+		out.writeInt(sec.start);
+		out.writeInt(sec.length);
+		out.writeInt(sec.entry);
+		out.writeShort(sec.definitions.size());
+		for (ObjectSection.Definition d : sec.definitions) {
+			out.writeShort(stringIndex.get(d.name));
+			out.writeInt(d.address);
+		}
+		out.writeShort(sec.references.size());
+		for (String r : sec.references) out.writeShort(stringIndex.get(r));
+		out.writeInt(sec.texts.size());
+		for (ObjectSection.Text t : sec.texts) {
+			if (t.data.length > 0xFF) {
+				throw new IllegalArgumentException(String.format("T record at %06X too long for object file: %d bytes",
+						t.start, t.data.length));
+			}
+			out.writeInt(t.start);
+			out.writeByte(t.data.length);
+			out.write(t.data);
+		}
+		out.writeInt(sec.modifications.size());
+		for (ObjectSection.Modification m : sec.modifications) {
+			out.writeInt(m.address);
+			out.writeByte(m.halfBytes);
+			out.writeByte(m.sign);
+			out.writeShort(stringIndex.get(m.symbol));
+		}
+		out.flush();
+		return buf.toByteArray();
+	}
+
+	/** u16 필드에 쓸 개수가 MAX_U16 이하인지 확인한다. */
+	private static void checkCount(String what, int count, ObjectSection sec) {
+		if (count > BinaryObjectFile.MAX_U16) {
+			throw new IllegalArgumentException("Too many " + what + "s for object file in section " + sec.name
+					+ ": " + count + " (max " + BinaryObjectFile.MAX_U16 + ")");
+		}
+	}
+
+	private static void checkSize(long size) throws IOException {
+		if (size > BinaryObjectFile.MAX_SIZE) {
+			throw new IOException("Object file too large: " + size + " bytes (max " + BinaryObjectFile.MAX_SIZE + ")");
+		}
+	}
+
+	private static void intern(String s, List<String> strings, HashMap<String, Integer> index) {
+		if (index.putIfAbsent(s, strings.size()) == null) strings.add(s);
+	}
+
+	static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+		if (b.length > 0xFF) throw new IllegalArgumentException("Name too long for object file: " + s);
+		out.writeByte(b.length);
+		out.write(b);
+	}
+
+	private void writeFully(ByteBuffer buf) throws IOException {
+		while (buf.hasRemaining()) position += channel.write(buf);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			long indexOffset = position;
+			ByteArrayOutputStream buf = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(buf);
+			for (int i = 0; i < offsets.size(); i++) {
+				out.writeLong(offsets.get(i));
+				out.writeInt(sizes.get(i));
+				writeString(out, names.get(i));
+			}
+			out.flush();
+			checkSize(position + buf.size());
+			writeFully(ByteBuffer.wrap(buf.toByteArray()));
+
+			ByteBuffer header = ByteBuffer.allocate(BinaryObjectFile.HEADER_SIZE);
+			header.put(BinaryObjectFile.MAGIC);
+			header.putShort((short) BinaryObjectFile.VERSION);
+			header.putShort((short) 0);
+			header.putInt(offsets.size());
+			header.putLong(indexOffset);
+			header.putInt(0);
+			header.flip();
+			long pos = 0;
+			while (header.hasRemaining()) pos += channel.write(header, pos);
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,838 @@
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 시뮬레이터의 번역 tier. 자주 실행되는 주소에서 시작하는 basic block을 JVM bytecode로 번역하여
+ * hidden class(Lookup.defineHiddenClass)로 올린다. <br>
+ * block은 시작 주소부터 분기(J/JEQ/JGT/JLT/JSUB/RSUB)까지, 또는 번역하지 않는 명령어(실수, 입출력, DIV 등) 직전까지이다.
+ * 레지스터는 block 안에서 지역 변수로 다루고 block을 나갈 때 Simulator에 되돌려 쓴다.
+ * 자기 자신의 시작으로 돌아가는 분기는 block 안의 loop가 된다.
+ * <br><br>
+ * 번역된 코드가 있는 메모리에 쓰면(self-modifying code) 그 범위를 덮는 block을 모두 버린다.
+ * 같은 주소의 block이 MAX_INVALIDATIONS번 버려지면 그 주소는 다시 번역하지 않고 interpreter로 실행한다.
+ * block 안의 store가 번역된 코드를 건드리면 block은 그 명령어 다음 주소에서 바로 나간다.
+ */
+final class BlockTranslator {
+	/** 이만큼 실행된 주소를 block으로 번역한다 */
+	static final int DEFAULT_THRESHOLD = 64;
+	/** block 하나의 최대 명령어 수 */
+	static final int MAX_INSTRUCTIONS = 64;
+	/** block 하나의 최대 byte 수 (형식 4 명령어만으로 이루어진 경우) */
+	private static final int MAX_BLOCK_BYTES = MAX_INSTRUCTIONS * 4;
+	static final int MAX_INVALIDATIONS = 3;
+
+	// execute(Simulator, int)의 지역 변수 번호
+	private static final int SIM = 1, BUDGET = 2, MEM = 3, A = 4, X = 5, L = 6, B = 7, S = 8, T = 9, CC = 10,
+			COUNT = 11, TA = 12, EA = 13;
+	/** getRegisterNumber 번호별 지역 변수. 번역하지 않는 레지스터(F, PC, SW)는 -1 */
+	private static final int[] REGISTER_LOCALS = { A, X, L, B, S, T, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1 };
+	private static final String[] REGISTER_FIELDS = { "a", "x", "l", "b", "s", "t" };
+
+	private final Simulator sim;
+	private final int threshold;
+	private final TranslatedBlock[] blocks = new TranslatedBlock[Simulator.MEMORY_SIZE];
+	private final int[] heat = new int[Simulator.MEMORY_SIZE];
+	/** byte별로 그 byte를 덮는 번역된 block 수. 한 byte는 앞쪽 MAX_BLOCK_BYTES 안에서 시작하는 block에만 속한다 */
+	private final short[] code = new short[Simulator.MEMORY_SIZE + 6];
+	/** 시작 주소별 번역된 block의 끝 주소 */
+	private final int[] ends = new int[Simulator.MEMORY_SIZE];
+	private final HashMap<Integer, Integer> invalidations = new HashMap<>();
+	private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+	private int translatedCount;
+	private int invalidatedCount;
+
+	BlockTranslator(Simulator sim, int threshold) {
+		this.sim = sim;
+		this.threshold = Math.max(1, threshold);
+	}
+
+	/** 번역한 block 수 */
+	int translated() {
+		return translatedCount;
+	}
+
+	/** self-modifying write로 버린 block 수 */
+	int invalidated() {
+		return invalidatedCount;
+	}
+
+	/**
+	 * address에서 시작하는 block을 반환한다. 없으면 실행 횟수를 세고, threshold에 이르면 번역한다.
+	 * @return block. 아직 없거나 번역할 수 없으면 null
+	 */
+	TranslatedBlock block(int address) {
+		TranslatedBlock blk = blocks[address];
+		if (blk != null || ++heat[address] != threshold) return blk;
+		blk = translate(address);
+		if (blk == null) heat[address] = Integer.MIN_VALUE; // 번역할 수 없는 주소
+		return blk;
+	}
+
+	/**
+	 * 메모리 [address, address+length)에 쓴 것을 알린다. 번역된 코드가 있으면 그 block들을 버린다.
+	 * @return 번역된 코드를 덮어썼으면 true
+	 */
+	boolean written(int address, int length) {
+		boolean hit = false;
+		for (int i = 0; i < length; i++) hit |= code[address + i] != 0;
+		if (!hit) return false;
+		// 쓴 범위와 겹칠 수 있는 block은 그 앞 MAX_BLOCK_BYTES 안에서 시작한다
+		int end = Math.min(address + length, Simulator.MEMORY_SIZE);
+		for (int start = Math.max(0, address - MAX_BLOCK_BYTES + 1); start < end; start++) {
+			if (blocks[start] == null || ends[start] <= address) continue;
+			blocks[start] = null;
+			invalidatedCount++;
+			int times = invalidations.merge(start, 1, Integer::sum);
+			heat[start] = times >= MAX_INVALIDATIONS ? Integer.MIN_VALUE : 0;
+			for (int k = start; k < ends[start]; k++) code[k]--;
+			ends[start] = 0;
+		}
+		return true;
+	}
+
+	/** 메모리 전체가 바뀌었을 때 모든 block을 버린다. */
+	void clear() {
+		Arrays.fill(blocks, null);
+		Arrays.fill(ends, 0);
+		Arrays.fill(code, (short) 0);
+		invalidations.clear();
+		Arrays.fill(heat, 0);
+	}
+
+	/** 번역할 명령어 하나의 해석 결과 */
+	private static final class Decoded {
+		int address, next, id, op;
+		/** 형식 2의 레지스터 */
+		int r1, r2;
+		/** 형식 3/4 */
+		int ni;
+		boolean indexed, baseRelative;
+		/** baseRelative이면 disp, 아니면 target address (20 bit로 자른 값) */
+		int target;
+	}
+
+	/**
+	 * address부터 block을 찾아 번역한다.
+	 * @return block. 첫 명령어부터 번역할 수 없으면 null
+	 */
+	private TranslatedBlock translate(int address) {
+		List<Decoded> insts = new ArrayList<>();
+		int pos = address;
+		boolean terminated = false;
+		while (insts.size() < MAX_INSTRUCTIONS && pos < Simulator.MEMORY_SIZE) {
+			Decoded d = decode(pos);
+			if (d == null) break;
+			if (isJump(d.id)) {
+				// HALT J HALT는 interpreter가 멈추도록 둔다
+				if (d.id == Simulator.J && d.ni != 2 && !d.indexed && !d.baseRelative && d.target == d.address) break;
+				insts.add(d);
+				terminated = true;
+				break;
+			}
+			insts.add(d);
+			pos = d.next;
+		}
+		if (insts.isEmpty()) return null;
+		int end = insts.get(insts.size() - 1).next;
+		TranslatedBlock blk;
+		try {
+			byte[] bytes = generate(address, insts, terminated);
+			Class<?> cls = lookup.defineHiddenClass(bytes, true).lookupClass();
+			blk = (TranslatedBlock) lookup.findConstructor(cls, MethodType.methodType(void.class)).invoke();
+		} catch (Throwable e) {
+			throw new IllegalStateException(String.format("Block translation failed at %06X: %s", address, e), e);
+		}
+		blocks[address] = blk;
+		ends[address] = end;
+		for (int k = address; k < end; k++) code[k]++;
+		translatedCount++;
+		return blk;
+	}
+
+	private static boolean isJump(int id) {
+		return id == Simulator.J || id == Simulator.JEQ || id == Simulator.JGT || id == Simulator.JLT
+				|| id == Simulator.JSUB || id == Simulator.RSUB;
+	}
+
+	/**
+	 * pos의 명령어를 해석한다.
+	 * @return 번역할 수 없는 명령어이면 null
+	 */
+	private Decoded decode(int pos) {
+		byte[] m = sim.memory;
+		int op = m[pos] & 0xFF;
+		int id = sim.operation[op];
+		int fmt = sim.format[op];
+		Decoded d = new Decoded();
+		d.address = pos;
+		d.op = op;
+		d.id = id;
+		if (fmt == 2) {
+			d.r1 = (m[pos + 1] & 0xFF) >>> 4;
+			d.r2 = m[pos + 1] & 0xF;
+			d.next = pos + 2;
+			switch (id) {
+				case Simulator.ADDR: case Simulator.SUBR: case Simulator.MULR: case Simulator.COMPR: case Simulator.RMO:
+					return REGISTER_LOCALS[d.r1] >= 0 && REGISTER_LOCALS[d.r2] >= 0 ? d : null;
+				case Simulator.CLEAR: case Simulator.TIXR: case Simulator.SHIFTL: case Simulator.SHIFTR:
+					return REGISTER_LOCALS[d.r1] >= 0 ? d : null;
+				default:
+					return null;
+			}
+		}
+		if (fmt != 3) return null;
+		switch (id) {
+			case Simulator.LDA: case Simulator.LDX: case Simulator.LDL: case Simulator.LDB: case Simulator.LDS:
+			case Simulator.LDT: case Simulator.LDCH: case Simulator.STA: case Simulator.STX: case Simulator.STL:
+			case Simulator.STB: case Simulator.STS: case Simulator.STT: case Simulator.STCH: case Simulator.ADD:
+			case Simulator.SUB: case Simulator.MUL: case Simulator.AND: case Simulator.OR: case Simulator.COMP:
+			case Simulator.TIX: case Simulator.J: case Simulator.JEQ: case Simulator.JGT: case Simulator.JLT:
+			case Simulator.JSUB: case Simulator.RSUB:
+				break;
+			default:
+				return null;
+		}
+		// Simulator.run과 같은 target address 계산. B와 X는 실행할 때 더한다.
+		int b1 = m[pos + 1] & 0xFF;
+		d.ni = op & 3;
+		if (d.ni == 0) {
+			d.target = ((b1 & 0x7F) << 8) | (m[pos + 2] & 0xFF);
+			d.next = pos + 3;
+		} else if ((b1 & 0x10) != 0) {
+			d.target = ((b1 & 0xF) << 16) | ((m[pos + 2] & 0xFF) << 8) | (m[pos + 3] & 0xFF);
+			d.next = pos + 4;
+		} else {
+			int disp = ((b1 & 0xF) << 8) | (m[pos + 2] & 0xFF);
+			d.next = pos + 3;
+			if ((b1 & 0x20) != 0) d.target = d.next + ((disp << 20) >> 20);
+			else if ((b1 & 0x40) != 0) {
+				d.target = disp;
+				d.baseRelative = true;
+			} else d.target = disp;
+		}
+		d.indexed = (b1 & 0x80) != 0;
+		if (!d.baseRelative) d.target &= Simulator.ADDRESS_MASK;
+		return d;
+	}
+
+	/**
+	 * block 하나를 구현하는 class file을 만든다.
+	 * @param terminated : 마지막 명령어가 분기인지 여부. 아니면 마지막 명령어 다음 주소로 나간다.
+	 */
+	private static byte[] generate(int start, List<Decoded> insts, boolean terminated) {
+		ClassFileWriter cf = new ClassFileWriter("SicBlock", "java/lang/Object", "TranslatedBlock");
+		ClassFileWriter.Code init = cf.method(0x0001, "<init>", "()V", 1, 1);
+		init.aload(0);
+		init.invoke(0xB7, cf.methodRef("java/lang/Object", "<init>", "()V"));
+		init.op(0xB1);
+
+		int len = insts.size();
+		ClassFileWriter.Code c = cf.method(0x0001, "execute", "(LSimulator;I)I", 8, 14);
+		// budget이 모자라면 실행하지 않는다
+		ClassFileWriter.Label enter = c.label();
+		c.iload(BUDGET);
+		c.push(len);
+		c.branch(0xA2, enter); // if_icmpge
+		c.push(0);
+		c.op(0xAC);
+		c.place(enter);
+		c.aload(SIM);
+		c.getfield(cf.fieldRef("Simulator", "memory", "[B"));
+		c.astore(MEM);
+		for (int r = 0; r < REGISTER_FIELDS.length; r++) {
+			c.aload(SIM);
+			c.getfield(cf.fieldRef("Simulator", REGISTER_FIELDS[r], "I"));
+			c.istore(REGISTER_LOCALS[r]);
+		}
+		c.aload(SIM);
+		c.getfield(cf.fieldRef("Simulator", "cc", "I"));
+		c.istore(CC);
+		c.push(0);
+		c.istore(COUNT);
+		c.push(0);
+		c.istore(TA);
+		c.push(0);
+		c.istore(EA);
+		ClassFileWriter.Label top = c.label();
+		c.place(top);
+
+		BlockEmitter e = new BlockEmitter(cf, c, start, len, top);
+		for (int i = 0; i < len; i++) {
+			Decoded d = insts.get(i);
+			if (i == len - 1 && terminated) e.jump(d);
+			else e.instruction(d, i);
+		}
+		if (!terminated) e.exit(insts.get(len - 1).next, len);
+		return cf.toByteArray();
+	}
+
+	/**
+	 * 명령어별 bytecode 생성. 동작은 Simulator.run의 switch와 같다.
+	 */
+	private static final class BlockEmitter {
+		private final ClassFileWriter cf;
+		private final ClassFileWriter.Code c;
+		private final int start;
+		private final int length;
+		private final ClassFileWriter.Label top;
+		private final int word, putWord, signed, compare, codeWrite;
+
+		BlockEmitter(ClassFileWriter cf, ClassFileWriter.Code c, int start, int length, ClassFileWriter.Label top) {
+			this.cf = cf;
+			this.c = c;
+			this.start = start;
+			this.length = length;
+			this.top = top;
+			word = cf.methodRef("Simulator", "word", "([BI)I");
+			putWord = cf.methodRef("Simulator", "putWord", "([BII)V");
+			signed = cf.methodRef("Simulator", "signed", "(I)I");
+			compare = cf.methodRef("java/lang/Integer", "compare", "(II)I");
+			codeWrite = cf.methodRef("Simulator", "codeWrite", "(II)Z");
+		}
+
+		/** ta, ea 지역 변수를 계산한다 */
+		private void address(Decoded d) {
+			if (d.baseRelative) {
+				c.iload(B);
+				c.push(d.target);
+				c.op(0x60);
+			} else {
+				c.push(d.target);
+			}
+			if (d.indexed) {
+				c.iload(X);
+				c.op(0x60);
+			}
+			if (d.baseRelative || d.indexed) mask(Simulator.ADDRESS_MASK);
+			if (d.ni == 2) {
+				c.istore(TA);
+				c.aload(MEM);
+				c.iload(TA);
+				c.invoke(0xB8, word);
+			}
+			c.istore(TA);
+			c.iload(TA);
+			if (d.ni == 2) mask(Simulator.ADDRESS_MASK);
+			c.istore(EA);
+		}
+
+		/** operand 값을 stack에 올린다 (immediate이면 ta, 아니면 메모리의 word) */
+		private void value(Decoded d) {
+			if (d.ni == 1) {
+				c.iload(TA);
+			} else {
+				c.aload(MEM);
+				c.iload(EA);
+				c.invoke(0xB8, word);
+			}
+		}
+
+		private void mask(int mask) {
+			c.push(mask);
+			c.op(0x7E);
+		}
+
+		private void signed() {
+			c.invoke(0xB8, signed);
+		}
+
+		/** 분기가 아닌 명령어. index는 block 안에서의 순서 */
+		void instruction(Decoded d, int index) {
+			if (isFormat34(d)) address(d);
+			switch (d.id) {
+				case Simulator.LDA: value(d); c.istore(A); break;
+				case Simulator.LDX: value(d); c.istore(X); break;
+				case Simulator.LDL: value(d); c.istore(L); break;
+				case Simulator.LDB: value(d); c.istore(B); break;
+				case Simulator.LDS: value(d); c.istore(S); break;
+				case Simulator.LDT: value(d); c.istore(T); break;
+				case Simulator.LDCH:
+					c.iload(A);
+					mask(0xFFFF00);
+					if (d.ni == 1) {
+						c.iload(TA);
+					} else {
+						c.aload(MEM);
+						c.iload(EA);
+						c.op(0x33); // baload
+					}
+					mask(0xFF);
+					c.op(0x80);
+					c.istore(A);
+					break;
+				case Simulator.STA: store(d, index, A); break;
+				case Simulator.STX: store(d, index, X); break;
+				case Simulator.STL: store(d, index, L); break;
+				case Simulator.STB: store(d, index, B); break;
+				case Simulator.STS: store(d, index, S); break;
+				case Simulator.STT: store(d, index, T); break;
+				case Simulator.STCH:
+					c.aload(MEM);
+					c.iload(EA);
+					c.iload(A);
+					c.op(0x91); // i2b
+					c.op(0x54); // bastore
+					checkWrite(d, index, 1);
+					break;
+				case Simulator.ADD: c.iload(A); value(d); c.op(0x60); mask(Simulator.WORD_MASK); c.istore(A); break;
+				case Simulator.SUB: c.iload(A); value(d); c.op(0x64); mask(Simulator.WORD_MASK); c.istore(A); break;
+				case Simulator.MUL:
+					c.iload(A);
+					signed();
+					value(d);
+					signed();
+					c.op(0x68);
+					mask(Simulator.WORD_MASK);
+					c.istore(A);
+					break;
+				case Simulator.AND: c.iload(A); value(d); c.op(0x7E); c.istore(A); break;
+				case Simulator.OR: c.iload(A); value(d); c.op(0x80); mask(Simulator.WORD_MASK); c.istore(A); break;
+				case Simulator.COMP:
+					c.iload(A);
+					signed();
+					value(d);
+					signed();
+					c.invoke(0xB8, compare);
+					c.istore(CC);
+					break;
+				case Simulator.TIX:
+					incrementX();
+					c.iload(X);
+					signed();
+					value(d);
+					signed();
+					c.invoke(0xB8, compare);
+					c.istore(CC);
+					break;
+				default:
+					register(d);
+					break;
+			}
+		}
+
+		private static boolean isFormat34(Decoded d) {
+			switch (d.id) {
+				case Simulator.ADDR: case Simulator.SUBR: case Simulator.MULR: case Simulator.COMPR: case Simulator.RMO:
+				case Simulator.CLEAR: case Simulator.TIXR: case Simulator.SHIFTL: case Simulator.SHIFTR:
+					return false;
+				default:
+					return true;
+			}
+		}
+
+		private void incrementX() {
+			c.iload(X);
+			c.push(1);
+			c.op(0x60);
+			mask(Simulator.WORD_MASK);
+			c.istore(X);
+		}
+
+		/** 형식 2 명령어 */
+		private void register(Decoded d) {
+			int r1 = REGISTER_LOCALS[d.r1], r2 = REGISTER_LOCALS[d.r2];
+			switch (d.id) {
+				case Simulator.ADDR: c.iload(r2); c.iload(r1); c.op(0x60); mask(Simulator.WORD_MASK); c.istore(r2); break;
+				case Simulator.SUBR: c.iload(r2); c.iload(r1); c.op(0x64); mask(Simulator.WORD_MASK); c.istore(r2); break;
+				case Simulator.MULR:
+					c.iload(r2);
+					signed();
+					c.iload(r1);
+					signed();
+					c.op(0x68);
+					mask(Simulator.WORD_MASK);
+					c.istore(r2);
+					break;
+				case Simulator.COMPR:
+					c.iload(r1);
+					signed();
+					c.iload(r2);
+					signed();
+					c.invoke(0xB8, compare);
+					c.istore(CC);
+					break;
+				case Simulator.RMO: c.iload(r1); c.istore(r2); break;
+				case Simulator.CLEAR: c.push(0); c.istore(r1); break;
+				case Simulator.TIXR:
+					incrementX();
+					c.iload(X);
+					signed();
+					c.iload(r1);
+					signed();
+					c.invoke(0xB8, compare);
+					c.istore(CC);
+					break;
+				case Simulator.SHIFTL: {
+					int k = (d.r2 + 1) % 24;
+					c.iload(r1);
+					c.push(k);
+					c.op(0x78); // ishl
+					c.iload(r1);
+					c.push(24 - k);
+					c.op(0x7C); // iushr
+					c.op(0x80);
+					mask(Simulator.WORD_MASK);
+					c.istore(r1);
+					break;
+				}
+				case Simulator.SHIFTR:
+					c.iload(r1);
+					signed();
+					c.push(d.r2 + 1);
+					c.op(0x7A); // ishr
+					mask(Simulator.WORD_MASK);
+					c.istore(r1);
+					break;
+				default:
+					throw new IllegalArgumentException("not translatable: " + d.id);
+			}
+		}
+
+		private void store(Decoded d, int index, int register) {
+			c.aload(MEM);
+			c.iload(EA);
+			c.iload(register);
+			c.invoke(0xB8, putWord);
+			checkWrite(d, index, 3);
+		}
+
+		/** 번역된 코드에 썼으면 다음 명령어 주소로 block을 나간다 */
+		private void checkWrite(Decoded d, int index, int bytes) {
+			ClassFileWriter.Label skip = c.label();
+			c.aload(SIM);
+			c.iload(EA);
+			c.push(bytes);
+			c.invoke(0xB6, codeWrite);
+			c.branch(0x99, skip); // ifeq
+			exit(d.next, index + 1);
+			c.place(skip);
+		}
+
+		/** block의 마지막 분기 명령어 */
+		void jump(Decoded d) {
+			address(d);
+			// RSUB는 target이 0으로 해석되지만 L로 가므로 고정 주소 분기가 아니다
+			boolean fixed = d.id != Simulator.RSUB && d.ni != 2 && !d.indexed && !d.baseRelative;
+			boolean loop = fixed && d.id != Simulator.JSUB && d.target == start;
+			int condition; // 분기하지 않을 조건의 opcode (cc 기준)
+			switch (d.id) {
+				case Simulator.JEQ: condition = 0x9A; break; // ifne
+				case Simulator.JGT: condition = 0x9E; break; // ifle
+				case Simulator.JLT: condition = 0x9C; break; // ifge
+				default: condition = 0; break;
+			}
+			ClassFileWriter.Label fallThrough = c.label();
+			if (condition != 0) {
+				c.iload(CC);
+				c.branch(condition, fallThrough);
+			}
+			if (d.id == Simulator.JSUB) {
+				c.push(d.next);
+				c.istore(L);
+			}
+			if (d.id == Simulator.RSUB) {
+				writeBack();
+				c.aload(SIM);
+				c.iload(L);
+				exitWith(length);
+			} else if (loop) {
+				// count += length; 다음 반복을 할 budget이 있으면 처음으로
+				c.iload(COUNT);
+				c.push(length);
+				c.op(0x60);
+				c.istore(COUNT);
+				c.iload(BUDGET);
+				c.iload(COUNT);
+				c.op(0x64);
+				c.push(length);
+				c.branch(0xA2, top); // if_icmpge
+				exit(start, 0);
+			} else if (fixed) {
+				exit(d.target, length);
+			} else {
+				writeBack();
+				c.aload(SIM);
+				c.iload(TA);
+				exitWith(length);
+			}
+			if (condition != 0) {
+				c.place(fallThrough);
+				if (loop) {
+					c.iload(COUNT);
+					c.push(length);
+					c.op(0x60);
+					c.istore(COUNT);
+					exit(d.next, 0);
+				} else {
+					exit(d.next, length);
+				}
+			}
+		}
+
+		/** 레지스터를 되돌려 쓰고 pc = address로 나간다. 실행한 명령어 수는 count + executed */
+		void exit(int address, int executed) {
+			writeBack();
+			c.aload(SIM);
+			c.push(address);
+			exitWith(executed);
+		}
+
+		/** stack: sim, pc 값 */
+		private void exitWith(int executed) {
+			c.putfield(cf.fieldRef("Simulator", "pc", "I"));
+			c.iload(COUNT);
+			c.push(executed);
+			c.op(0x60);
+			c.op(0xAC); // ireturn
+		}
+
+		private void writeBack() {
+			for (int r = 0; r < REGISTER_FIELDS.length; r++) {
+				c.aload(SIM);
+				c.iload(REGISTER_LOCALS[r]);
+				c.putfield(cf.fieldRef("Simulator", REGISTER_FIELDS[r], "I"));
+			}
+			c.aload(SIM);
+			c.iload(CC);
+			c.putfield(cf.fieldRef("Simulator", "cc", "I"));
+		}
+	}
+}
+
+/**
+ * BlockTranslator가 쓰는 최소한의 class file 생성기. <br>
+ * 상수 pool, method 하나당 Code 속성만 만든다. class file 버전은 49(Java 5)로 두어
+ * StackMapTable 없이 타입 추론 검증기를 쓴다. 분기는 16 bit offset만 지원한다.
+ */
+final class ClassFileWriter {
+	private static final int VERSION = 49;
+
+	private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+	private final HashMap<String, Integer> poolIndex = new HashMap<>();
+	private int poolCount = 1;
+	private final int thisClass, superClass, interfaceClass;
+	private final List<Code> methods = new ArrayList<>();
+
+	ClassFileWriter(String name, String superName, String interfaceName) {
+		thisClass = classRef(name);
+		superClass = classRef(superName);
+		interfaceClass = classRef(interfaceName);
+	}
+
+	int utf8(String s) {
+		Integer idx = poolIndex.get("U" + s);
+		if (idx != null) return idx;
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		pool.write(1);
+		u2(pool, b.length);
+		pool.write(b, 0, b.length);
+		return add("U" + s);
+	}
+
+	int classRef(String internalName) {
+		return ref("C" + internalName, 7, utf8(internalName), -1);
+	}
+
+	int fieldRef(String owner, String name, String desc) {
+		return ref("F" + owner + "." + name + ":" + desc, 9, classRef(owner), nameAndType(name, desc));
+	}
+
+	int methodRef(String owner, String name, String desc) {
+		return ref("M" + owner + "." + name + desc, 10, classRef(owner), nameAndType(name, desc));
+	}
+
+	int integer(int v) {
+		Integer idx = poolIndex.get("I" + v);
+		if (idx != null) return idx;
+		pool.write(3);
+		u2(pool, v >>> 16);
+		u2(pool, v & 0xFFFF);
+		return add("I" + v);
+	}
+
+	private int nameAndType(String name, String desc) {
+		return ref("N" + name + ":" + desc, 12, utf8(name), utf8(desc));
+	}
+
+	private int ref(String key, int tag, int first, int second) {
+		Integer idx = poolIndex.get(key);
+		if (idx != null) return idx;
+		pool.write(tag);
+		u2(pool, first);
+		if (second >= 0) u2(pool, second);
+		return add(key);
+	}
+
+	private int add(String key) {
+		poolIndex.put(key, poolCount);
+		return poolCount++;
+	}
+
+	Code method(int access, String name, String desc, int maxStack, int maxLocals) {
+		Code c = new Code(access, utf8(name), utf8(desc), maxStack, maxLocals);
+		methods.add(c);
+		return c;
+	}
+
+	byte[] toByteArray() {
+		int codeName = utf8("Code");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		u2(out, 0xCAFE);
+		u2(out, 0xBABE);
+		u2(out, 0);
+		u2(out, VERSION);
+		u2(out, poolCount);
+		out.write(pool.toByteArray(), 0, pool.size());
+		u2(out, 0x0030); // ACC_FINAL | ACC_SUPER
+		u2(out, thisClass);
+		u2(out, superClass);
+		u2(out, 1);
+		u2(out, interfaceClass);
+		u2(out, 0); // fields
+		u2(out, methods.size());
+		for (Code c : methods) {
+			byte[] code = c.bytes();
+			u2(out, c.access);
+			u2(out, c.name);
+			u2(out, c.desc);
+			u2(out, 1);
+			u2(out, codeName);
+			int attrLength = 12 + code.length;
+			u2(out, attrLength >>> 16);
+			u2(out, attrLength & 0xFFFF);
+			u2(out, c.maxStack);
+			u2(out, c.maxLocals);
+			u2(out, code.length >>> 16);
+			u2(out, code.length & 0xFFFF);
+			out.write(code, 0, code.length);
+			u2(out, 0); // exception table
+			u2(out, 0); // attributes
+		}
+		u2(out, 0); // class attributes
+		return out.toByteArray();
+	}
+
+	private static void u2(ByteArrayOutputStream out, int v) {
+		out.write(v >>> 8);
+		out.write(v);
+	}
+
+	/** 분기 대상 */
+	static final class Label {
+		int position = -1;
+		/** 이 label을 가리키는 분기 {opcode 위치, offset 위치} */
+		final List<int[]> fixups = new ArrayList<>();
+	}
+
+	/** method 하나의 bytecode */
+	final class Code {
+		final int access, name, desc, maxStack, maxLocals;
+		private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+		private final List<Label> labels = new ArrayList<>();
+
+		Code(int access, int name, int desc, int maxStack, int maxLocals) {
+			this.access = access;
+			this.name = name;
+			this.desc = desc;
+			this.maxStack = maxStack;
+			this.maxLocals = maxLocals;
+		}
+
+		void op(int opcode) {
+			code.write(opcode);
+		}
+
+		void iload(int local) {
+			local(0x15, 0x1A, local);
+		}
+
+		void istore(int local) {
+			local(0x36, 0x3B, local);
+		}
+
+		void aload(int local) {
+			local(0x19, 0x2A, local);
+		}
+
+		void astore(int local) {
+			local(0x3A, 0x4B, local);
+		}
+
+		private void local(int opcode, int shortForm, int local) {
+			if (local <= 3) {
+				code.write(shortForm + local);
+			} else {
+				code.write(opcode);
+				code.write(local);
+			}
+		}
+
+		/** int 상수를 stack에 올린다 */
+		void push(int v) {
+			if (v >= -1 && v <= 5) {
+				code.write(0x03 + v);
+			} else if (v >= Byte.MIN_VALUE && v <= Byte.MAX_VALUE) {
+				code.write(0x10);
+				code.write(v);
+			} else if (v >= Short.MIN_VALUE && v <= Short.MAX_VALUE) {
+				code.write(0x11);
+				u2(code, v & 0xFFFF);
+			} else {
+				code.write(0x13); // ldc_w
+				u2(code, integer(v));
+			}
+		}
+
+		void getfield(int ref) {
+			code.write(0xB4);
+			u2(code, ref);
+		}
+
+		void putfield(int ref) {
+			code.write(0xB5);
+			u2(code, ref);
+		}
+
+		/** invokestatic(0xB8), invokevirtual(0xB6), invokespecial(0xB7) */
+		void invoke(int opcode, int ref) {
+			code.write(opcode);
+			u2(code, ref);
+		}
+
+		Label label() {
+			Label l = new Label();
+			labels.add(l);
+			return l;
+		}
+
+		void place(Label l) {
+			l.position = code.size();
+		}
+
+		/** 조건 분기 또는 goto(0xA7) */
+		void branch(int opcode, Label target) {
+			target.fixups.add(new int[] { code.size(), code.size() + 1 });
+			code.write(opcode);
+			u2(code, 0);
+		}
+
+		byte[] bytes() {
+			byte[] b = code.toByteArray();
+			for (Label l : labels) {
+				for (int[] f : l.fixups) {
+					int offset = l.position - f[0];
+					if (l.position < 0 || offset != (short) offset) throw new IllegalStateException("bad branch");
+					b[f[1]] = (byte) (offset >> 8);
+					b[f[1] + 1] = (byte) offset;
+				}
+			}
+			return b;
+		}
+	}
+}
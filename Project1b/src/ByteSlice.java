@@ -0,0 +1,46 @@
+import java.nio.MappedByteBuffer;
+
+/**
+ * ByteBuffer의 [start, end) 구간을 복사 없이 CharSequence로 보여주는 뷰.
+ * 각 byte는 ISO-8859-1 문자로 해석한다.
+ */
+class ByteSlice implements CharSequence {
+	private final MappedByteBuffer buffer;
+	private final int start;
+	private final int end;
+
+	ByteSlice(MappedByteBuffer buffer, int start, int end) {
+		this.buffer = buffer;
+		this.start = start;
+		this.end = end;
+	}
+
+	@Override
+	public int length() {
+		return end - start;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char) (buffer.get(start + index) & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int from, int to) {
+		return new ByteSlice(buffer, start + from, start + to);
+	}
+
+	@Override
+	public String toString() {
+		return substring(0, end - start);
+	}
+
+	/** [from, to) 구간을 중간 객체 없이 문자열로 변환 */
+	String substring(int from, int to) {
+		char[] chars = new char[to - from];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) (buffer.get(start + from + i) & 0xFF);
+		}
+		return new String(chars);
+	}
+}
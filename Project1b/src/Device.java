@@ -0,0 +1,30 @@
+/**
+ * 시뮬레이터의 입출력 장치 (TD/RD/WD)
+ */
+interface Device {
+	/** 연결되지 않은 장치: 항상 준비 상태이고 읽으면 0, 쓰면 버린다 */
+	Device NONE = new Device() {
+		@Override
+		public boolean test() {
+			return true;
+		}
+
+		@Override
+		public int read() {
+			return 0;
+		}
+
+		@Override
+		public void write(int b) {
+		}
+	};
+
+	/** TD: 장치가 준비되었으면 true */
+	boolean test();
+
+	/** RD: 한 byte를 읽는다 */
+	int read();
+
+	/** WD: 한 byte를 쓴다 */
+	void write(int b);
+}
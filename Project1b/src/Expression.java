@@ -0,0 +1,290 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * EQU/WORD/명령어 operand에 쓰이는 식을 한 번 파싱하여 후위 표기 코드로 저장한 것. <br>
+ * 지원하는 문법: 10진수 상수, 심볼, 현재 위치 '*', 이항 + - * /, 단항 + -, 괄호.
+ * 식을 평가할 때는 문자열을 다시 보지 않고 코드만 실행한다.
+ * <br><br>
+ * 각 심볼 참조에는 재배치 부호가 기록된다. 덧셈/뺄셈으로만 연결된 항은 +1/-1이고,
+ * 곱셈/나눗셈 안에 있는 항은 0(재배치 불가)이다. M 레코드는 이 부호를 그대로 사용한다.
+ */
+final class Expression {
+	/** 심볼 값을 찾을 수 없을 때 Resolver가 반환하는 값. 평가에서는 0으로 취급한다. (외부 심볼) */
+	static final int UNDEFINED = Integer.MIN_VALUE;
+
+	/** 심볼 이름을 값으로 바꾸는 함수 */
+	interface Resolver {
+		/** @return 심볼 값. 알 수 없으면 UNDEFINED */
+		int valueOf(String symbol);
+	}
+
+	private static final byte CONST = 0, SYMBOL = 1, LOCATION = 2, ADD = 3, SUB = 4, MUL = 5, DIV = 6, NEG = 7;
+
+	/** 파싱할 수 없는 EQU/WORD operand 대신 쓰는 식 (값 0) */
+	static final Expression ZERO = parse("0");
+
+	private final String text;
+	private final byte[] ops;
+	/** CONST이면 값, SYMBOL이면 symbols 인덱스 */
+	private final int[] args;
+	/** 심볼 참조 목록 (식에 나온 순서) */
+	private final String[] symbols;
+	/** 심볼 참조별 재배치 부호 (+1, -1, 0) */
+	private final byte[] signs;
+	private final int maxDepth;
+
+	private Expression(String text, byte[] ops, int[] args, String[] symbols, byte[] signs, int maxDepth) {
+		this.text = text;
+		this.ops = ops;
+		this.args = args;
+		this.symbols = symbols;
+		this.signs = signs;
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * 식을 파싱한다.
+	 * @throws IllegalArgumentException 문법에 맞지 않는 식
+	 */
+	static Expression parse(String text) {
+		return new Parser(text).parse();
+	}
+
+	/**
+	 * 식을 파싱한다. 문법에 맞지 않으면 예외 대신 null을 반환한다.
+	 */
+	static Expression tryParse(String text) {
+		try {
+			return parse(text);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 식을 평가한다. 값을 알 수 없는 심볼은 0으로 계산한다.
+	 * @param resolver : 심볼 값
+	 * @param location : '*'의 값 (식이 있는 줄의 주소)
+	 */
+	int evaluate(Resolver resolver, int location) {
+		return evaluate(resolver, location, null);
+	}
+
+	/**
+	 * 식을 평가한다. 값을 알 수 없는 심볼은 0으로 계산하고, 0으로 나누는 나눗셈은 예외 없이 0으로 계산한다.
+	 * @param resolver : 심볼 값
+	 * @param location : '*'의 값 (식이 있는 줄의 주소)
+	 * @param errors : 0으로 나누었을 때 오류 메시지를 받는 함수 (null이면 보고하지 않는다)
+	 */
+	int evaluate(Resolver resolver, int location, Consumer<String> errors) {
+		int[] stack = new int[maxDepth];
+		int sp = 0;
+		for (int pc = 0; pc < ops.length; pc++) {
+			switch (ops[pc]) {
+				case CONST: stack[sp++] = args[pc]; break;
+				case LOCATION: stack[sp++] = location; break;
+				case SYMBOL: {
+					int v = resolver.valueOf(symbols[args[pc]]);
+					stack[sp++] = v == UNDEFINED ? 0 : v;
+					break;
+				}
+				case NEG: stack[sp - 1] = -stack[sp - 1]; break;
+				case ADD: sp--; stack[sp - 1] += stack[sp]; break;
+				case SUB: sp--; stack[sp - 1] -= stack[sp]; break;
+				case MUL: sp--; stack[sp - 1] *= stack[sp]; break;
+				default: {
+					sp--;
+					if (stack[sp] != 0) {
+						stack[sp - 1] /= stack[sp];
+					} else {
+						if (errors != null) errors.accept("Invalid expression '" + text + "': division by zero");
+						stack[sp - 1] = 0;
+					}
+				}
+			}
+		}
+		return stack[0];
+	}
+
+	/** SymbolTable로 식을 평가한다. 없는 심볼은 0이다. */
+	int evaluate(SymbolTable st, int location) {
+		return evaluate(st, location, null);
+	}
+
+	/** SymbolTable로 식을 평가한다. 없는 심볼은 0이고, 0으로 나누면 errors에 보고한다. */
+	int evaluate(SymbolTable st, int location, Consumer<String> errors) {
+		return evaluate(symbol -> {
+			int v = st.searchSymbol(symbol);
+			return v < 0 ? UNDEFINED : v;
+		}, location, errors);
+	}
+
+	/** 나눗셈이 있는 식인지 여부 (심볼 값에 따라 0으로 나눌 수 있다) */
+	boolean hasDivision() {
+		for (byte op : ops) {
+			if (op == DIV) return true;
+		}
+		return false;
+	}
+
+	/** 심볼과 '*'가 없는 상수식인지 여부 */
+	boolean isConstant() {
+		for (byte op : ops) {
+			if (op == SYMBOL || op == LOCATION) return false;
+		}
+		return true;
+	}
+
+	/** 식 전체가 심볼 하나이면 그 이름, 아니면 null */
+	String singleSymbol() {
+		return ops.length == 1 && ops[0] == SYMBOL ? symbols[0] : null;
+	}
+
+	/** 심볼 참조 개수 */
+	int symbolCount() {
+		return symbols.length;
+	}
+
+	/** i번째 심볼 참조의 이름 */
+	String symbol(int i) {
+		return symbols[i];
+	}
+
+	/** i번째 심볼 참조의 재배치 부호. +1, -1, 또는 곱셈/나눗셈 안이면 0 */
+	int sign(int i) {
+		return signs[i];
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+
+	/**
+	 * 재귀 하강 파서. 코드를 만들면서 스택 깊이와 심볼별 부호를 함께 계산한다.
+	 * <pre>
+	 *   expr   := term (('+' | '-') term)*
+	 *   term   := factor (('*' | '/') factor)*
+	 *   factor := ('+' | '-') factor | number | symbol | '*' | '(' expr ')'
+	 * </pre>
+	 */
+	private static final class Parser {
+		private final String s;
+		private int pos;
+		private byte[] ops = new byte[8];
+		private int[] args = new int[8];
+		private int size;
+		private final ArrayList<String> symbols = new ArrayList<>();
+		private byte[] signs = new byte[4];
+		private int depth, maxDepth;
+
+		Parser(String s) {
+			this.s = s;
+		}
+
+		Expression parse() {
+			skipSpace();
+			if (pos == s.length()) throw error("empty expression");
+			expr(1);
+			skipSpace();
+			if (pos != s.length()) throw error("unexpected '" + s.charAt(pos) + "'");
+			return new Expression(s, Arrays.copyOf(ops, size), Arrays.copyOf(args, size),
+					symbols.toArray(new String[0]), Arrays.copyOf(signs, symbols.size()), maxDepth);
+		}
+
+		private void expr(int sign) {
+			term(sign);
+			while (true) {
+				skipSpace();
+				if (pos == s.length()) return;
+				char c = s.charAt(pos);
+				if (c != '+' && c != '-') return;
+				pos++;
+				term(c == '+' ? sign : -sign);
+				emit(c == '+' ? ADD : SUB, 0);
+			}
+		}
+
+		private void term(int sign) {
+			int firstSymbol = symbols.size();
+			factor(sign);
+			boolean scaled = false;
+			while (true) {
+				skipSpace();
+				if (pos == s.length()) break;
+				char c = s.charAt(pos);
+				if (c != '*' && c != '/') break;
+				pos++;
+				factor(sign);
+				emit(c == '*' ? MUL : DIV, 0);
+				scaled = true;
+			}
+			if (scaled) {
+				for (int i = firstSymbol; i < symbols.size(); i++) signs[i] = 0;
+			}
+		}
+
+		private void factor(int sign) {
+			skipSpace();
+			if (pos == s.length()) throw error("missing operand");
+			char c = s.charAt(pos);
+			if (c == '+' || c == '-') {
+				pos++;
+				factor(c == '+' ? sign : -sign);
+				if (c == '-') emit(NEG, 0);
+			} else if (c == '(') {
+				pos++;
+				expr(sign);
+				skipSpace();
+				if (pos == s.length() || s.charAt(pos) != ')') throw error("missing ')'");
+				pos++;
+			} else if (c == '*') {
+				pos++;
+				emit(LOCATION, 0);
+			} else if (c >= '0' && c <= '9') {
+				int start = pos;
+				while (pos < s.length() && Character.isDigit(s.charAt(pos))) pos++;
+				emit(CONST, Integer.parseInt(s.substring(start, pos)));
+			} else if (isSymbolChar(c)) {
+				int start = pos;
+				while (pos < s.length() && isSymbolChar(s.charAt(pos))) pos++;
+				if (symbols.size() == signs.length) signs = Arrays.copyOf(signs, signs.length * 2);
+				signs[symbols.size()] = (byte) sign;
+				symbols.add(s.substring(start, pos));
+				emit(SYMBOL, symbols.size() - 1);
+			} else {
+				throw error("unexpected '" + c + "'");
+			}
+		}
+
+		private void emit(byte op, int arg) {
+			if (size == ops.length) {
+				ops = Arrays.copyOf(ops, size * 2);
+				args = Arrays.copyOf(args, size * 2);
+			}
+			ops[size] = op;
+			args[size] = arg;
+			size++;
+			// 피연산자는 스택을 하나 늘리고, 이항 연산자는 하나 줄인다.
+			if (op == CONST || op == SYMBOL || op == LOCATION) {
+				maxDepth = Math.max(maxDepth, ++depth);
+			} else if (op != NEG) {
+				depth--;
+			}
+		}
+
+		private void skipSpace() {
+			while (pos < s.length() && s.charAt(pos) <= ' ') pos++;
+		}
+
+		private static boolean isSymbolChar(char c) {
+			return Character.isLetterOrDigit(c) || c == '_';
+		}
+
+		private IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("Invalid expression '" + s + "': " + message);
+		}
+	}
+}
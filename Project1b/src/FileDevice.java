@@ -0,0 +1,130 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * host 파일에 연결된 시뮬레이터 장치. <br>
+ * 큰 direct ByteBuffer를 사이에 두고 FileChannel을 읽고 쓰므로 RD/WD 한 번이 시스템 호출 한 번이 되지 않는다.
+ * 입력 장치는 버퍼가 비면 다음 구간을 한 번에 읽고, 파일 끝에서는 준비 상태로 0(레코드 끝)을 돌려준다.
+ * 출력 장치는 버퍼가 차면 한 번에 쓰고, 남은 내용은 flush/close에서 쓴다.
+ * <br><br>
+ * TD는 버퍼 상태로 답한다. 입력은 읽을 byte가 있거나 파일 끝이면, 출력은 버퍼에 자리가 있으면 준비 상태이다.
+ * 버퍼가 비었거나 찼을 때만 channel을 읽고 쓰므로 파일 장치는 항상 준비 상태가 된다.
+ */
+final class FileDevice implements Device, Closeable {
+	/** 기본 버퍼 크기 */
+	static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final boolean input;
+	private boolean eof;
+	/** 장치로 주고받은 byte 수 */
+	private long bytes;
+	/** channel read/write 호출 수 */
+	private long transfers;
+
+	private FileDevice(FileChannel channel, int bufferSize, boolean input) {
+		if (bufferSize < 1) throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.input = input;
+		if (input) buffer.flip(); // 빈 채로 시작한다
+	}
+
+	/** 파일을 읽는 입력 장치를 연다. */
+	static FileDevice input(String fileName, int bufferSize) throws IOException {
+		return new FileDevice(FileChannel.open(Paths.get(fileName), StandardOpenOption.READ), bufferSize, true);
+	}
+
+	/** 파일에 쓰는 출력 장치를 연다. (이미 있으면 덮어쓴다) */
+	static FileDevice output(String fileName, int bufferSize) throws IOException {
+		return new FileDevice(FileChannel.open(Paths.get(fileName),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), bufferSize, false);
+	}
+
+	@Override
+	public boolean test() {
+		if (input) {
+			if (!buffer.hasRemaining()) fill();
+			return buffer.hasRemaining() || eof;
+		}
+		if (!buffer.hasRemaining()) flush();
+		return buffer.hasRemaining();
+	}
+
+	@Override
+	public int read() {
+		if (!input) throw new IllegalStateException("Cannot read from an output device");
+		if (!buffer.hasRemaining() && !fill()) return 0;
+		bytes++;
+		return buffer.get() & 0xFF;
+	}
+
+	@Override
+	public void write(int b) {
+		if (input) throw new IllegalStateException("Cannot write to an input device");
+		if (!buffer.hasRemaining()) flush();
+		buffer.put((byte) b);
+		bytes++;
+	}
+
+	/**
+	 * 입력 버퍼를 다시 채운다.
+	 * @return 읽을 byte가 생겼으면 true. 파일 끝이면 false
+	 */
+	private boolean fill() {
+		if (eof) return false;
+		try {
+			buffer.clear();
+			int n;
+			do {
+				n = channel.read(buffer);
+				transfers++;
+			} while (n == 0);
+			buffer.flip();
+			if (n < 0) eof = true;
+			return buffer.hasRemaining();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** 출력 버퍼의 내용을 파일에 쓴다. */
+	void flush() {
+		if (input) return;
+		try {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+				transfers++;
+			}
+			buffer.clear();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/** 장치로 주고받은 byte 수 */
+	long bytes() {
+		return bytes;
+	}
+
+	/** FileChannel read/write 호출 수 */
+	long transfers() {
+		return transfers;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,41 @@
+/**
+ * object code 출력용 16진수 변환 헬퍼. String.format 대신 lookup table을 사용한다.
+ */
+final class Hex {
+	/** 값 v(0 ~ 15)의 16진수 한 자리는 DIGITS[v] */
+	static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+	/** byte 값 b의 16진수 두 자리는 BYTE_HEX[2b], BYTE_HEX[2b + 1] */
+	static final char[] BYTE_HEX = new char[512];
+
+	static {
+		for (int b = 0; b < 256; b++) {
+			BYTE_HEX[2 * b] = DIGITS[b >>> 4];
+			BYTE_HEX[2 * b + 1] = DIGITS[b & 0xF];
+		}
+	}
+
+	private Hex() {
+	}
+
+	/** data[off, off+len)의 각 byte를 대문자 16진수 두 자리로 sb에 붙인다. */
+	static void append(StringBuilder sb, byte[] data, int off, int len) {
+		for (int i = off; i < off + len; i++) {
+			int b = (data[i] & 0xFF) << 1;
+			sb.append(BYTE_HEX[b]).append(BYTE_HEX[b + 1]);
+		}
+	}
+
+	/** value의 하위 digits자리를 대문자 16진수로 sb에 붙인다. (%0nX와 같되 자릿수를 넘는 값은 잘린다) */
+	static void appendHex(StringBuilder sb, int value, int digits) {
+		for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+			sb.append(DIGITS[(value >>> shift) & 0xF]);
+		}
+	}
+
+	/** data[off, off+len)을 16진수 문자열로 반환한다. */
+	static String toHex(byte[] data, int off, int len) {
+		StringBuilder sb = new StringBuilder(len * 2);
+		append(sb, data, off, len);
+		return sb.toString();
+	}
+}
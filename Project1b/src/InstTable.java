@@ -1,10 +1,19 @@
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 
 
 /**
  * 모든 instruction의 정보를 관리하는 클래스. instruction data들을 저장한다. <br>
  * 또한 instruction 관련 연산, 예를 들면 목록을 구축하는 함수, 관련 정보를 제공하는 함수 등을 제공 한다.
+ * <br><br>
+ * 기본 테이블은 빌드 시 inst_table.txt로부터 생성된 InstTableData를 사용하므로 파일을 읽지 않는다.
+ * 별도의 명세 파일을 쓰려면 InstTable(String)으로 지정한다.
  */
 public class InstTable {
 	/**
@@ -13,6 +22,22 @@ public class InstTable {
 	 */
 	public HashMap<String, Instruction> instMap;
 
+	/** mnemonic/opcode 검색용 perfect hash 테이블 */
+	private OpcodeRegistry registry;
+	/** 명령어 정의의 SHA-256. digest()에서 처음 필요할 때 계산한다 */
+	private byte[] digest;
+
+	/**
+	 * 클래스 초기화. 빌드 시 생성된 기본 명령어 테이블을 사용한다.
+	 */
+	public InstTable() {
+		instMap = new HashMap<>();
+		registry = InstTableData.REGISTRY;
+		for (Instruction inst : registry.instructions()) {
+			instMap.put(inst.mnemonic, inst);
+		}
+	}
+
 	/**
 	 * 클래스 초기화. 파싱을 동시에 처리한다.
 	 * @param instFile : instuction에 대한 명세가 저장된 파일 이름
@@ -20,31 +45,69 @@ public class InstTable {
 	public InstTable(String instFile) {
 		instMap = new HashMap<>();
 		openFile(instFile);
+		registry = OpcodeRegistry.build(instMap.values());
 	}
 
 	// 주어진 mnemonic에 따라 SIC/XE 명령어 형식 길이를 반환.
 	// '+'로 시작하면 format 4, 아니면 instMap에 정의된 format 필드 반환.
 	public int getInstructionLength(String op) {
 		if (op == null || op.isEmpty()) return 0;
-		boolean extended = op.startsWith("+");
-		String key = extended ? op.substring(1) : op.toUpperCase();
-		Instruction inst = instMap.get(key);
+		boolean extended = op.charAt(0) == '+';
+		Instruction inst = registry.find(op, extended ? 1 : 0, op.length());
 		if (inst == null) return 0;
 		return extended ? 4 : inst.format;
 	}
 
 	public Instruction getInst(String mnemonic) {
-		return instMap.get(mnemonic.toUpperCase());
+		return registry.find(mnemonic, 0, mnemonic.length());
+	}
+
+	/**
+	 * s[from, to) 구간의 mnemonic에 해당하는 Instruction을 반환한다. 문자열을 새로 만들지 않는다.
+	 * @return Instruction. 없으면 null
+	 */
+	public Instruction getInst(CharSequence s, int from, int to) {
+		return registry.find(s, from, to);
+	}
+
+	/**
+	 * opcode 바이트에 해당하는 Instruction을 반환한다. 형식 3/4의 n,i 비트는 무시한다.
+	 * @return Instruction. 없으면 null
+	 */
+	public Instruction getInstByOpcode(int opcode) {
+		return registry.byOpcode(opcode);
+	}
+
+	/**
+	 * 명령어 정의(mnemonic, 형식, opcode, operand 수) 전체의 SHA-256. (SectionCache의 키에 포함)
+	 * mnemonic 순서로 계산하므로 내용이 같으면 기본 테이블인지 파일에서 읽었는지와 관계없이 같다.
+	 */
+	synchronized byte[] digest() {
+		if (digest != null) return digest;
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		Instruction[] insts = registry.instructions();
+		Arrays.sort(insts, Comparator.comparing((Instruction inst) -> inst.mnemonic.toUpperCase()));
+		for (Instruction inst : insts) {
+			md.update(inst.mnemonic.toUpperCase().getBytes());
+			md.update(new byte[] { 0, (byte) inst.format, (byte) inst.opcode, (byte) inst.operandCount });
+		}
+		digest = md.digest();
+		return digest;
 	}
 
 	/**
 	 * 입력받은 이름의 파일을 열고 해당 내용을 파싱하여 instMap에 저장한다.
+	 * classpath에서 먼저 찾고, 없으면 파일 경로로 연다.
 	 */
 	public void openFile(String fileName) {
+		InputStream in = getClass().getClassLoader().getResourceAsStream(fileName);
 		try (BufferedReader br = new BufferedReader(
-				new InputStreamReader(
-						getClass().getClassLoader().getResourceAsStream(fileName)
-				))) {
+				new InputStreamReader(in != null ? in : Files.newInputStream(Paths.get(fileName))))) {
 			String line;
 			while ((line = br.readLine()) != null) {
 				if (!line.trim().isEmpty()) {
@@ -61,28 +124,3 @@ public class InstTable {
 	//get, set, search 등의 함수는 자유 구현
 
 }
-/**
- * 명령어 하나하나의 구체적인 정보는 Instruction클래스에 담긴다.
- * instruction과 관련된 정보들을 저장하고 기초적인 연산을 수행한다.
- */
-class Instruction {
-	String mnemonic;
-	int format;
-	int opcode;
-	int operandCount;
-
-	public Instruction(String line) {
-		parsing(line);
-	}
-
-	public void parsing(String line) {
-		String[] parts = line.trim().split("\\s+");
-		if (parts.length < 3) {
-			throw new IllegalArgumentException("Invalid instruction format: " + line);
-		}
-		mnemonic = parts[0];
-		format = Integer.parseInt(parts[1]);
-		opcode = Integer.parseInt(parts[2], 16); // 16진수 파싱
-		operandCount = (parts.length >= 4) ? Integer.parseInt(parts[3]) : 0;
-	}
-}
\ No newline at end of file
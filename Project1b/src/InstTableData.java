@@ -0,0 +1,69 @@
+/**
+ * inst_table.txt로부터 InstTableGenerator가 생성한 명령어 테이블. 직접 수정하지 말 것.
+ */
+final class InstTableData {
+	static final OpcodeRegistry REGISTRY = new OpcodeRegistry(new Instruction[] {
+			new Instruction("ADD", 3, 0x18, 1),
+			new Instruction("ADDF", 3, 0x58, 1),
+			new Instruction("ADDR", 2, 0x90, 2),
+			new Instruction("AND", 3, 0x40, 1),
+			new Instruction("CLEAR", 2, 0xB4, 1),
+			new Instruction("COMP", 3, 0x28, 1),
+			new Instruction("COMPF", 3, 0x88, 1),
+			new Instruction("COMPR", 2, 0xA0, 2),
+			new Instruction("DIV", 3, 0x24, 1),
+			new Instruction("DIVF", 3, 0x64, 1),
+			new Instruction("DIVR", 2, 0x9C, 2),
+			new Instruction("FIX", 1, 0xC4, 0),
+			new Instruction("FLOAT", 1, 0xC0, 0),
+			new Instruction("HIO", 1, 0xF4, 0),
+			new Instruction("J", 3, 0x3C, 1),
+			new Instruction("JEQ", 3, 0x30, 1),
+			new Instruction("JGT", 3, 0x34, 1),
+			new Instruction("JLT", 3, 0x38, 1),
+			new Instruction("JSUB", 3, 0x48, 1),
+			new Instruction("LDA", 3, 0x00, 1),
+			new Instruction("LDB", 3, 0x68, 1),
+			new Instruction("LDCH", 3, 0x50, 1),
+			new Instruction("LDF", 3, 0x70, 1),
+			new Instruction("LDL", 3, 0x08, 1),
+			new Instruction("LDS", 3, 0x6C, 1),
+			new Instruction("LDT", 3, 0x74, 1),
+			new Instruction("LDX", 3, 0x04, 1),
+			new Instruction("LPS", 3, 0xD0, 1),
+			new Instruction("MUL", 3, 0x20, 1),
+			new Instruction("MULF", 3, 0x60, 1),
+			new Instruction("MULR", 2, 0x98, 2),
+			new Instruction("NORM", 1, 0xC8, 0),
+			new Instruction("OR", 3, 0x44, 1),
+			new Instruction("RD", 3, 0xD8, 1),
+			new Instruction("RMO", 2, 0xAC, 2),
+			new Instruction("RSUB", 3, 0x4C, 0),
+			new Instruction("SHIFTL", 2, 0xA4, 2),
+			new Instruction("SHIFTR", 2, 0xA8, 2),
+			new Instruction("SIO", 1, 0xF0, 0),
+			new Instruction("SSK", 3, 0xEC, 1),
+			new Instruction("STA", 3, 0x0C, 1),
+			new Instruction("STB", 3, 0x78, 1),
+			new Instruction("STCH", 3, 0x54, 1),
+			new Instruction("STF", 3, 0x80, 1),
+			new Instruction("STI", 3, 0xD4, 1),
+			new Instruction("STL", 3, 0x14, 1),
+			new Instruction("STS", 3, 0x7C, 1),
+			new Instruction("STSW", 3, 0xE8, 1),
+			new Instruction("STT", 3, 0x84, 1),
+			new Instruction("STX", 3, 0x10, 1),
+			new Instruction("SUB", 3, 0x1C, 1),
+			new Instruction("SUBF", 3, 0x5C, 1),
+			new Instruction("SUBR", 2, 0x94, 2),
+			new Instruction("SVC", 2, 0xB0, 1),
+			new Instruction("TD", 3, 0xE0, 1),
+			new Instruction("TIO", 1, 0xF8, 0),
+			new Instruction("TIX", 3, 0x2C, 1),
+			new Instruction("TIXR", 2, 0xB8, 1),
+			new Instruction("WD", 3, 0xDC, 1),
+	}, 747, 256);
+
+	private InstTableData() {
+	}
+}
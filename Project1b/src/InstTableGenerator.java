@@ -0,0 +1,47 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * inst_table.txt를 InstTableData.java로 변환하는 빌드용 코드 생성기. <br>
+ * inst_table.txt를 수정한 뒤에는 다음과 같이 다시 생성한다. <br>
+ * <pre>
+ *   javac *.java
+ *   java InstTableGenerator inst_table.txt InstTableData.java
+ * </pre>
+ * 생성된 클래스는 perfect hash seed를 미리 계산해 두므로 실행 시 파일 I/O와 파싱이 필요 없다.
+ */
+public class InstTableGenerator {
+
+	public static void main(String[] args) throws IOException {
+		String in = args.length > 0 ? args[0] : "inst_table.txt";
+		String out = args.length > 1 ? args[1] : "InstTableData.java";
+
+		ArrayList<Instruction> insts = new ArrayList<>();
+		for (String line : Files.readAllLines(Paths.get(in), StandardCharsets.US_ASCII)) {
+			if (!line.trim().isEmpty()) insts.add(new Instruction(line));
+		}
+		OpcodeRegistry registry = OpcodeRegistry.build(insts);
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("/**\n");
+		sb.append(" * ").append(Paths.get(in).getFileName()).append("로부터 InstTableGenerator가 생성한 명령어 테이블. 직접 수정하지 말 것.\n");
+		sb.append(" */\n");
+		sb.append("final class InstTableData {\n");
+		sb.append("\tstatic final OpcodeRegistry REGISTRY = new OpcodeRegistry(new Instruction[] {\n");
+		for (Instruction inst : insts) {
+			sb.append(String.format("\t\t\tnew Instruction(\"%s\", %d, 0x%02X, %d),%n",
+					inst.mnemonic.toUpperCase(), inst.format, inst.opcode, inst.operandCount));
+		}
+		sb.append("\t}, ").append(registry.seed()).append(", ").append(registry.size()).append(");\n\n");
+		sb.append("\tprivate InstTableData() {\n\t}\n");
+		sb.append("}\n");
+
+		try (Writer w = Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8)) {
+			w.write(sb.toString());
+		}
+		System.out.println(insts.size() + " instructions, seed " + registry.seed() + ", " + registry.size() + " slots -> " + out);
+	}
+}
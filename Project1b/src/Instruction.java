@@ -0,0 +1,32 @@
+/**
+ * 명령어 하나하나의 구체적인 정보는 Instruction클래스에 담긴다.
+ * instruction과 관련된 정보들을 저장하고 기초적인 연산을 수행한다.
+ */
+class Instruction {
+	String mnemonic;
+	int format;
+	int opcode;
+	int operandCount;
+
+	public Instruction(String line) {
+		parsing(line);
+	}
+
+	public Instruction(String mnemonic, int format, int opcode, int operandCount) {
+		this.mnemonic = mnemonic;
+		this.format = format;
+		this.opcode = opcode;
+		this.operandCount = operandCount;
+	}
+
+	public void parsing(String line) {
+		String[] parts = line.trim().split("\\s+");
+		if (parts.length < 3) {
+			throw new IllegalArgumentException("Invalid instruction format: " + line);
+		}
+		mnemonic = parts[0];
+		format = Integer.parseInt(parts[1]);
+		opcode = Integer.parseInt(parts[2], 16); // 16진수 파싱
+		operandCount = (parts.length >= 4) ? Integer.parseInt(parts[3]) : 0;
+	}
+}
@@ -0,0 +1,251 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 주소를 소스 줄로 대응시키는 debug 파일(line table)의 reader. <br>
+ * section마다 (주소 범위 → 소스 줄 번호, label) 행을 주소 순으로 두고, DWARF의 line number program처럼
+ * 이전 행과의 차이만 기록한다. 대부분의 행(주소 차이 0~62, 줄 차이 1~4)은 1 byte opcode 하나이다.
+ * <pre>
+ * header (16 byte)
+ *   magic "SXLT", u16 version, u16 0, i32 section 수, i32 0
+ * section
+ *   문자열 이름, uvarint 시작 주소, uvarint 첫 행의 offset, uvarint 행 수, program
+ * program (상태: 주소 = 시작 주소 + 첫 행의 offset, 줄 = 0, label 없음)
+ *   0x00 END_SEQUENCE  uvarint 끝 주소까지의 차이. section의 끝
+ *   0x01 SET_LABEL     문자열. 다음 행의 label
+ *   0x02 ADVANCE_ADDR  uvarint
+ *   0x03 ADVANCE_LINE  svarint (zigzag)
+ *   0x04~0xFF          special: k = opcode-4, 주소 += k/4, 줄 += 1 + k%4, 행 하나 추가
+ * </pre>
+ * 문자열은 uvarint 길이 + ASCII이다. 행의 범위는 다음 행(마지막 행은 section 끝)의 주소까지이다.
+ * 주소는 object 파일과 같은 section 기준 주소(H 레코드의 시작 주소부터)이고, 줄 번호는 input 파일의 1부터 센 줄 번호이다.
+ * <br><br>
+ * 읽을 때 section별로 행을 주소, 줄, label 번호 배열로 풀어 두고 이진 탐색(O(log n))으로 찾는다.
+ * label이 없는 행은 앞의 가장 가까운 label을 쓴다.
+ */
+public class LineTable {
+	static final byte[] MAGIC = { 'S', 'X', 'L', 'T' };
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+
+	static final int END_SEQUENCE = 0x00;
+	static final int SET_LABEL = 0x01;
+	static final int ADVANCE_ADDRESS = 0x02;
+	static final int ADVANCE_LINE = 0x03;
+	static final int OPCODE_BASE = 0x04;
+	static final int LINE_BASE = 1;
+	static final int LINE_RANGE = 4;
+
+	/** 찾은 행 */
+	static final class Entry {
+		final String section;
+		/** 행의 주소 범위 [start, end) */
+		final int start, end;
+		final int line;
+		/** 행의 label. 없으면 앞의 가장 가까운 label (section 처음부터 없으면 section 이름) */
+		final String label;
+		final int labelAddress;
+
+		Entry(String section, int start, int end, int line, String label, int labelAddress) {
+			this.section = section;
+			this.start = start;
+			this.end = end;
+			this.line = line;
+			this.label = label;
+			this.labelAddress = labelAddress;
+		}
+
+		/** label+offset 형식의 위치 */
+		String location(int address) {
+			return address == labelAddress ? label : label + "+" + Integer.toHexString(address - labelAddress).toUpperCase();
+		}
+	}
+
+	/** 풀어 둔 section 하나 */
+	private static final class Section {
+		String name;
+		int start, end;
+		int[] address;
+		int[] line;
+		/** 행에 적용되는 label의 번호 (labels, labelAddress). 없으면 -1 */
+		int[] label;
+		String[] labels;
+		int[] labelAddress;
+	}
+
+	private final List<Section> sections = new ArrayList<>();
+	private final HashMap<String, Section> byName = new HashMap<>();
+
+	/**
+	 * line table 파일을 읽는다.
+	 */
+	public LineTable(String fileName) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		byte[] magic = new byte[4];
+		if (buffer.remaining() < HEADER_SIZE) throw new IOException("Not a line table: " + fileName);
+		buffer.get(magic);
+		if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a line table: " + fileName);
+		int version = buffer.getShort() & 0xFFFF;
+		if (version != VERSION) throw new IOException("Unsupported line table version " + version);
+		buffer.getShort();
+		int count = buffer.getInt();
+		buffer.getInt();
+		for (int i = 0; i < count; i++) {
+			Section sec = decode(buffer);
+			sections.add(sec);
+			byName.putIfAbsent(sec.name, sec);
+		}
+	}
+
+	private static Section decode(ByteBuffer b) throws IOException {
+		Section sec = new Section();
+		sec.name = readString(b);
+		sec.start = (int) readUnsigned(b);
+		int first = (int) readUnsigned(b);
+		int rows = (int) readUnsigned(b);
+		sec.address = new int[rows];
+		sec.line = new int[rows];
+		sec.label = new int[rows];
+		List<String> labels = new ArrayList<>();
+		List<Integer> labelAddress = new ArrayList<>();
+		int address = sec.start + first, line = 0, current = -1, n = 0;
+		String pending = null;
+		while (true) {
+			int op = b.get() & 0xFF;
+			if (op == END_SEQUENCE) {
+				sec.end = address + (int) readUnsigned(b);
+				break;
+			} else if (op == SET_LABEL) {
+				pending = readString(b);
+			} else if (op == ADVANCE_ADDRESS) {
+				address += (int) readUnsigned(b);
+			} else if (op == ADVANCE_LINE) {
+				long v = readUnsigned(b);
+				line += (int) ((v >>> 1) ^ -(v & 1));
+			} else {
+				int k = op - OPCODE_BASE;
+				address += k / LINE_RANGE;
+				line += LINE_BASE + k % LINE_RANGE;
+				if (n == rows) throw new IOException("Corrupt line table section " + sec.name);
+				if (pending != null) {
+					current = labels.size();
+					labels.add(pending);
+					labelAddress.add(address);
+					pending = null;
+				}
+				sec.address[n] = address;
+				sec.line[n] = line;
+				sec.label[n] = current;
+				n++;
+			}
+		}
+		if (n != rows) throw new IOException("Corrupt line table section " + sec.name);
+		sec.labels = labels.toArray(new String[0]);
+		sec.labelAddress = labelAddress.stream().mapToInt(Integer::intValue).toArray();
+		return sec;
+	}
+
+	/** section 수 */
+	public int sectionCount() {
+		return sections.size();
+	}
+
+	/** 행 수 (모든 section) */
+	public int rowCount() {
+		int n = 0;
+		for (Section sec : sections) n += sec.address.length;
+		return n;
+	}
+
+	/**
+	 * section의 address를 포함하는 행을 찾는다.
+	 * @return 찾은 행. section이 없거나 address가 어느 행에도 속하지 않으면 null
+	 */
+	public Entry find(String section, int address) {
+		Section sec = byName.get(section);
+		return sec == null ? null : find(sec, address);
+	}
+
+	private static Entry find(Section sec, int address) {
+		int k = Arrays.binarySearch(sec.address, address);
+		if (k < 0) k = -k - 2; // address보다 작은 마지막 행
+		if (k < 0 || address >= sec.end) return null;
+		return entry(sec, k);
+	}
+
+	private static Entry entry(Section sec, int k) {
+		int end = k + 1 < sec.address.length ? sec.address[k + 1] : sec.end;
+		int l = sec.label[k];
+		return new Entry(sec.name, sec.address[k], end, sec.line[k], l >= 0 ? sec.labels[l] : sec.name,
+				l >= 0 ? sec.labelAddress[l] : sec.start);
+	}
+
+	static long readUnsigned(ByteBuffer b) {
+		long v = 0;
+		for (int shift = 0;; shift += 7) {
+			int x = b.get();
+			v |= (long) (x & 0x7F) << shift;
+			if (x >= 0) return v;
+		}
+	}
+
+	private static String readString(ByteBuffer b) {
+		byte[] bytes = new byte[(int) readUnsigned(b)];
+		b.get(bytes);
+		return new String(bytes, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * line table의 메인 루틴<br>
+	 * 사용법: LineTable &lt;line table 파일&gt; [&lt;section&gt; &lt;16진수 주소&gt;]...
+	 * <br>
+	 * 주소를 주면 그 주소의 줄을, 주지 않으면 모든 행을 출력한다.
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0 || args.length % 2 == 0) {
+			System.err.println("usage: LineTable <line table> [<section> <hex address>]...");
+			System.exit(2);
+		}
+		try {
+			LineTable table = new LineTable(args[0]);
+			if (args.length == 1) {
+				for (Section sec : table.sections) {
+					for (int k = 0; k < sec.address.length; k++) print(entry(sec, k), sec.address[k]);
+				}
+				return;
+			}
+			boolean missing = false;
+			for (int i = 1; i < args.length; i += 2) {
+				int address = Integer.parseInt(args[i + 1], 16);
+				Entry e = table.find(args[i], address);
+				if (e == null) {
+					System.out.printf("%-10s %06X  not found%n", args[i], address);
+					missing = true;
+				} else {
+					print(e, address);
+				}
+			}
+			if (missing) System.exit(1);
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	private static void print(Entry e, int address) {
+		System.out.printf("%-10s %06X  %06X-%06X  line %-8d %s%n", e.section, address, e.start, e.end, e.line,
+				e.location(address));
+	}
+}
@@ -0,0 +1,135 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * line table 파일 writer. 토큰을 소스 순서대로 token()으로 넘기고 section이 끝나면 endSection을 부른다.
+ * section의 program은 메모리에 모았다가 endSection에서 파일에 쓰고, close에서 header를 채운다.
+ * <br><br>
+ * 크기가 0인 토큰(EQU, EXTDEF 등)은 다음 토큰과 주소가 같으므로 행을 만들지 않는다.
+ * 그래서 각 행의 범위는 pass1의 location만으로 정해진다. START/CSECT 토큰은 넘기지 않는다.
+ * (location이 시작 주소를 정하기 전의 값이다)
+ */
+final class LineTableWriter implements Closeable {
+	private final FileChannel channel;
+	private long position = LineTable.HEADER_SIZE;
+	private int sectionCount;
+
+	private final ByteArrayOutputStream program = new ByteArrayOutputStream(1 << 16);
+	private int rows;
+	private int firstAddress = -1, lastAddress = -1, lastLine;
+	/** 아직 쓰지 않은 토큰. 다음 토큰의 주소가 더 커야 범위가 생긴다 */
+	private int pendingAddress = -1, pendingLine;
+	private String pendingLabel;
+
+	LineTableWriter(String fileName) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		channel.position(position); // header는 close에서 채운다
+	}
+
+	/**
+	 * 토큰 하나를 넘긴다. (section 기준 주소, input 파일의 줄 번호, label. label이 없으면 빈 문자열)
+	 */
+	void token(int address, int line, String label) {
+		if (pendingAddress >= 0 && address > pendingAddress) row(pendingAddress, pendingLine, pendingLabel);
+		if (pendingAddress < 0 || address >= pendingAddress) {
+			pendingAddress = address;
+			pendingLine = line;
+			pendingLabel = label;
+		}
+	}
+
+	/**
+	 * 지금까지 넘긴 토큰을 section 하나로 쓴다.
+	 * @param end : section의 끝 주소 (시작 주소 + 길이)
+	 */
+	void endSection(String name, int start, int end) throws IOException {
+		if (pendingAddress >= 0 && pendingAddress < end) row(pendingAddress, pendingLine, pendingLabel);
+		program.write(LineTable.END_SEQUENCE);
+		writeUnsigned(program, Math.max(0, end - Math.max(start, lastAddress)));
+
+		ByteArrayOutputStream header = new ByteArrayOutputStream(32);
+		writeString(header, name);
+		writeUnsigned(header, start);
+		writeUnsigned(header, rows == 0 ? 0 : Math.max(0, firstAddress - start));
+		writeUnsigned(header, rows);
+		writeFully(header.toByteArray());
+		writeFully(program.toByteArray());
+		sectionCount++;
+
+		program.reset();
+		rows = 0;
+		firstAddress = lastAddress = -1;
+		lastLine = 0;
+		pendingAddress = -1;
+	}
+
+	/** 행 하나를 program에 더한다. */
+	private void row(int address, int line, String label) {
+		if (lastAddress < 0) firstAddress = lastAddress = address; // section의 첫 행 주소는 header에 쓴다
+		if (label != null && !label.isEmpty()) {
+			program.write(LineTable.SET_LABEL);
+			writeString(program, label);
+		}
+		int addressDelta = address - lastAddress;
+		int lineDelta = line - lastLine;
+		if (lineDelta < LineTable.LINE_BASE || lineDelta >= LineTable.LINE_BASE + LineTable.LINE_RANGE) {
+			program.write(LineTable.ADVANCE_LINE);
+			int v = lineDelta - LineTable.LINE_BASE;
+			writeUnsigned(program, (v << 1) ^ (v >> 31));
+			lineDelta = LineTable.LINE_BASE;
+		}
+		int op = LineTable.OPCODE_BASE + (lineDelta - LineTable.LINE_BASE) + LineTable.LINE_RANGE * addressDelta;
+		if (addressDelta < 0 || op > 0xFF) {
+			program.write(LineTable.ADVANCE_ADDRESS);
+			writeUnsigned(program, addressDelta);
+			op = LineTable.OPCODE_BASE + (lineDelta - LineTable.LINE_BASE);
+		}
+		program.write(op);
+		lastAddress = address;
+		lastLine = line;
+		rows++;
+	}
+
+	private static void writeUnsigned(ByteArrayOutputStream out, long v) {
+		while ((v & ~0x7FL) != 0) {
+			out.write((int) (v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		out.write((int) v);
+	}
+
+	private static void writeString(ByteArrayOutputStream out, String s) {
+		byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+		writeUnsigned(out, b.length);
+		out.write(b, 0, b.length);
+	}
+
+	private void writeFully(byte[] bytes) throws IOException {
+		ByteBuffer buf = ByteBuffer.wrap(bytes);
+		while (buf.hasRemaining()) position += channel.write(buf);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			ByteBuffer header = ByteBuffer.allocate(LineTable.HEADER_SIZE);
+			header.put(LineTable.MAGIC);
+			header.putShort((short) LineTable.VERSION);
+			header.putShort((short) 0);
+			header.putInt(sectionCount);
+			header.putInt(0);
+			header.flip();
+			long pos = 0;
+			while (header.hasRemaining()) pos += channel.write(header, pos);
+		} finally {
+			channel.close();
+		}
+	}
+}
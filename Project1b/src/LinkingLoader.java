@@ -0,0 +1,282 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * object deck(텍스트 또는 binary)을 읽어 하나의 메모리 이미지로 만드는 linking loader. <br>
+ *   1) control section을 입력 순서대로 load 주소부터 이어서 배치하고 ESTAB(external symbol table)을 만든다.<br>
+ *   2) section마다 T 레코드를 메모리에 복사하고 M 레코드를 ESTAB의 주소로 적용한다.
+ * <br><br>
+ * section은 H 레코드의 길이만큼 겹치지 않게 배치되고 M 레코드는 자기 section 안만 고치므로
+ * 2단계는 section별로 병렬 처리한다. ESTAB은 section 수에 맞춰 미리 크기를 잡은 HashMap이다.
+ * 이 어셈블러의 출력대로 D/E 레코드의 주소는 H의 시작 주소를 포함한 주소로, T/M 레코드의 주소는 section 안의
+ * offset으로 보고 section의 배치 주소를 더한다.
+ */
+public class LinkingLoader {
+	/** 기본 load 주소 */
+	static final int DEFAULT_LOAD_ADDRESS = 0;
+
+	/** ESTAB의 항목 하나 */
+	static final class ExternalSymbol {
+		final String name;
+		final int address;
+		/** 정의한 control section 이름 */
+		final String section;
+
+		ExternalSymbol(String name, int address, String section) {
+			this.name = name;
+			this.address = address;
+			this.section = section;
+		}
+	}
+
+	private final int loadAddress;
+	private boolean parallel = true;
+
+	private final List<ObjectSection> sections = new ArrayList<>();
+	/** sections와 같은 순서의 배치 주소 */
+	private int[] sectionAddress = new int[0];
+	private HashMap<String, ExternalSymbol> estab = new HashMap<>();
+	private byte[] memory = new byte[0];
+	/** 실행 시작 주소. E 레코드에 주소가 없으면 load 주소 */
+	private int entryAddress;
+	private int modifications;
+	private final List<String> errors = new ArrayList<>();
+	/** 단계 이름별 소요 시간 (ns) */
+	private final LinkedHashMap<String, Long> timings = new LinkedHashMap<>();
+
+	public LinkingLoader(int loadAddress) {
+		if (loadAddress < 0) throw new IllegalArgumentException("Load address must not be negative: " + loadAddress);
+		this.loadAddress = loadAddress;
+	}
+
+	/**
+	 * section별 T/M 처리를 병렬로 할지 설정한다. (기본 true)
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	/**
+	 * object 파일들을 읽어 링크한다. (read 단계 시간도 기록한다)
+	 * @return 오류 없이 링크되면 true. 오류는 errors()로 확인한다.
+	 */
+	public boolean link(List<String> files) throws IOException {
+		long start = System.nanoTime();
+		List<ObjectDeck> decks = new ArrayList<>();
+		for (String f : files) decks.add(ObjectDeck.read(f));
+		timings.put("read", System.nanoTime() - start);
+		return link(decks.toArray(new ObjectDeck[0]));
+	}
+
+	/**
+	 * object deck들을 입력 순서대로 배치하고 메모리 이미지를 만든다.
+	 * @return 오류 없이 링크되면 true. 오류는 errors()로 확인한다.
+	 */
+	public boolean link(ObjectDeck... decks) {
+		for (ObjectDeck deck : decks) sections.addAll(deck.sections);
+
+		long start = System.nanoTime();
+		buildEstab();
+		timings.put("estab", System.nanoTime() - start);
+		if (!errors.isEmpty()) return false;
+
+		start = System.nanoTime();
+		IntStream range = IntStream.range(0, sections.size());
+		List<List<String>> sectionErrors = (parallel ? range.parallel() : range)
+				.mapToObj(this::loadSection)
+				.collect(Collectors.toList());
+		for (List<String> e : sectionErrors) errors.addAll(e);
+		timings.put("relocate", System.nanoTime() - start);
+		return errors.isEmpty();
+	}
+
+	/**
+	 * pass 1: section 배치 주소와 ESTAB을 정한다. 이름이 빈 D 항목(빈 EXTDEF operand)은 무시한다.
+	 */
+	private void buildEstab() {
+		int count = sections.size();
+		sectionAddress = new int[count];
+		estab = new HashMap<>(Math.max(16, count * 8));
+		long csaddr = loadAddress;
+		entryAddress = -1;
+		for (int i = 0; i < count; i++) {
+			ObjectSection sec = sections.get(i);
+			sectionAddress[i] = (int) csaddr;
+			define(sec.name, (int) csaddr, sec.name);
+			for (ObjectSection.Definition d : sec.definitions) {
+				if (d.name.isEmpty()) continue;
+				if (d.address < 0) {
+					errors.add("Undefined external definition " + d.name + " in " + sec.name);
+					continue;
+				}
+				define(d.name, (int) csaddr + d.address - sec.start, sec.name);
+			}
+			if (entryAddress < 0 && sec.entry >= 0) entryAddress = (int) csaddr + sec.entry - sec.start;
+			csaddr += sec.length;
+			if (csaddr > Integer.MAX_VALUE) {
+				errors.add("Program too large to load at " + Integer.toHexString(loadAddress).toUpperCase());
+				return;
+			}
+		}
+		if (entryAddress < 0) entryAddress = loadAddress;
+		memory = new byte[(int) (csaddr - loadAddress)];
+	}
+
+	private void define(String name, int address, String section) {
+		ExternalSymbol prev = estab.putIfAbsent(name, new ExternalSymbol(name, address, section));
+		if (prev != null) {
+			errors.add("Duplicate external symbol " + name + " in " + section + " (already defined in " + prev.section + ")");
+		}
+	}
+
+	/**
+	 * pass 2: section 하나의 T 레코드를 복사하고 M 레코드를 적용한다.
+	 * 다른 section의 메모리 영역은 건드리지 않으므로 여러 section을 동시에 처리할 수 있다.
+	 * @return 이 section의 오류 목록
+	 */
+	private List<String> loadSection(int index) {
+		ObjectSection sec = sections.get(index);
+		int base = sectionAddress[index] - loadAddress;
+		List<String> errs = Collections.emptyList();
+		for (ObjectSection.Text t : sec.texts) {
+			int offset = t.start;
+			if (offset < 0 || offset + t.data.length > sec.length) {
+				errs = addError(errs, String.format("T record at %06X outside section %s", t.start, sec.name));
+				continue;
+			}
+			System.arraycopy(t.data, 0, memory, base + offset, t.data.length);
+		}
+		int applied = 0;
+		for (ObjectSection.Modification m : sec.modifications) {
+			ExternalSymbol sym = estab.get(m.symbol);
+			int bytes = (m.halfBytes + 1) / 2;
+			int offset = m.address;
+			if (sym == null) {
+				errs = addError(errs, "Undefined external symbol " + m.symbol + " in " + sec.name);
+			} else if (m.halfBytes < 1 || m.halfBytes > 6 || (m.sign != '+' && m.sign != '-')) {
+				errs = addError(errs, String.format("Invalid M record %06X%02X%c%s in %s",
+						m.address, m.halfBytes, m.sign, m.symbol, sec.name));
+			} else if (offset < 0 || offset + bytes > sec.length) {
+				errs = addError(errs, String.format("M record at %06X outside section %s", m.address, sec.name));
+			} else {
+				modify(base + offset, bytes, m.halfBytes, m.sign == '+' ? sym.address : -sym.address);
+				applied++;
+			}
+		}
+		synchronized (this) {
+			modifications += applied;
+		}
+		return errs;
+	}
+
+	private static List<String> addError(List<String> errs, String error) {
+		if (errs.isEmpty()) errs = new ArrayList<>();
+		errs.add(error);
+		return errs;
+	}
+
+	/**
+	 * memory[pos, pos+bytes)의 하위 halfBytes개 half-byte에 delta를 더한다. (넘치는 자리는 버린다)
+	 */
+	private void modify(int pos, int bytes, int halfBytes, int delta) {
+		int value = 0;
+		for (int i = 0; i < bytes; i++) value = (value << 8) | (memory[pos + i] & 0xFF);
+		int mask = (1 << (4 * halfBytes)) - 1;
+		value = (value & ~mask) | ((value + delta) & mask);
+		for (int i = bytes - 1; i >= 0; i--, value >>>= 8) memory[pos + i] = (byte) value;
+	}
+
+	/**
+	 * 메모리 이미지(load 주소부터 마지막 section 끝까지)를 파일로 저장한다.
+	 */
+	public void writeImage(String fileName) throws IOException {
+		long start = System.nanoTime();
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buf = ByteBuffer.wrap(memory);
+			while (buf.hasRemaining()) channel.write(buf);
+		}
+		timings.put("write", System.nanoTime() - start);
+	}
+
+	public int loadAddress() {
+		return loadAddress;
+	}
+
+	/** load 주소부터 시작하는 메모리 이미지 */
+	public byte[] image() {
+		return memory;
+	}
+
+	public int entryAddress() {
+		return entryAddress;
+	}
+
+	/** @return ESTAB에 있는 심볼의 주소. 없으면 -1 */
+	public int symbolAddress(String name) {
+		ExternalSymbol sym = estab.get(name);
+		return sym == null ? -1 : sym.address;
+	}
+
+	public int sectionCount() {
+		return sections.size();
+	}
+
+	public int symbolCount() {
+		return estab.size();
+	}
+
+	public List<String> errors() {
+		return errors;
+	}
+
+	/**
+	 * linking loader의 메인 루틴<br>
+	 * 사용법: LinkingLoader [--address &lt;16진수&gt;] [--out &lt;이미지 파일&gt;] [--serial] &lt;object 파일&gt;...
+	 * <br>
+	 * 기본 출력은 output_memory.bin이다. 단계별 소요 시간과 요약을 출력한다.
+	 */
+	public static void main(String[] args) {
+		int address = DEFAULT_LOAD_ADDRESS;
+		String out = "output_memory.bin";
+		boolean parallel = true;
+		List<String> files = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if ("--address".equals(arg) && i + 1 < args.length) address = Integer.parseInt(args[++i], 16);
+			else if ("--out".equals(arg) && i + 1 < args.length) out = args[++i];
+			else if ("--serial".equals(arg)) parallel = false;
+			else files.add(arg);
+		}
+		if (files.isEmpty()) {
+			System.err.println("usage: LinkingLoader [--address <hex>] [--out <image>] [--serial] <object file>...");
+			System.exit(2);
+		}
+
+		try {
+			LinkingLoader loader = new LinkingLoader(address);
+			loader.setParallel(parallel);
+			boolean ok = loader.link(files);
+			if (ok) loader.writeImage(out);
+			loader.timings.forEach((stage, nanos) -> System.out.printf("%10.2f ms  %s%n", nanos / 1e6, stage));
+			for (String e : loader.errors) System.err.println("Error: " + e);
+			if (!ok) System.exit(1);
+			System.out.printf("%d sections, %d symbols, %d modifications, %d bytes at %06X, entry %06X -> %s%n",
+					loader.sectionCount(), loader.symbolCount(), loader.modifications, loader.memory.length,
+					loader.loadAddress, loader.entryAddress, out);
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -1,18 +1,28 @@
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 public class LiteralTable {
     private ArrayList<String> literalList;
     private ArrayList<Integer> locationList;
+    // 리터럴 → literalList 인덱스
+    private HashMap<String, Integer> literalIndex;
+    // 리터럴 pool 구간. i번째 pool은 [poolStart[i], poolEnd[i]) 인덱스의 리터럴로 구성된다.
+    private ArrayList<Integer> poolStart;
+    private ArrayList<Integer> poolEnd;
 
     // 생성자: 내부 리스트 초기화
     public LiteralTable() {
         this.literalList  = new ArrayList<>();
         this.locationList = new ArrayList<>();
+        this.literalIndex = new HashMap<>();
+        this.poolStart    = new ArrayList<>();
+        this.poolEnd      = new ArrayList<>();
     }
 
     // 리터럴 추가
     public void putLiteral(String literal) {
-        if (!literalList.contains(literal)) {
+        if (literalIndex.putIfAbsent(literal, literalList.size()) == null) {
             literalList.add(literal);
             locationList.add(-1);    // ★ 여기서 기본값으로 -1을 등록
         }
@@ -33,6 +43,24 @@ public class LiteralTable {
         return literalList.get(index);
     }
 
+    /**
+     * 리터럴의 인덱스 반환
+     * @return 인덱스. 등록되지 않은 리터럴이면 -1
+     */
+    public int indexOf(String literal) {
+        Integer idx = literalIndex.get(literal);
+        return idx == null ? -1 : idx;
+    }
+
+    /**
+     * 리터럴의 주소 반환
+     * @return 할당된 주소. 등록되지 않았거나 아직 주소가 없으면 -1
+     */
+    public int searchLiteral(String literal) {
+        Integer idx = literalIndex.get(literal);
+        return idx == null ? -1 : locationList.get(idx);
+    }
+
     /**
      * 인덱스에 해당하는 리터럴의 주소를 설정
      * @param index   리터럴 인덱스
@@ -49,6 +77,39 @@ public class LiteralTable {
         return locationList.get(index);
     }
 
+    /**
+     * 아직 pool에 배치되지 않은 리터럴의 첫 인덱스 반환.
+     * 이 인덱스부터 size() 직전까지가 다음 LTORG/END에서 배치될 리터럴이다.
+     */
+    public int pendingStart() {
+        return poolEnd.isEmpty() ? 0 : poolEnd.get(poolEnd.size() - 1);
+    }
+
+    /**
+     * LTORG/END에서 배치된 리터럴 pool을 기록한다.
+     * @param start pool의 첫 리터럴 인덱스
+     * @param end   pool의 마지막 리터럴 다음 인덱스
+     */
+    public void addPool(int start, int end) {
+        poolStart.add(start);
+        poolEnd.add(end);
+    }
+
+    /** 기록된 리터럴 pool 개수 반환 */
+    public int poolCount() {
+        return poolStart.size();
+    }
+
+    /** pool의 첫 리터럴 인덱스 반환 */
+    public int getPoolStart(int pool) {
+        return poolStart.get(pool);
+    }
+
+    /** pool의 마지막 리터럴 다음 인덱스 반환 */
+    public int getPoolEnd(int pool) {
+        return poolEnd.get(pool);
+    }
+
     // 포맷 출력
     @Override
     public String toString() {
@@ -63,4 +124,15 @@ public class LiteralTable {
         }
         return sb.toString();
     }
+
+    // toString()과 같은 내용을 문자열을 만들지 않고 out에 바로 쓴다
+    void write(RecordWriter out) throws IOException {
+        int count = Math.min(literalList.size(), locationList.size());
+        for (int i = 0; i < count; i++) {
+            out.writePadded(literalList.get(i), 10);
+            out.write(' ');
+            out.writeHex(locationList.get(i));
+            out.newLine();
+        }
+    }
 }
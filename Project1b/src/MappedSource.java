@@ -0,0 +1,83 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * input 파일을 메모리 매핑하여 한 줄씩 byte 구간으로 제공하는 소스. <br>
+ * loadInputFile과 같은 규칙으로 빈 줄과 '.'으로 시작하는 주석 줄을 건너뛰며,
+ * 각 줄은 앞뒤 공백을 제외한 [start, end) 구간으로만 기록한다.
+ * 문자열로 변환하는 것은 Token이 실제로 필요로 하는 필드뿐이다. (ASCII/ISO-8859-1로 해석)
+ */
+public class MappedSource {
+	private final MappedByteBuffer buffer;
+	private int[] lineStart;
+	private int[] lineEnd;
+	/** 줄의 파일 안 줄 번호 (1부터) */
+	private int[] lineNumber;
+	private int lineCount;
+
+	/**
+	 * 파일을 매핑하고 줄 구간 목록을 만든다.
+	 * @param inputFile : input 파일 이름
+	 */
+	public MappedSource(String inputFile) throws IOException {
+		try (FileChannel ch = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ)) {
+			long size = ch.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Source too large to map: " + inputFile);
+			}
+			buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		lineStart = new int[1024];
+		lineEnd = new int[1024];
+		lineNumber = new int[1024];
+		indexLines();
+	}
+
+	private void indexLines() {
+		int limit = buffer.limit();
+		int pos = 0;
+		int number = 0;
+		while (pos < limit) {
+			number++;
+			int eol = pos;
+			while (eol < limit && buffer.get(eol) != '\n') eol++;
+
+			// trim
+			int s = pos, e = eol;
+			while (s < e && (buffer.get(s) & 0xFF) <= ' ') s++;
+			while (e > s && (buffer.get(e - 1) & 0xFF) <= ' ') e--;
+
+			if (s < e && buffer.get(s) != '.') {
+				if (lineCount == lineStart.length) {
+					lineStart = Arrays.copyOf(lineStart, lineCount * 2);
+					lineEnd = Arrays.copyOf(lineEnd, lineCount * 2);
+					lineNumber = Arrays.copyOf(lineNumber, lineCount * 2);
+				}
+				lineStart[lineCount] = s;
+				lineEnd[lineCount] = e;
+				lineNumber[lineCount] = number;
+				lineCount++;
+			}
+			pos = eol + 1;
+		}
+	}
+
+	/** 유효한 줄 개수 반환 */
+	public int size() {
+		return lineCount;
+	}
+
+	/** 지정 인덱스 줄의 파일 안 줄 번호 (1부터) */
+	public int lineNumber(int index) {
+		return lineNumber[index];
+	}
+
+	/** 지정 인덱스의 줄을 매핑된 버퍼 위의 구간으로 반환 */
+	public ByteSlice line(int index) {
+		return new ByteSlice(buffer, lineStart[index], lineEnd[index]);
+	}
+}
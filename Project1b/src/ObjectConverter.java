@@ -0,0 +1,72 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * 텍스트 object deck과 binary object 파일 사이의 변환기. <br>
+ * <pre>
+ *   java ObjectConverter &lt;입력&gt; &lt;출력&gt;          입력이 텍스트이면 binary로, binary이면 텍스트로 변환
+ *   java ObjectConverter --compare &lt;a&gt; &lt;b&gt;     두 파일(형식 무관)의 내용 비교
+ * </pre>
+ * 변환은 section 단위로 읽고 써서 deck 전체를 메모리에 올리지 않는다.
+ * 비교는 공백 padding과 빈 EXTDEF/EXTREF operand를 무시하므로 output_objectcode_ex.txt와 비교할 수 있다.
+ */
+public class ObjectConverter {
+	public static void main(String[] args) {
+		try {
+			if (args.length == 3 && "--compare".equals(args[0])) {
+				String diff = ObjectDeck.read(args[1]).difference(ObjectDeck.read(args[2]));
+				if (diff == null) {
+					System.out.println("same");
+				} else {
+					System.out.println("different: " + diff);
+					System.exit(1);
+				}
+			} else if (args.length == 2) {
+				int sections = convert(args[0], args[1]);
+				System.out.printf("%d sections written to %s%n", sections, args[1]);
+			} else {
+				System.err.println("usage: ObjectConverter <input> <output> | --compare <a> <b>");
+				System.exit(2);
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * input의 형식을 보고 반대 형식으로 output에 저장한다.
+	 * @return 변환한 section 수
+	 */
+	static int convert(String input, String output) throws IOException {
+		if (BinaryObjectReader.isBinary(input)) {
+			BinaryObjectReader reader = new BinaryObjectReader(input);
+			try (RecordWriter out = new RecordWriter(output)) {
+				boolean first = true;
+				for (int i = 0; i < reader.sectionCount(); i++) {
+					for (String r : reader.section(i).toRecords()) {
+						if (!first) out.newLine();
+						out.write(r);
+						first = false;
+					}
+				}
+			}
+			return reader.sectionCount();
+		}
+		return toBinary(input, output);
+	}
+
+	/**
+	 * 텍스트 deck을 binary object 파일로 변환한다.
+	 * @return 변환한 section 수
+	 */
+	static int toBinary(String input, String output) throws IOException {
+		try (BufferedReader br = new BufferedReader(new FileReader(input));
+				BinaryObjectWriter out = new BinaryObjectWriter(output)) {
+			ObjectSection sec;
+			while ((sec = ObjectSection.read(br)) != null) out.add(sec);
+			return out.sectionCount();
+		}
+	}
+}
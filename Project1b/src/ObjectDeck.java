@@ -0,0 +1,74 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * object program(H/D/R/T/M/E 레코드) 전체를 section 목록으로 읽어들인 모델. <br>
+ * 텍스트 deck(printObjectCode의 출력)과 binary object 파일(BinaryObjectWriter) 사이의 변환과
+ * 두 deck의 내용 비교에 사용한다.
+ */
+public class ObjectDeck {
+	final List<ObjectSection> sections = new ArrayList<>();
+
+	/**
+	 * object 파일을 읽는다. 파일 앞부분이 binary 형식의 magic이면 binary로, 아니면 텍스트로 읽는다.
+	 */
+	public static ObjectDeck read(String fileName) throws IOException {
+		ObjectDeck deck = new ObjectDeck();
+		if (BinaryObjectReader.isBinary(fileName)) {
+			BinaryObjectReader reader = new BinaryObjectReader(fileName);
+			for (int i = 0; i < reader.sectionCount(); i++) {
+				deck.sections.add(reader.section(i));
+			}
+		} else {
+			try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+				ObjectSection sec;
+				while ((sec = ObjectSection.read(br)) != null) {
+					deck.sections.add(sec);
+				}
+			}
+		}
+		return deck;
+	}
+
+	/**
+	 * 텍스트 deck으로 저장한다. 출력 형식은 printObjectCode와 같다.
+	 */
+	public void writeText(String fileName) throws IOException {
+		try (RecordWriter out = new RecordWriter(fileName)) {
+			boolean first = true;
+			for (ObjectSection sec : sections) {
+				for (String r : sec.toRecords()) {
+					if (!first) out.newLine();
+					out.write(r);
+					first = false;
+				}
+			}
+		}
+	}
+
+	/** binary object 파일로 저장한다. */
+	public void writeBinary(String fileName) throws IOException {
+		try (BinaryObjectWriter out = new BinaryObjectWriter(fileName)) {
+			for (ObjectSection sec : sections) out.add(sec);
+		}
+	}
+
+	/**
+	 * 두 deck의 내용을 비교한다. 레코드 안의 공백 padding과 빈 EXTDEF/EXTREF operand는 무시한다.
+	 * @return 첫 번째 차이의 설명. 같으면 null
+	 */
+	public String difference(ObjectDeck other) {
+		int n = Math.min(sections.size(), other.sections.size());
+		for (int i = 0; i < n; i++) {
+			String diff = sections.get(i).difference(other.sections.get(i));
+			if (diff != null) return "section " + i + " (" + sections.get(i).name + "): " + diff;
+		}
+		if (sections.size() != other.sections.size()) {
+			return "section count " + sections.size() + " vs " + other.sections.size();
+		}
+		return null;
+	}
+}
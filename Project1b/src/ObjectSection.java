@@ -0,0 +1,246 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * control section 하나의 레코드 내용. <br>
+ * 텍스트 레코드를 바이트 단위 그대로 다시 만들 수 있도록 값을 보관한다.
+ * (EXTDEF의 빈 operand는 이름 ""과 주소 -1, 즉 "      FFFFFFFF"로 남는다)
+ * 심볼 이름은 SIC 규칙대로 6자 이하라고 가정하고 읽는다.
+ */
+class ObjectSection {
+	/** D 레코드의 심볼 하나 */
+	static final class Definition {
+		final String name;
+		final int address;
+
+		Definition(String name, int address) {
+			this.name = name;
+			this.address = address;
+		}
+	}
+
+	/** T 레코드 하나 */
+	static final class Text {
+		final int start;
+		final byte[] data;
+
+		Text(int start, byte[] data) {
+			this.start = start;
+			this.data = data;
+		}
+	}
+
+	/** M 레코드 하나 */
+	static final class Modification {
+		final int address;
+		/** 수정할 half-byte 수 (5 또는 6) */
+		final int halfBytes;
+		final char sign;
+		final String symbol;
+
+		Modification(int address, int halfBytes, char sign, String symbol) {
+			this.address = address;
+			this.halfBytes = halfBytes;
+			this.sign = sign;
+			this.symbol = symbol;
+		}
+	}
+
+	String name = "";
+	int start;
+	int length;
+	final List<Definition> definitions = new ArrayList<>();
+	final List<String> references = new ArrayList<>();
+	final List<Text> texts = new ArrayList<>();
+	final List<Modification> modifications = new ArrayList<>();
+	/** E 레코드의 주소. 주소 없는 "E"이면 -1 */
+	int entry = -1;
+
+	/**
+	 * 텍스트 deck에서 다음 section을 읽는다. section 사이의 빈 줄까지 읽는다.
+	 * @return 읽은 section. 더 이상 없으면 null
+	 */
+	static ObjectSection read(BufferedReader br) throws IOException {
+		List<String> records = new ArrayList<>();
+		String line;
+		while ((line = br.readLine()) != null) {
+			if (line.isEmpty()) {
+				if (records.isEmpty()) continue;
+				break;
+			}
+			records.add(line);
+		}
+		return records.isEmpty() ? null : parse(records);
+	}
+
+	/**
+	 * section 하나의 레코드(빈 줄 제외)를 읽는다.
+	 * @throws IllegalArgumentException 형식에 맞지 않는 레코드
+	 */
+	static ObjectSection parse(List<String> records) {
+		ObjectSection sec = new ObjectSection();
+		for (String r : records) {
+			if (r.isEmpty()) continue;
+			try {
+				switch (r.charAt(0)) {
+					case 'H':
+						sec.name = stripTrailing(r.substring(1, r.length() - 12));
+						sec.start = hex(r, r.length() - 12, 6);
+						sec.length = hex(r, r.length() - 6, 6);
+						break;
+					case 'D':
+						if (!parseDefinitions(r, 1, sec.definitions)) throw new IllegalArgumentException("bad D record");
+						break;
+					case 'R':
+						for (int pos = 1; pos < r.length(); pos += 6) {
+							sec.references.add(stripTrailing(r.substring(pos, Math.min(pos + 6, r.length()))));
+						}
+						break;
+					case 'T': {
+						int len = hex(r, 7, 2);
+						byte[] data = new byte[len];
+						for (int i = 0; i < len; i++) data[i] = (byte) hex(r, 9 + 2 * i, 2);
+						sec.texts.add(new Text(hex(r, 1, 6), data));
+						break;
+					}
+					case 'M':
+						sec.modifications.add(new Modification(hex(r, 1, 6), hex(r, 7, 2), r.charAt(9),
+								stripTrailing(r.substring(10))));
+						break;
+					case 'E':
+						sec.entry = r.length() > 1 ? hex(r, 1, 6) : -1;
+						break;
+					default:
+						throw new IllegalArgumentException("unknown record type");
+				}
+			} catch (IndexOutOfBoundsException e) {
+				throw new IllegalArgumentException("Invalid object record '" + r + "': too short");
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Invalid object record '" + r + "': " + e.getMessage());
+			}
+		}
+		return sec;
+	}
+
+	/**
+	 * D 레코드의 (이름 6자, 주소) 목록을 읽는다. 정의되지 않은 심볼의 주소는 %06X로 -1, 즉
+	 * 8자리 FFFFFFFF로 출력되므로 6자리와 8자리를 모두 시도한다.
+	 */
+	private static boolean parseDefinitions(String r, int pos, List<Definition> out) {
+		if (pos == r.length()) return true;
+		if (r.length() - pos < 12) return false;
+		String name = stripTrailing(r.substring(pos, pos + 6));
+		if (r.startsWith("FFFFFFFF", pos + 6)) {
+			out.add(new Definition(name, -1));
+			if (parseDefinitions(r, pos + 14, out)) return true;
+			out.remove(out.size() - 1);
+		}
+		if (!isHex(r, pos + 6, 6)) return false;
+		out.add(new Definition(name, hex(r, pos + 6, 6)));
+		if (parseDefinitions(r, pos + 12, out)) return true;
+		out.remove(out.size() - 1);
+		return false;
+	}
+
+	/**
+	 * printObjectCode와 같은 형식의 레코드 목록을 만든다. (section 구분용 빈 줄 포함)
+	 */
+	List<String> toRecords() {
+		List<String> out = new ArrayList<>();
+		out.add(String.format("H%-6s%06X%06X", name, start, length));
+		if (!definitions.isEmpty()) {
+			StringBuilder d = new StringBuilder("D");
+			for (Definition def : definitions) d.append(String.format("%-6s%06X", def.name, def.address));
+			out.add(d.toString());
+		}
+		if (!references.isEmpty()) {
+			StringBuilder r = new StringBuilder("R");
+			for (String ref : references) r.append(String.format("%-6s", ref));
+			out.add(r.toString());
+		}
+		TextRecordBuilder text = new TextRecordBuilder(TextRecordBuilder.LIMIT);
+		for (Text t : texts) out.add(text.single(t.start, t.data));
+		for (Modification m : modifications) {
+			out.add(String.format("M%06X%02X%c%s", m.address, m.halfBytes, m.sign, m.symbol));
+		}
+		out.add(entry >= 0 ? String.format("E%06X", entry) : "E");
+		out.add("");
+		return out;
+	}
+
+	/**
+	 * 다른 section과 내용을 비교한다. 빈 EXTDEF/EXTREF operand와 이름 padding은 무시한다.
+	 * @return 첫 번째 차이의 설명. 같으면 null
+	 */
+	String difference(ObjectSection o) {
+		if (!name.equals(o.name)) return "name " + name + " vs " + o.name;
+		if (start != o.start || length != o.length) {
+			return String.format("H %06X/%06X vs %06X/%06X", start, length, o.start, o.length);
+		}
+		List<String> defs = definitionStrings(), otherDefs = o.definitionStrings();
+		if (!defs.equals(otherDefs)) return "D " + defs + " vs " + otherDefs;
+		List<String> refs = nonEmpty(references), otherRefs = nonEmpty(o.references);
+		if (!refs.equals(otherRefs)) return "R " + refs + " vs " + otherRefs;
+		for (int i = 0; i < Math.min(texts.size(), o.texts.size()); i++) {
+			Text a = texts.get(i), b = o.texts.get(i);
+			if (a.start != b.start || !Arrays.equals(a.data, b.data)) {
+				return "T record " + i + " " + toRecords(a) + " vs " + toRecords(b);
+			}
+		}
+		if (texts.size() != o.texts.size()) return "T record count " + texts.size() + " vs " + o.texts.size();
+		for (int i = 0; i < Math.min(modifications.size(), o.modifications.size()); i++) {
+			Modification a = modifications.get(i), b = o.modifications.get(i);
+			if (a.address != b.address || a.halfBytes != b.halfBytes || a.sign != b.sign || !a.symbol.equals(b.symbol)) {
+				return String.format("M record %d %06X%02X%c%s vs %06X%02X%c%s", i,
+						a.address, a.halfBytes, a.sign, a.symbol, b.address, b.halfBytes, b.sign, b.symbol);
+			}
+		}
+		if (modifications.size() != o.modifications.size()) {
+			return "M record count " + modifications.size() + " vs " + o.modifications.size();
+		}
+		if (entry != o.entry) return "E " + entry + " vs " + o.entry;
+		return null;
+	}
+
+	private List<String> definitionStrings() {
+		List<String> out = new ArrayList<>();
+		for (Definition d : definitions) {
+			if (!d.name.isEmpty()) out.add(d.name + "=" + Integer.toHexString(d.address).toUpperCase());
+		}
+		return out;
+	}
+
+	private static List<String> nonEmpty(List<String> names) {
+		List<String> out = new ArrayList<>();
+		for (String s : names) {
+			if (!s.isEmpty()) out.add(s);
+		}
+		return out;
+	}
+
+	private static String toRecords(Text t) {
+		return new TextRecordBuilder(TextRecordBuilder.LIMIT).single(t.start, t.data);
+	}
+
+	private static String stripTrailing(String s) {
+		int end = s.length();
+		while (end > 0 && s.charAt(end - 1) == ' ') end--;
+		return s.substring(0, end);
+	}
+
+	private static boolean isHex(String s, int from, int digits) {
+		if (from + digits > s.length()) return false;
+		for (int i = from; i < from + digits; i++) {
+			if (Character.digit(s.charAt(i), 16) < 0) return false;
+		}
+		return true;
+	}
+
+	private static int hex(String s, int from, int digits) {
+		if (!isHex(s, from, digits)) throw new IllegalArgumentException("expected " + digits + " hex digits at " + from);
+		return Integer.parseInt(s.substring(from, from + digits), 16);
+	}
+}
@@ -0,0 +1,638 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * one-pass 어셈블러. 소스를 한 줄씩 읽으면서 바로 object code를 만들어 출력한다. <br>
+ * 아직 정의되지 않은 심볼이나 아직 pool에 배치되지 않은 리터럴을 참조하는 명령어는 임시 값으로 기록해 두고
+ * 그 심볼의 fixup 목록에 등록한다. 심볼이 정의되면 명령어를 다시 인코딩하여 그 자리를 덮어쓴다.
+ * T 레코드가 아직 buffer에 있으면 buffer를, 이미 파일에 썼으면 RecordWriter.patch로 파일을 고친다.
+ * 그래서 T 레코드는 가득 차는 즉시 내보내고, 소스와 토큰은 줄 단위로 버려진다.
+ * 메모리에 남는 것은 해결되지 않은 forward reference와 section의 symbol/literal table, M 레코드뿐이다.
+ * <br><br>
+ * 출력은 2-pass 어셈블(Assembler.assemble)과 같다. 다만 <br>
+ *  1) H 레코드의 길이와 D 레코드의 주소는 자리만 잡아 두었다가 정해지는 대로 채운다. <br>
+ *  2) EXTDEF/EXTREF는 section의 첫 명령어보다 앞에 있어야 한다. (D/R 레코드를 T 레코드보다 먼저 써야 하므로) <br>
+ *  3) BASE 값은 그 줄 이후의 명령어에만 적용된다.
+ */
+final class OnePassAssembler {
+	private final Assembler asm;
+	private final InstTable instTable;
+	private final AssemblerMetrics metrics;
+	private final SourceLexer lexer;
+
+	private RecordWriter objectOut;
+	private RecordWriter symtabOut;
+	private RecordWriter littabOut;
+	/** line table writer. 설정하지 않았으면 null */
+	private LineTableWriter lineTable;
+	/** 아직 아무 레코드도 쓰지 않았는지 여부 (레코드 사이에만 줄 구분자를 쓴다) */
+	private boolean firstRecord = true;
+
+	OnePassAssembler(Assembler asm, InstTable instTable) {
+		this.asm = asm;
+		this.instTable = instTable;
+		this.metrics = asm.getMetrics();
+		this.lexer = new SourceLexer(instTable);
+	}
+
+	/**
+	 * input 파일을 한 번 읽으면서 세 가지 출력 파일을 만든다.
+	 * symbol/literal table은 section이 끝날 때마다 해당 파일에 이어 쓴다.
+	 */
+	void assemble(String inputFile, String symtabFile, String littabFile, String objectFile) throws IOException {
+		AssemblerMetrics.Span span = metrics.begin(AssemblerMetrics.Phase.ONE_PASS, -1);
+		try (BufferedReader br = new BufferedReader(new FileReader(inputFile));
+				RecordWriter obj = new RecordWriter(objectFile);
+				RecordWriter sym = new RecordWriter(symtabFile);
+				RecordWriter lit = new RecordWriter(littabFile)) {
+			objectOut = obj;
+			symtabOut = sym;
+			littabOut = lit;
+			firstRecord = true;
+			if (asm.getLineTableFile() != null) lineTable = new LineTableWriter(asm.getLineTableFile());
+
+			Section sec = null;
+			int index = 0;
+			int lineNumber = 0;
+			String line;
+			while ((line = br.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith(".")) continue;
+				Token tok = new Token(line, lexer);
+				// CSECT 줄에서 새 section 시작 (splitSections와 같은 규칙)
+				if (sec != null && "CSECT".equals(tok.operator)) {
+					sec.finish();
+					sec = null;
+				}
+				if (sec == null) sec = new Section(index++);
+				if (sec.add(tok, lineNumber)) break;
+			}
+			if (sec != null) sec.finish();
+			if (lineTable != null) lineTable.close();
+
+			metrics.add(AssemblerMetrics.Counter.BYTES_WRITTEN,
+					obj.bytesWritten() + sym.bytesWritten() + lit.bytesWritten());
+		}
+		metrics.end(span);
+	}
+
+	/** 레코드 하나를 쓰고 그 레코드가 시작하는 파일 위치를 반환한다. */
+	private long writeRecord(CharSequence record) throws IOException {
+		if (!firstRecord) objectOut.newLine();
+		firstRecord = false;
+		long pos = objectOut.position();
+		objectOut.write(record);
+		return pos;
+	}
+
+	/**
+	 * 아직 값이 정해지지 않은 출력 위치. T 레코드가 buffer에 있는 동안은 bufOffset을,
+	 * 파일로 나간 뒤에는 filePos를 사용한다.
+	 */
+	private static final class Slot {
+		final int bufOffset;
+		long filePos = -1;
+
+		Slot(int bufOffset) {
+			this.bufOffset = bufOffset;
+		}
+	}
+
+	/**
+	 * forward reference 하나. 기다리는 심볼(또는 리터럴)이 모두 정해지면 complete에서 처리된다.
+	 */
+	private static final class Fixup {
+		/** 명령어/WORD를 다시 인코딩하여 T 레코드를 고친다. */
+		static final int CODE = 0;
+		/** EQU를 계산하여 심볼을 정의한다. */
+		static final int EQU = 1;
+		/** D 레코드의 주소를 채운다. */
+		static final int DEF = 2;
+
+		final int kind;
+		final int seq;
+		final Token token;
+		/** token의 input 파일 줄 번호 (0으로 나누는 식의 보고용) */
+		final int line;
+		/** CODE: section 기준 주소, DEF: 심볼 이름은 name */
+		final int offset;
+		final int baseReg;
+		final String name;
+		final Slot slot;
+		/** 아직 정해지지 않은 참조 수 */
+		int pending;
+		boolean done;
+
+		Fixup(int kind, int seq, Token token, int line, int offset, int baseReg, String name, Slot slot) {
+			this.kind = kind;
+			this.seq = seq;
+			this.token = token;
+			this.line = line;
+			this.offset = offset;
+			this.baseReg = baseReg;
+			this.name = name;
+			this.slot = slot;
+		}
+	}
+
+	/**
+	 * 처리 중인 section 하나의 상태
+	 */
+	private final class Section {
+		final SectionContext ctx;
+		final SymbolTable st;
+		final LiteralTable lt;
+		final AssemblerMetrics.Span span;
+		Token first;
+		int tokenCount;
+		int baseReg = -1;
+
+		/** EXTDEF/EXTREF operand (D/R 레코드에 나오는 순서, 중복 포함) */
+		final List<String> extDefs = new ArrayList<>();
+		final List<String> extRefs = new ArrayList<>();
+		final Set<String> extDefSet = new LinkedHashSet<>();
+		final Set<String> extRefSet = new LinkedHashSet<>();
+		boolean hasContent;
+		boolean headerWritten;
+		/** H 레코드의 길이 필드 위치 */
+		long lengthPos;
+
+		final TextRecordBuilder text = new TextRecordBuilder(asm.getMaxTextRecordLength());
+		final ByteBuffer code = ByteBuffer.allocate(Assembler.MAX_RECORD_BYTES);
+		/** 아직 내보내지 않은 T 레코드의 명령어 중 fixup이 걸린 것 */
+		final List<Slot> openSlots = new ArrayList<>();
+		/** 이미 출력한 literal pool 수 */
+		int pool;
+		final List<String> mRecs = new ArrayList<>();
+		int tRecords;
+
+		/** 심볼 이름 또는 리터럴 → 그것을 기다리는 fixup */
+		final HashMap<String, List<Fixup>> fixups = new HashMap<>();
+		/** 정해졌지만 아직 fixup 목록을 처리하지 않은 이름 */
+		final ArrayDeque<String> ready = new ArrayDeque<>();
+		boolean draining;
+		int fixupSeq;
+		/** EQU label (소스 순서)과 그중 EQU로 정의된 이름 */
+		final List<String> equNames = new ArrayList<>();
+		final Set<String> equDefined = new HashSet<>();
+
+		Section(int index) {
+			ctx = new SectionContext(index, instTable);
+			st = ctx.symbols;
+			lt = ctx.literals;
+			span = metrics.begin(AssemblerMetrics.Phase.ONE_PASS, index);
+		}
+
+		/**
+		 * 토큰 하나를 처리한다. pass1Section과 generateSection이 토큰마다 하는 일을 한 번에 수행한다.
+		 * @param line : input 파일의 줄 번호 (line table용)
+		 * @return END이면 true
+		 */
+		boolean add(Token tok, int line) throws IOException {
+			tokenCount++;
+			if (first == null) first = tok;
+			tok.location = ctx.locctr;
+
+			if ("START".equals(tok.operator)) {
+				ctx.name = tok.label.isEmpty() ? "NONAME" : tok.label;
+				ctx.locctr = (tok.operand.length > 0 && !tok.operand[0].isEmpty())
+						? Integer.parseInt(tok.operand[0], 16)
+						: 0;
+				ctx.startAddr = ctx.locctr;
+				if (!tok.label.isEmpty()) define(tok.label, ctx.locctr, false);
+				return false;
+			} else if ("CSECT".equals(tok.operator)) {
+				ctx.name = !tok.label.isEmpty() ? tok.label : "NONAME";
+				ctx.locctr = 0;
+				if (!tok.label.isEmpty()) define(tok.label, ctx.locctr, false);
+				return false;
+			}
+
+			if (tok.operand.length > 0 && tok.operand[0].startsWith("=")) {
+				lt.putLiteral(tok.operand[0]);
+			}
+
+			String mnemonic = tok.operator.startsWith("+") ? tok.operator.substring(1) : tok.operator;
+			Assembler.checkExpression(tok, mnemonic, line);
+			if (!"EQU".equals(mnemonic) && !tok.label.isEmpty()) {
+				define(tok.label, ctx.locctr, false);
+			}
+			if (lineTable != null) lineTable.token(tok.location, line, "EQU".equals(mnemonic) ? "" : tok.label);
+
+			switch (mnemonic) {
+				case "EQU":
+					equ(tok, line);
+					return false;
+				case "EXTDEF":
+				case "EXTREF":
+					if (headerWritten) {
+						throw new IllegalStateException(mnemonic + " after the first instruction is not supported in one-pass mode");
+					}
+					for (String sym : tok.operand) {
+						if ("EXTDEF".equals(mnemonic)) {
+							extDefs.add(sym);
+							extDefSet.add(sym);
+						} else {
+							extRefs.add(sym);
+							extRefSet.add(sym);
+						}
+					}
+					hasContent = true;
+					return false;
+				case "LTORG":
+					placeLiterals();
+					if (!text.isEmpty()) flushText();
+					if (pool < lt.poolCount()) emitLiteralPool(pool++);
+					return false;
+				case "END":
+					placeLiterals();
+					if (hasContent) {
+						writeHeader();
+						// 남은 리터럴을 마지막 T 레코드에 이어 붙여 flush
+						if (pool < lt.poolCount()) {
+							for (int idx = lt.getPoolStart(pool); idx < lt.getPoolEnd(pool); idx++) {
+								byte[] data = asm.literalToBytes(lt.getLiteral(idx));
+								textRecordDone(text.add(data, 0, data.length, lt.getLocation(idx) - ctx.startAddr));
+							}
+							pool++;
+						}
+						flushText();
+					}
+					return true;
+				default:
+			}
+
+			int offset = ctx.locctr - ctx.startAddr;
+			ctx.locctr += asm.tokenSize(tok, mnemonic);
+			if ("BASE".equalsIgnoreCase(tok.operator) && baseReg == -1) {
+				baseReg = st.getSymbol(tok.operand[0]);
+			}
+			if (!asm.isTextRecordable(tok)) return false;
+			hasContent = true;
+			writeHeader();
+			emit(tok, offset, line);
+			return false;
+		}
+
+		/**
+		 * 명령어의 object code를 T 레코드에 넣는다. 참조가 아직 정해지지 않았으면 fixup을 등록한다.
+		 */
+		private void emit(Token tok, int offset, int line) throws IOException {
+			code.clear();
+			int objLen = asm.encodeObjectCode(tok, offset, st, lt, baseReg, code);
+			if (objLen == 0) return;
+
+			textRecordDone(text.add(code.array(), 0, objLen, offset));
+
+			List<String> deps = unresolved(tok);
+			if (!deps.isEmpty()) {
+				Slot slot = new Slot(text.length() - objLen);
+				openSlots.add(slot);
+				await(new Fixup(Fixup.CODE, fixupSeq++, tok, line, offset, baseReg, null, slot), deps);
+			} else {
+				checkDivision(tok, offset, line);
+			}
+
+			mRecs.addAll(asm.generateModificationRecords(tok, offset, extDefSet, extRefSet));
+		}
+
+		/**
+		 * WORD 식이 0으로 나누면 줄 번호와 함께 보고한다. (encodeObjectCode는 그 나눗셈을 0으로 계산한다)
+		 * 참조하는 심볼이 모두 정해진 뒤에 호출한다.
+		 */
+		private void checkDivision(Token tok, int offset, int line) {
+			Expression expr = tok.expression();
+			if ("WORD".equals(tok.operator) && expr != null && expr.hasDivision()) {
+				expr.evaluate(st, offset, Assembler.reportAt(line));
+			}
+		}
+
+		/**
+		 * 명령어가 참조하는 것 중 아직 값이 정해지지 않은 심볼/리터럴 목록.
+		 * EXTREF 심볼은 끝까지 0이므로 정해진 것으로 본다.
+		 */
+		private List<String> unresolved(Token tok) {
+			String mnemonic = tok.operator.startsWith("+") ? tok.operator.substring(1) : tok.operator;
+			Instruction inst = instTable.getInst(mnemonic);
+			boolean symbolic = "WORD".equalsIgnoreCase(mnemonic)
+					|| (inst != null && inst.operandCount > 0 && (inst.format >= 3 || tok.operator.startsWith("+")));
+			if (!symbolic) return Collections.emptyList();
+
+			String op = tok.operand[0];
+			List<String> deps = new ArrayList<>(1);
+			if (op.startsWith("=")) {
+				int idx = lt.indexOf(op);
+				if (idx >= 0 && lt.getLocation(idx) < 0) deps.add(op);
+				return deps;
+			}
+			Expression expr = tok.expression();
+			if (expr == null) {
+				String sym = op.startsWith("#") || op.startsWith("@") ? op.substring(1) : op;
+				if (!isKnown(sym)) deps.add(sym);
+				return deps;
+			}
+			for (int k = 0; k < expr.symbolCount(); k++) {
+				String sym = expr.symbol(k);
+				if (!isKnown(sym) && !deps.contains(sym)) deps.add(sym);
+			}
+			return deps;
+		}
+
+		private boolean isKnown(String sym) {
+			return extRefSet.contains(sym) || st.searchSymbol(sym) >= 0;
+		}
+
+		/**
+		 * EQU를 처리한다. 참조하는 심볼이 모두 정해져 있으면 바로 정의하고, 아니면 fixup으로 미룬다.
+		 */
+		private void equ(Token tok, int line) throws IOException {
+			equNames.add(tok.label);
+			Expression expr = tok.expression();
+			if (expr == null) expr = Expression.ZERO; // add에서 오류로 보고됨
+			List<String> deps = new ArrayList<>(1);
+			for (int k = 0; k < expr.symbolCount(); k++) {
+				String sym = expr.symbol(k);
+				if (!isKnown(sym) && !deps.contains(sym)) deps.add(sym);
+			}
+			if (deps.isEmpty()) {
+				define(tok.label, expr.evaluate(st, tok.location, Assembler.reportAt(line)), true);
+			} else {
+				await(new Fixup(Fixup.EQU, fixupSeq++, tok, line, tok.location, baseReg, null, null), deps);
+			}
+		}
+
+		private void await(Fixup f, List<String> deps) {
+			f.pending = deps.size();
+			for (String dep : deps) {
+				fixups.computeIfAbsent(dep, k -> new ArrayList<>(2)).add(f);
+			}
+		}
+
+		/**
+		 * 심볼을 정의하고 그 심볼을 기다리던 fixup을 처리한다. 이미 있는 이름이면 무시한다. (putSymbol과 같은 규칙)
+		 */
+		private void define(String name, int value, boolean equ) throws IOException {
+			int before = st.size();
+			st.putSymbol(name, value);
+			if (st.size() == before) return;
+			if (equ) equDefined.add(name);
+			release(name);
+		}
+
+		/**
+		 * name을 기다리던 fixup들의 대기 수를 줄이고, 모두 정해진 fixup을 처리한다.
+		 * EQU 연쇄가 길어도 재귀하지 않도록 정해진 이름을 큐에 넣어 차례로 처리한다.
+		 */
+		private void release(String name) throws IOException {
+			ready.add(name);
+			if (draining) return;
+			draining = true;
+			try {
+				String key;
+				while ((key = ready.poll()) != null) {
+					List<Fixup> list = fixups.remove(key);
+					if (list == null) continue;
+					for (Fixup f : list) {
+						if (!f.done && --f.pending == 0) complete(f);
+					}
+				}
+			} finally {
+				draining = false;
+			}
+		}
+
+		private void complete(Fixup f) throws IOException {
+			f.done = true;
+			switch (f.kind) {
+				case Fixup.CODE: {
+					code.clear();
+					int len = asm.encodeObjectCode(f.token, f.offset, st, lt, f.baseReg, code);
+					if (f.slot.filePos < 0) {
+						text.patch(f.slot.bufOffset, code.array(), 0, len);
+					} else {
+						objectOut.patch(f.slot.filePos, Hex.toHex(code.array(), 0, len));
+					}
+					checkDivision(f.token, f.offset, f.line);
+					break;
+				}
+				case Fixup.EQU: {
+					Expression expr = f.token.expression();
+					if (expr == null) expr = Expression.ZERO;
+					define(f.token.label, expr.evaluate(st, f.offset, Assembler.reportAt(f.line)), true);
+					break;
+				}
+				default:
+					objectOut.patch(f.slot.filePos, hex6(st.searchSymbol(f.name)));
+			}
+		}
+
+		/** 방금 배치된 literal pool의 리터럴을 기다리던 fixup을 처리한다. */
+		private void placeLiterals() throws IOException {
+			asm.processLiteralPool(ctx);
+			int p = lt.poolCount() - 1;
+			for (int idx = lt.getPoolStart(p); idx < lt.getPoolEnd(p); idx++) {
+				release(lt.getLiteral(idx));
+			}
+		}
+
+		/**
+		 * H/D/R 레코드를 쓴다. section 길이와 아직 정의되지 않은 EXTDEF 심볼의 주소는 자리만 잡아 둔다.
+		 */
+		private void writeHeader() throws IOException {
+			if (headerWritten) return;
+			headerWritten = true;
+
+			String progName = !first.label.isEmpty() ? first.label : ctx.name;
+			String h = String.format("H%-6s%06X", progName, ctx.startAddr);
+			lengthPos = writeRecord(h + "000000") + h.length();
+
+			if (!extDefs.isEmpty()) {
+				StringBuilder d = new StringBuilder("D");
+				List<Fixup> later = new ArrayList<>();
+				for (String sym : extDefs) {
+					d.append(String.format("%-6s", sym));
+					int addr = sym.isEmpty() ? -1 : st.getSymbol(sym);
+					if (addr >= 0 || sym.isEmpty()) {
+						d.append(String.format("%06X", addr));
+					} else {
+						later.add(new Fixup(Fixup.DEF, fixupSeq++, null, 0, 0, baseReg, sym, new Slot(d.length())));
+						d.append("000000");
+					}
+				}
+				long pos = writeRecord(d);
+				for (Fixup f : later) {
+					f.slot.filePos = pos + f.slot.bufOffset;
+					await(f, Collections.singletonList(f.name));
+				}
+			}
+			if (!extRefs.isEmpty()) {
+				StringBuilder r = new StringBuilder("R");
+				for (String sym : extRefs) r.append(String.format("%-6s", sym));
+				writeRecord(r);
+			}
+		}
+
+		/** 현재 T 레코드를 내보낸다. */
+		private void flushText() throws IOException {
+			textRecordDone(text.flush());
+		}
+
+		/**
+		 * TextRecordBuilder가 끝낸 레코드를 쓴다. 걸려 있던 fixup은 이제 파일 위치로 고친다.
+		 * @param record : 끝난 레코드. null이면 아무 일도 하지 않는다.
+		 */
+		private void textRecordDone(String record) throws IOException {
+			if (record == null) return;
+			long pos = writeRecord(record);
+			for (Slot slot : openSlots) slot.filePos = pos + TextRecordBuilder.HEADER_LENGTH + 2L * slot.bufOffset;
+			openSlots.clear();
+			tRecords++;
+		}
+
+		private void emitLiteralPool(int p) throws IOException {
+			for (int idx = lt.getPoolStart(p); idx < lt.getPoolEnd(p); idx++) {
+				if (!headerWritten) writeHeader();
+				writeRecord(text.single(lt.getLocation(idx) - ctx.startAddr, asm.literalToBytes(lt.getLiteral(idx))));
+				tRecords++;
+			}
+		}
+
+		/**
+		 * section을 끝낸다. 끝까지 정의되지 않은 참조를 없는 심볼(0)로 처리한 뒤
+		 * 남은 T/M/E 레코드를 쓰고, H 레코드의 길이를 채우고, symbol/literal table을 출력한다.
+		 */
+		void finish() throws IOException {
+			ctx.length = ctx.locctr - ctx.startAddr;
+			if (lineTable != null) lineTable.endSection(ctx.name, ctx.startAddr, ctx.locctr);
+			if (hasContent) writeHeader();
+			resolveRemaining();
+
+			if (hasContent) {
+				if (!text.isEmpty()) flushText();
+				while (pool < lt.poolCount()) emitLiteralPool(pool++);
+				for (String m : mRecs) writeRecord(m);
+				if (ctx.index == 0) {
+					writeRecord(String.format("E%06X", ctx.startAddr));
+				} else {
+					writeRecord("E");
+				}
+				writeRecord("");
+				objectOut.patch(lengthPos, hex6(ctx.length));
+			}
+
+			outputSymbolTable().write(symtabOut);
+			symtabOut.newLine();
+			lt.write(littabOut);
+
+			metrics.add(AssemblerMetrics.Counter.SECTIONS, 1);
+			metrics.add(AssemblerMetrics.Counter.TOKENS, tokenCount);
+			metrics.add(AssemblerMetrics.Counter.SYMBOLS, st.size());
+			metrics.add(AssemblerMetrics.Counter.SYMBOL_LOOKUPS, st.lookupCount());
+			metrics.add(AssemblerMetrics.Counter.SYMBOL_MISSES, st.missCount());
+			metrics.add(AssemblerMetrics.Counter.LITERALS, lt.size());
+			metrics.add(AssemblerMetrics.Counter.LITERAL_POOLS, lt.poolCount());
+			metrics.add(AssemblerMetrics.Counter.T_RECORDS, tRecords);
+			metrics.add(AssemblerMetrics.Counter.M_RECORDS, mRecs.size());
+			metrics.end(span);
+		}
+
+		/**
+		 * section 끝까지 남은 fixup을 처리한다. <br>
+		 * 먼저 EQU가 아닌 미정의 심볼(외부 심볼, 오타 등)과 배치되지 않은 리터럴을 없는 것으로 확정하면
+		 * 그것에 의존하던 EQU들이 의존 순서대로 풀린다. 그래도 남는 것은 순환 EQU이므로 소스 순서대로 계산한다.
+		 */
+		private void resolveRemaining() throws IOException {
+			if (fixups.isEmpty()) return;
+			HashMap<String, Fixup> pendingEqu = new HashMap<>();
+			for (List<Fixup> list : fixups.values()) {
+				for (Fixup f : list) {
+					if (!f.done && f.kind == Fixup.EQU) pendingEqu.putIfAbsent(f.token.label, f);
+				}
+			}
+			for (String key : new ArrayList<>(fixups.keySet())) {
+				if (!pendingEqu.containsKey(key)) release(key);
+			}
+
+			List<Fixup> rest = new ArrayList<>();
+			Set<Fixup> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (List<Fixup> list : fixups.values()) {
+				for (Fixup f : list) {
+					if (!f.done && seen.add(f)) rest.add(f);
+				}
+			}
+			rest.sort(Comparator.comparingInt(f -> f.seq));
+			for (Fixup f : rest) {
+				if (!f.done && f.kind == Fixup.EQU) forceEqu(f, pendingEqu);
+			}
+			for (Fixup f : rest) {
+				if (!f.done) complete(f);
+			}
+			fixups.clear();
+		}
+
+		/**
+		 * 순환에 걸린 EQU를 resolveEquates와 같은 깊이 우선 순서로 계산한다. 순환을 이루는 참조는 0이 된다.
+		 */
+		private void forceEqu(Fixup root, HashMap<String, Fixup> pendingEqu) throws IOException {
+			ArrayDeque<Fixup> stack = new ArrayDeque<>();
+			IdentityHashMap<Fixup, Integer> next = new IdentityHashMap<>();
+			stack.push(root);
+			next.put(root, 0);
+			while (!stack.isEmpty()) {
+				Fixup f = stack.peek();
+				Expression expr = f.token.expression();
+				if (expr == null) expr = Expression.ZERO;
+				int k = next.get(f);
+				if (k < expr.symbolCount()) {
+					next.put(f, k + 1);
+					Fixup g = pendingEqu.get(expr.symbol(k));
+					if (g == null || g.done) continue;
+					if (next.containsKey(g)) {
+						System.err.println("Circular EQU definition: " + f.token.label + " -> " + g.token.label);
+						continue;
+					}
+					stack.push(g);
+					next.put(g, 0);
+					continue;
+				}
+				stack.pop();
+				if (!f.done) complete(f);
+			}
+		}
+
+		/**
+		 * 출력용 symbol table. 2-pass와 같이 label을 나온 순서대로 쓰고 EQU 심볼은 EQU 순서대로 뒤에 붙인다.
+		 */
+		private SymbolTable outputSymbolTable() {
+			if (equDefined.isEmpty()) return st;
+			SymbolTable out = new SymbolTable();
+			for (int i = 0; i < st.size(); i++) {
+				String name = st.getSymbolName(i);
+				if (!equDefined.contains(name)) out.putSymbol(name, st.getLocation(i));
+			}
+			for (String name : equNames) {
+				if (equDefined.contains(name)) out.putSymbol(name, st.searchSymbol(name));
+			}
+			return out;
+		}
+	}
+
+	private static String hex6(int value) {
+		StringBuilder sb = new StringBuilder(6);
+		Hex.appendHex(sb, value, 6);
+		return sb.toString();
+	}
+}
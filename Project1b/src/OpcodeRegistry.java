@@ -0,0 +1,126 @@
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * mnemonic → Instruction 검색을 위한 불변 perfect hash 테이블. <br>
+ * 모든 mnemonic이 서로 다른 slot에 배치되도록 seed를 골라두므로 검색은 해시 한 번과 문자 비교 한 번으로 끝난다.
+ * 검색 시 대소문자를 구분하지 않으며, 문자열을 새로 만들지 않는다(toUpperCase, substring 없음). <br>
+ * 또한 opcode(1바이트) → Instruction 역방향 배열을 함께 제공한다.
+ * 형식 3/4 명령어의 n,i 비트(하위 2비트)는 무시되도록 네 값 모두에 같은 Instruction을 등록한다.
+ */
+final class OpcodeRegistry {
+	private final Instruction[] slots;
+	private final int seed;
+	private final int mask;
+	private final Instruction[] byOpcode;
+
+	/**
+	 * 미리 계산된 seed로 테이블을 구성한다. InstTableGenerator가 생성한 코드에서 사용한다.
+	 * @param insts : 등록할 명령어 목록
+	 * @param seed  : 충돌이 없는 것으로 확인된 해시 seed
+	 * @param size  : slot 개수 (2의 거듭제곱)
+	 */
+	OpcodeRegistry(Instruction[] insts, int seed, int size) {
+		this.seed = seed;
+		this.mask = size - 1;
+		this.slots = new Instruction[size];
+		this.byOpcode = new Instruction[256];
+		for (Instruction inst : insts) {
+			int s = slot(hash(inst.mnemonic, 0, inst.mnemonic.length(), seed), mask);
+			if (slots[s] != null) {
+				throw new IllegalArgumentException("Opcode table seed collides: " + inst.mnemonic);
+			}
+			slots[s] = inst;
+			for (int ni = 0; ni < 4; ni++) {
+				int op = (inst.opcode & 0xFC) | ni;
+				if (byOpcode[op] == null || (inst.opcode & 0xFF) == op) byOpcode[op] = inst;
+			}
+		}
+	}
+
+	/**
+	 * 명령어 목록에 대해 충돌 없는 seed를 찾아 테이블을 구성한다. (생성기 및 사용자 지정 inst 파일용)
+	 * 같은 mnemonic(대소문자 무시)이 두 번 있으면 어떤 seed로도 충돌을 피할 수 없으므로 바로 실패한다.
+	 * @throws IllegalArgumentException 중복된 mnemonic이 있는 경우
+	 */
+	static OpcodeRegistry build(Collection<Instruction> insts) {
+		Instruction[] arr = insts.toArray(new Instruction[0]);
+		HashSet<String> seen = new HashSet<>();
+		for (Instruction inst : arr) {
+			if (!seen.add(inst.mnemonic.toUpperCase())) {
+				throw new IllegalArgumentException("Duplicate mnemonic in opcode table: " + inst.mnemonic);
+			}
+		}
+		int size = Integer.highestOneBit(Math.max(arr.length, 1)) * 4;
+		while (true) {
+			for (int seed = 1; seed < 1 << 16; seed += 2) {
+				if (isPerfect(arr, seed, size)) return new OpcodeRegistry(arr, seed, size);
+			}
+			size *= 2;
+		}
+	}
+
+	static boolean isPerfect(Instruction[] insts, int seed, int size) {
+		boolean[] used = new boolean[size];
+		for (Instruction inst : insts) {
+			int s = slot(hash(inst.mnemonic, 0, inst.mnemonic.length(), seed), size - 1);
+			if (used[s]) return false;
+			used[s] = true;
+		}
+		return true;
+	}
+
+	static int hash(CharSequence s, int from, int to, int seed) {
+		int h = 0;
+		for (int i = from; i < to; i++) {
+			h = h * seed + upper(s.charAt(i));
+		}
+		return h;
+	}
+
+	private static int slot(int h, int mask) {
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	private static char upper(char c) {
+		return (c >= 'a' && c <= 'z') ? (char) (c - 32) : c;
+	}
+
+	/**
+	 * s[from, to) 구간의 mnemonic에 해당하는 Instruction을 반환한다.
+	 * @return Instruction. 없으면 null
+	 */
+	Instruction find(CharSequence s, int from, int to) {
+		Instruction inst = slots[slot(hash(s, from, to, seed), mask)];
+		if (inst == null) return null;
+		String m = inst.mnemonic;
+		if (m.length() != to - from) return null;
+		for (int i = 0; i < m.length(); i++) {
+			if (upper(m.charAt(i)) != upper(s.charAt(from + i))) return null;
+		}
+		return inst;
+	}
+
+	/** opcode 바이트에 해당하는 Instruction을 반환한다. 없으면 null */
+	Instruction byOpcode(int opcode) {
+		return byOpcode[opcode & 0xFF];
+	}
+
+	/** 등록된 Instruction 목록 (slot 순서) */
+	Instruction[] instructions() {
+		int n = 0;
+		for (Instruction inst : slots) if (inst != null) n++;
+		Instruction[] out = new Instruction[n];
+		n = 0;
+		for (Instruction inst : slots) if (inst != null) out[n++] = inst;
+		return out;
+	}
+
+	int seed() {
+		return seed;
+	}
+
+	int size() {
+		return slots.length;
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * 메모리 안의 pipe 장치. 고정 크기 ring buffer 하나를 두고 한쪽은 시뮬레이터 프로그램(RD 또는 WD),
+ * 다른 쪽은 host(offer 또는 poll)가 쓴다. <br>
+ * 입력 pipe는 host가 offer로 넣고 프로그램이 RD로 읽는다. 읽을 byte가 있거나 host가 close했으면 준비 상태이고,
+ * close된 뒤 비어 있으면 0을 읽는다. <br>
+ * 출력 pipe는 프로그램이 WD로 쓰고 host가 poll로 꺼낸다. 자리가 있으면 준비 상태이다.
+ * 준비되지 않은 pipe에 RD/WD를 하면 IllegalStateException이 난다. (TD로 확인하지 않은 것)
+ */
+final class PipeDevice implements Device {
+	private final byte[] ring;
+	private final boolean input;
+	private int head;
+	private int size;
+	private boolean closed;
+
+	PipeDevice(int capacity, boolean input) {
+		if (capacity < 1) throw new IllegalArgumentException("Pipe capacity must be positive: " + capacity);
+		this.ring = new byte[capacity];
+		this.input = input;
+	}
+
+	@Override
+	public boolean test() {
+		return input ? size > 0 || closed : size < ring.length;
+	}
+
+	@Override
+	public int read() {
+		if (!input) throw new IllegalStateException("Cannot read from an output pipe");
+		if (size == 0) {
+			if (closed) return 0;
+			throw new IllegalStateException("Read from an empty pipe");
+		}
+		int b = ring[head] & 0xFF;
+		head = (head + 1) % ring.length;
+		size--;
+		return b;
+	}
+
+	@Override
+	public void write(int b) {
+		if (input) throw new IllegalStateException("Cannot write to an input pipe");
+		if (size == ring.length) throw new IllegalStateException("Write to a full pipe");
+		ring[(head + size) % ring.length] = (byte) b;
+		size++;
+	}
+
+	/**
+	 * host 쪽에서 data[offset, offset+length)를 넣는다. (입력 pipe)
+	 * @return 넣은 byte 수. 자리가 모자라면 length보다 작다
+	 */
+	int offer(byte[] data, int offset, int length) {
+		if (closed) throw new IllegalStateException("Pipe is closed");
+		int n = Math.min(length, ring.length - size);
+		int tail = (head + size) % ring.length;
+		int first = Math.min(n, ring.length - tail);
+		System.arraycopy(data, offset, ring, tail, first);
+		System.arraycopy(data, offset + first, ring, 0, n - first);
+		size += n;
+		return n;
+	}
+
+	/**
+	 * host 쪽에서 최대 length byte를 꺼내 data[offset, ...)에 담는다. (출력 pipe)
+	 * @return 꺼낸 byte 수
+	 */
+	int poll(byte[] data, int offset, int length) {
+		int n = Math.min(length, size);
+		int first = Math.min(n, ring.length - head);
+		System.arraycopy(ring, head, data, offset, first);
+		System.arraycopy(ring, 0, data, offset + first, n - first);
+		head = (head + n) % ring.length;
+		size -= n;
+		return n;
+	}
+
+	/** 입력의 끝을 알린다. 남은 byte를 다 읽으면 RD는 0을 돌려준다. */
+	void close() {
+		closed = true;
+	}
+
+	/** pipe에 남아 있는 byte 수 */
+	int available() {
+		return size;
+	}
+}
@@ -0,0 +1,352 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 시뮬레이터 실행 프로파일러. <br>
+ * 주소별 실행 횟수와 모델 cycle 수를 1 MB 메모리와 같은 크기의 long 배열에 센다. Simulator.run이 명령어마다
+ * countdown을 줄이고 0이 되면 sample을 부르므로, 모든 명령어를 셀 때(interval 1)도 객체를 만들지 않는다.
+ * interval이 1보다 크면 평균 interval개마다 하나를 임의 간격으로 세고(loop 길이와 맞물리지 않도록), 보고서에서 interval을 곱한다.
+ * <br><br>
+ * cycle 모델은 실제 하드웨어가 아닌 줄끼리 비교하기 위한 값이다.
+ *   명령어 byte 수(형식 1~4) + 메모리 operand 접근 1(실수는 2) + indirect 1 + 연산별 추가(곱셈 3, 나눗셈 6, 실수 2~8, 입출력 4)
+ * <br><br>
+ * 보고서는 pass1의 토큰 위치(Token.location)로 주소를 section, label, 소스 줄에 대응시켜 cycle 순으로 정렬한다.
+ */
+public class Profiler {
+	/** 주소별 실행 횟수 (sampling이면 sample 수) */
+	final long[] executions = new long[Simulator.MEMORY_SIZE];
+	/** 주소별 모델 cycle 수 (sampling이면 sample의 합) */
+	final long[] cycles = new long[Simulator.MEMORY_SIZE];
+	/** Simulator.run이 명령어마다 줄이는 값. 0이 되면 sample을 부른다 */
+	int countdown;
+
+	/** opcode byte별 cycle 수 (형식 4의 추가 byte 제외) */
+	private final byte[] cost = new byte[256];
+	private final byte[] format;
+	private final int interval;
+	private int seed = 0x2545F491;
+	private long samples;
+
+	/**
+	 * @param interval : 평균 sample 간격 (명령어 수). 1이면 모든 명령어를 센다.
+	 */
+	public Profiler(Simulator sim, int interval) {
+		if (interval < 1) throw new IllegalArgumentException("Sampling interval must be positive: " + interval);
+		this.interval = interval;
+		this.format = sim.format;
+		for (int op = 0; op < 256; op++) cost[op] = (byte) cost(sim.operation[op], sim.format[op], op & 3);
+		countdown = next();
+	}
+
+	/** 모델 cycle 수 */
+	private static int cost(int id, int fmt, int ni) {
+		if (fmt == 0) return 1;
+		int c = fmt;
+		if (fmt == 3) {
+			if (ni == 2) c++;
+			switch (id) {
+				case Simulator.J: case Simulator.JEQ: case Simulator.JGT: case Simulator.JLT: case Simulator.JSUB:
+				case Simulator.RSUB:
+					break;
+				case Simulator.LDF: case Simulator.STF: case Simulator.ADDF: case Simulator.SUBF: case Simulator.MULF:
+				case Simulator.DIVF: case Simulator.COMPF:
+					c += 2;
+					break;
+				default:
+					if (ni != 1) c++;
+					break;
+			}
+		}
+		switch (id) {
+			case Simulator.MUL: case Simulator.MULR: c += 3; break;
+			case Simulator.DIV: case Simulator.DIVR: c += 6; break;
+			case Simulator.ADDF: case Simulator.SUBF: case Simulator.COMPF: c += 2; break;
+			case Simulator.MULF: c += 4; break;
+			case Simulator.DIVF: c += 8; break;
+			case Simulator.FIX: case Simulator.FLOAT: case Simulator.NORM: c += 1; break;
+			case Simulator.TD: case Simulator.RD: case Simulator.WD: c += 4; break;
+			default: break;
+		}
+		return c;
+	}
+
+	/** 다음 sample까지의 명령어 수. interval이 1보다 크면 1 ~ 2*interval-1 사이의 임의 값 */
+	private int next() {
+		if (interval == 1) return 1;
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return 1 + (seed & 0x7FFFFFFF) % (2 * interval - 1);
+	}
+
+	/** address의 명령어 하나를 센다. (Simulator.run에서 호출) */
+	void sample(byte[] m, int address) {
+		int op = m[address] & 0xFF;
+		int c = cost[op];
+		if (format[op] == 3 && (op & 3) != 0 && (m[address + 1] & 0x10) != 0) c++;
+		executions[address]++;
+		cycles[address] += c;
+		samples++;
+		countdown = next();
+	}
+
+	/** 센 명령어 수 */
+	long samples() {
+		return samples;
+	}
+
+	/** 평균 sample 간격 */
+	int interval() {
+		return interval;
+	}
+
+	/** 카운터를 모두 0으로 되돌린다. */
+	public void clear() {
+		Arrays.fill(executions, 0);
+		Arrays.fill(cycles, 0);
+		samples = 0;
+		countdown = next();
+	}
+
+	/**
+	 * 주소를 소스 줄에 대응시키는 표. pass1의 토큰마다 링크된 주소 범위, section, label, 소스를 둔다.
+	 * 주소 순으로 정렬하여 이진 탐색으로 찾는다.
+	 */
+	static final class SourceMap {
+		private int size;
+		private int[] address = new int[256];
+		private int[] length = new int[256];
+		private String[] section = new String[256];
+		/** 줄의 label. 없으면 앞의 가장 가까운 label + offset */
+		private String[] label = new String[256];
+		private String[] source = new String[256];
+
+		/**
+		 * pass1을 마친 assembler의 토큰을 추가한다. section의 배치 주소는 loader의 ESTAB에서 찾는다.
+		 */
+		void add(Assembler asm, LinkingLoader loader) {
+			for (int sec = 0; sec < asm.sectionCount(); sec++) {
+				String name = asm.getSectionName(sec);
+				int placed = loader.symbolAddress(name);
+				if (placed < 0) continue;
+				int base = placed - asm.getSectionStart(sec);
+				TokenTable tt = asm.getTokenTable(sec);
+				String lastLabel = name;
+				int lastAddress = asm.getSectionStart(sec);
+				for (int i = 0; i < tt.size(); i++) {
+					Token tok = tt.getToken(i);
+					if (!tok.label.isEmpty() && !"EQU".equals(tok.operator)) {
+						lastLabel = tok.label;
+						lastAddress = tok.location;
+					}
+					if (tok.byteSize <= 0) continue;
+					String where = !tok.label.isEmpty() ? tok.label
+							: tok.location == lastAddress ? lastLabel : lastLabel + "+" + Integer.toHexString(tok.location - lastAddress).toUpperCase();
+					add(base + tok.location, tok.byteSize, name, where, sourceText(tok));
+				}
+			}
+			sort();
+		}
+
+		void add(int addr, int len, String sec, String where, String text) {
+			if (size == address.length) {
+				int n = size * 2;
+				address = Arrays.copyOf(address, n);
+				length = Arrays.copyOf(length, n);
+				section = Arrays.copyOf(section, n);
+				label = Arrays.copyOf(label, n);
+				source = Arrays.copyOf(source, n);
+			}
+			address[size] = addr;
+			length[size] = len;
+			section[size] = sec;
+			label[size] = where;
+			source[size] = text;
+			size++;
+		}
+
+		/** 주소 순으로 정렬한다. (이미 정렬되어 있으면 그대로) */
+		void sort() {
+			boolean sorted = true;
+			for (int i = 1; i < size && sorted; i++) sorted = address[i - 1] <= address[i];
+			if (sorted) return;
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++) order[i] = i;
+			Arrays.sort(order, (x, y) -> Integer.compare(address[x], address[y]));
+			int[] a = new int[size], l = new int[size];
+			String[] s = new String[size], w = new String[size], t = new String[size];
+			for (int i = 0; i < size; i++) {
+				int k = order[i];
+				a[i] = address[k];
+				l[i] = length[k];
+				s[i] = section[k];
+				w[i] = label[k];
+				t[i] = source[k];
+			}
+			address = a;
+			length = l;
+			section = s;
+			label = w;
+			source = t;
+		}
+
+		/**
+		 * @return addr를 포함하는 항목 번호. 없으면 -1
+		 */
+		int find(int addr) {
+			int lo = 0, hi = size - 1, found = -1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				if (address[mid] <= addr) {
+					found = mid;
+					lo = mid + 1;
+				} else {
+					hi = mid - 1;
+				}
+			}
+			return found >= 0 && addr < address[found] + length[found] ? found : -1;
+		}
+
+		private static String sourceText(Token tok) {
+			StringBuilder sb = new StringBuilder(tok.label).append('\t').append(tok.operator);
+			String sep = "\t";
+			for (String op : tok.operand) {
+				if (op.isEmpty()) continue;
+				sb.append(sep).append(op);
+				sep = ",";
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * 소스 줄별로 모은 hot-spot 보고서를 cycle이 많은 순으로 쓴다.
+	 * @param top : 출력할 최대 줄 수
+	 */
+	void report(SourceMap map, PrintWriter out, int top) {
+		long[] lineExecutions = new long[map.size];
+		long[] lineCycles = new long[map.size];
+		List<Integer> unmapped = new ArrayList<>();
+		long totalCycles = 0;
+		for (int addr = 0; addr < Simulator.MEMORY_SIZE; addr++) {
+			if (executions[addr] == 0) continue;
+			totalCycles += cycles[addr];
+			int k = map.find(addr);
+			if (k >= 0) {
+				lineExecutions[k] += executions[addr];
+				lineCycles[k] += cycles[addr];
+			} else {
+				unmapped.add(addr);
+			}
+		}
+
+		// {cycle, 항목 번호 또는 -(주소+1)}
+		List<long[]> rows = new ArrayList<>();
+		for (int k = 0; k < map.size; k++) {
+			if (lineExecutions[k] > 0) rows.add(new long[] { lineCycles[k], k });
+		}
+		for (int addr : unmapped) rows.add(new long[] { cycles[addr], -(addr + 1L) });
+		rows.sort((x, y) -> x[0] != y[0] ? Long.compare(y[0], x[0]) : Long.compare(x[1], y[1]));
+
+		out.printf("%d instructions counted%s, %d modelled cycles%n", samples * interval,
+				interval == 1 ? "" : " (estimated from " + samples + " samples, interval " + interval + ")",
+				totalCycles * interval);
+		out.printf("%-8s %-10s %-14s %14s %14s %7s  %s%n", "address", "section", "location", "executions", "cycles",
+				"cycle%", "source");
+		for (int r = 0; r < rows.size() && r < top; r++) {
+			long[] row = rows.get(r);
+			int k = (int) row[1];
+			if (k >= 0) {
+				out.printf("%06X   %-10s %-14s %14d %14d %6.2f%%  %s%n", map.address[k], map.section[k], map.label[k],
+						lineExecutions[k] * interval, lineCycles[k] * interval, 100.0 * row[0] / totalCycles, map.source[k]);
+			} else {
+				int addr = (int) (-row[1] - 1);
+				out.printf("%06X   %-10s %-14s %14d %14d %6.2f%%  %s%n", addr, "?", "?", executions[addr] * interval,
+						cycles[addr] * interval, 100.0 * row[0] / totalCycles, "");
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * 프로파일러의 메인 루틴<br>
+	 * 사용법: Profiler [--sample &lt;간격&gt;] [--top &lt;n&gt;] [--out &lt;보고서 파일&gt;] [--steps &lt;n&gt;]
+	 *                  [--input &lt;장치&gt;=&lt;파일&gt;]... [--output &lt;장치&gt;=&lt;파일&gt;]... &lt;소스 파일&gt;...
+	 * <br>
+	 * 소스 파일마다 어셈블하여(출력 파일은 임시 디렉토리) 입력 순서대로 링크하고 실행한 뒤,
+	 * hot-spot 보고서를 출력한다. 기본 출력은 output_profile.txt이고 상위 20줄은 화면에도 출력한다.
+	 */
+	public static void main(String[] args) {
+		int interval = 1, top = Integer.MAX_VALUE;
+		long steps = Long.MAX_VALUE;
+		String out = "output_profile.txt";
+		List<String> sources = new ArrayList<>();
+		List<String> inputs = new ArrayList<>();
+		List<String> outputs = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if ("--sample".equals(arg) && i + 1 < args.length) interval = Integer.parseInt(args[++i]);
+			else if ("--top".equals(arg) && i + 1 < args.length) top = Integer.parseInt(args[++i]);
+			else if ("--out".equals(arg) && i + 1 < args.length) out = args[++i];
+			else if ("--steps".equals(arg) && i + 1 < args.length) steps = Long.parseLong(args[++i]);
+			else if ("--input".equals(arg) && i + 1 < args.length) inputs.add(args[++i]);
+			else if ("--output".equals(arg) && i + 1 < args.length) outputs.add(args[++i]);
+			else sources.add(arg);
+		}
+		if (sources.isEmpty()) {
+			System.err.println("usage: Profiler [--sample <interval>] [--top <n>] [--out <report>] [--steps <n>]"
+					+ " [--input <dev>=<file>]... [--output <dev>=<file>]... <source file>...");
+			System.exit(2);
+		}
+
+		List<FileDevice> opened = new ArrayList<>();
+		try {
+			InstTable table = new InstTable();
+			Path dir = Files.createTempDirectory("profile");
+			List<Assembler> assemblers = new ArrayList<>();
+			List<String> objects = new ArrayList<>();
+			for (int i = 0; i < sources.size(); i++) {
+				Assembler asm = new Assembler(table);
+				String object = dir.resolve("objectcode" + i + ".txt").toString();
+				asm.assemble(sources.get(i), dir.resolve("symtab" + i + ".txt").toString(),
+						dir.resolve("littab" + i + ".txt").toString(), object);
+				assemblers.add(asm);
+				objects.add(object);
+			}
+			LinkingLoader loader = new LinkingLoader(LinkingLoader.DEFAULT_LOAD_ADDRESS);
+			if (!loader.link(objects)) {
+				for (String e : loader.errors()) System.err.println("Error: " + e);
+				System.exit(1);
+			}
+			SourceMap map = new SourceMap();
+			for (Assembler asm : assemblers) map.add(asm, loader);
+
+			Simulator sim = new Simulator(table);
+			for (String spec : inputs) opened.add(Simulator.attachFile(sim, spec, true));
+			for (String spec : outputs) opened.add(Simulator.attachFile(sim, spec, false));
+			sim.load(loader);
+			Profiler profiler = new Profiler(sim, interval);
+			sim.setProfiler(profiler);
+			Simulator.Halt halt = sim.run(steps);
+			for (FileDevice d : opened) d.close();
+			System.out.printf("%d instructions, halt: %s%n", sim.executed(), halt);
+
+			try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(out)))) {
+				profiler.report(map, pw, top);
+			}
+			PrintWriter console = new PrintWriter(System.out);
+			profiler.report(map, console, Math.min(top, 20));
+		} catch (IOException | UncheckedIOException | IllegalArgumentException | IllegalStateException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
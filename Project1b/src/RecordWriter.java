@@ -0,0 +1,160 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 출력 파일에 레코드와 테이블 줄을 쓰는 버퍼 writer. <br>
+ * 고정 크기 ByteBuffer에 모았다가 FileChannel로 내보내므로 출력 크기와 관계없이 메모리 사용량이 일정하다.
+ * 출력 결과는 FileWriter(기본 charset)와 BufferedWriter.newLine()으로 쓴 것과 byte 단위로 같다.
+ * ASCII 문자는 바로 byte로 쓰고, 그 밖의 문자가 있는 문자열만 기본 charset으로 인코딩한다.
+ */
+final class RecordWriter implements Closeable {
+	private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+	private static final String NEWLINE = System.lineSeparator();
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final Charset charset = Charset.defaultCharset();
+	/** 기본 charset에서 ASCII 문자가 1 byte 그대로인지 여부 */
+	private final boolean asciiCompatible;
+	private long written;
+	/** 파일로 내보낸 byte 수. 이 위치부터는 아직 buffer에 있다. */
+	private long drained;
+
+	RecordWriter(String fileName) throws IOException {
+		this(fileName, DEFAULT_BUFFER_SIZE);
+	}
+
+	RecordWriter(String fileName, int bufferSize) throws IOException {
+		channel = FileChannel.open(Paths.get(fileName),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		buffer = ByteBuffer.allocate(bufferSize);
+		asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+				|| charset.equals(StandardCharsets.ISO_8859_1)
+				|| charset.equals(StandardCharsets.US_ASCII);
+	}
+
+	/** 문자열을 그대로 쓴다. */
+	void write(CharSequence s) throws IOException {
+		int len = s.length();
+		if (!asciiCompatible || !isAscii(s, len)) {
+			writeBytes(s.toString().getBytes(charset));
+			return;
+		}
+		for (int i = 0; i < len; i++) {
+			if (!buffer.hasRemaining()) drain();
+			buffer.put((byte) s.charAt(i));
+		}
+		written += len;
+	}
+
+	/** ASCII 문자 하나를 쓴다. */
+	void write(char c) throws IOException {
+		if (c >= 0x80 || !asciiCompatible) {
+			write(String.valueOf(c));
+			return;
+		}
+		if (!buffer.hasRemaining()) drain();
+		buffer.put((byte) c);
+		written++;
+	}
+
+	/** 줄 구분자(System.lineSeparator)를 쓴다. */
+	void newLine() throws IOException {
+		write(NEWLINE);
+	}
+
+	/** 문자열을 width 폭에 맞춰 왼쪽 정렬하여 쓴다. (%-ns와 같다) */
+	void writePadded(CharSequence s, int width) throws IOException {
+		write(s);
+		for (int i = s.length(); i < width; i++) write(' ');
+	}
+
+	/** value를 대문자 16진수로 쓴다. (%X와 같다. 음수는 32비트 2의 보수) */
+	void writeHex(int value) throws IOException {
+		int digits = Math.max(1, 8 - Integer.numberOfLeadingZeros(value) / 4);
+		for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+			write(Hex.DIGITS[(value >>> shift) & 0xF]);
+		}
+	}
+
+	/** 지금까지 쓴 byte 수 */
+	long bytesWritten() {
+		return written;
+	}
+
+	/** 다음에 쓸 byte의 파일 위치 */
+	long position() {
+		return written;
+	}
+
+	/**
+	 * 이미 쓴 위치의 ASCII 문자를 덮어쓴다. (one-pass 모드에서 forward reference를 채울 때 사용) <br>
+	 * 아직 buffer에 있는 부분은 buffer를 고치고, 파일로 내보낸 부분은 위치 지정 쓰기로 고친다.
+	 * @param position : 덮어쓸 파일 위치. position + s.length()는 position()을 넘을 수 없다.
+	 */
+	void patch(long position, CharSequence s) throws IOException {
+		int len = s.length();
+		if (position < 0 || position + len > written) {
+			throw new IllegalArgumentException("Patch outside written range: " + position);
+		}
+		int inFile = (int) Math.max(0, Math.min(len, drained - position));
+		if (inFile > 0) {
+			byte[] bytes = new byte[inFile];
+			for (int i = 0; i < inFile; i++) bytes[i] = (byte) s.charAt(i);
+			ByteBuffer src = ByteBuffer.wrap(bytes);
+			long pos = position;
+			while (src.hasRemaining()) {
+				pos += channel.write(src, pos);
+			}
+		}
+		for (int i = inFile; i < len; i++) {
+			buffer.put((int) (position + i - drained), (byte) s.charAt(i));
+		}
+	}
+
+	private void writeBytes(byte[] bytes) throws IOException {
+		int off = 0;
+		while (off < bytes.length) {
+			if (!buffer.hasRemaining()) drain();
+			int n = Math.min(buffer.remaining(), bytes.length - off);
+			buffer.put(bytes, off, n);
+			off += n;
+		}
+		written += bytes.length;
+	}
+
+	private static boolean isAscii(CharSequence s, int len) {
+		for (int i = 0; i < len; i++) {
+			if (s.charAt(i) >= 0x80) return false;
+		}
+		return true;
+	}
+
+	/** 버퍼의 내용을 파일로 내보낸다. */
+	private void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			drained += channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	void flush() throws IOException {
+		drain();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			drain();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,163 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 증분 어셈블을 위한 section 단위 캐시. <br>
+ * section의 소스 줄 내용으로 해시를 계산하고, 그 해시를 이름으로 하는 파일에
+ * 토큰 위치, symbol table, literal table(pool 포함), 생성된 레코드를 저장한다.
+ * 다음 실행에서 해시가 같은 section은 pass1의 symbol/literal 처리와 pass2를 건너뛰고 캐시를 사용한다.
+ * <br><br>
+ * section의 레코드는 그 section의 소스만으로 결정된다. (EXTREF 심볼은 이름으로만 출력되고,
+ * EXTDEF 값은 자신의 section 안에서 계산된다.) 따라서 다른 section이 바뀌어도 캐시는 유효하다.
+ * 단, 첫 section 여부는 E 레코드에, T 레코드 최대 길이는 T 레코드 구분에, 명령어 테이블(inst_table.txt)은
+ * 명령어 크기와 인코딩에 영향을 주므로 해시에 포함한다.
+ */
+public class SectionCache {
+	/** 캐시 형식이 바뀌면 올려서 이전 캐시를 무효화한다. */
+	private static final String FORMAT = "sicxe-section-cache-2";
+
+	private final Path dir;
+
+	public SectionCache(String dir) throws IOException {
+		this.dir = Paths.get(dir);
+		Files.createDirectories(this.dir);
+	}
+
+	/**
+	 * section 구간의 해시를 계산한다.
+	 * @param first : 프로그램의 첫 section인지 여부
+	 * @param textLength : T 레코드 최대 길이
+	 * @param instTable : 어셈블에 쓰는 명령어 테이블 (InstTable.digest)
+	 * @param lines : section의 소스 줄
+	 * @return 16진수 해시 문자열
+	 */
+	public static String hash(boolean first, int textLength, InstTable instTable, List<? extends CharSequence> lines) {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		md.update(FORMAT.getBytes());
+		md.update((byte) (first ? 1 : 0));
+		md.update((byte) textLength);
+		md.update(instTable.digest());
+		byte[] buf = new byte[256];
+		for (CharSequence line : lines) {
+			int len = line.length();
+			if (buf.length < len * 2 + 1) buf = new byte[len * 2 + 1];
+			for (int i = 0; i < len; i++) {
+				char c = line.charAt(i);
+				buf[2 * i] = (byte) (c >> 8);
+				buf[2 * i + 1] = (byte) c;
+			}
+			buf[len * 2] = '\n';
+			md.update(buf, 0, len * 2 + 1);
+		}
+		byte[] digest = md.digest();
+		return Hex.toHex(digest, 0, digest.length);
+	}
+
+	/**
+	 * 캐시에서 section을 복원한다. 토큰은 소스 줄을 다시 lexing하고 저장된 위치를 붙여 만든다.
+	 * @return 복원된 section. 캐시에 없거나 읽을 수 없으면 null
+	 */
+	public SectionContext load(String hash, int sec, InstTable instTable, boolean columnar, List<? extends CharSequence> lines) {
+		Path file = dir.resolve(hash + ".sec");
+		if (!Files.isRegularFile(file)) return null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (!FORMAT.equals(in.readUTF())) return null;
+			SectionContext ctx = new SectionContext(sec, instTable, columnar);
+			ctx.hash = hash;
+			ctx.name = in.readUTF();
+			ctx.startAddr = in.readInt();
+			ctx.length = in.readInt();
+
+			int tokenCount = in.readInt();
+			if (tokenCount != lines.size()) return null;
+			for (CharSequence line : lines) {
+				ctx.tokens.putToken(line);
+				ctx.tokens.setLocation(ctx.tokens.size() - 1, in.readInt());
+			}
+
+			int symCount = in.readInt();
+			for (int i = 0; i < symCount; i++) {
+				String name = in.readUTF();
+				ctx.symbols.putSymbol(name, in.readInt());
+			}
+
+			int litCount = in.readInt();
+			for (int i = 0; i < litCount; i++) {
+				ctx.literals.putLiteral(in.readUTF());
+				ctx.literals.setLocation(i, in.readInt());
+			}
+			int poolCount = in.readInt();
+			for (int i = 0; i < poolCount; i++) {
+				int start = in.readInt();
+				ctx.literals.addPool(start, in.readInt());
+			}
+
+			int recCount = in.readInt();
+			List<String> records = new ArrayList<>(recCount);
+			for (int i = 0; i < recCount; i++) {
+				records.add(in.readUTF());
+			}
+			ctx.cachedRecords = records;
+			return ctx;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * pass2까지 끝난 section을 캐시에 저장한다. 같은 해시를 동시에 저장해도 안전하도록
+	 * 임시 파일에 쓴 뒤 이름을 바꾼다.
+	 */
+	public void store(SectionContext ctx, List<String> records) throws IOException {
+		Path tmp = Files.createTempFile(dir, ctx.hash, ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeUTF(FORMAT);
+			out.writeUTF(ctx.name);
+			out.writeInt(ctx.startAddr);
+			out.writeInt(ctx.length);
+
+			TokenTable tt = ctx.tokens;
+			out.writeInt(tt.size());
+			for (int i = 0; i < tt.size(); i++) {
+				out.writeInt(tt.getLocation(i));
+			}
+
+			SymbolTable st = ctx.symbols;
+			out.writeInt(st.size());
+			for (int i = 0; i < st.size(); i++) {
+				out.writeUTF(st.getSymbolName(i));
+				out.writeInt(st.getLocation(i));
+			}
+
+			LiteralTable lt = ctx.literals;
+			out.writeInt(lt.size());
+			for (int i = 0; i < lt.size(); i++) {
+				out.writeUTF(lt.getLiteral(i));
+				out.writeInt(lt.getLocation(i));
+			}
+			out.writeInt(lt.poolCount());
+			for (int i = 0; i < lt.poolCount(); i++) {
+				out.writeInt(lt.getPoolStart(i));
+				out.writeInt(lt.getPoolEnd(i));
+			}
+
+			out.writeInt(records.size());
+			for (String r : records) {
+				out.writeUTF(r);
+			}
+		}
+		Files.move(tmp, dir.resolve(ctx.hash + ".sec"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,33 @@
+import java.util.*;
+
+/**
+ * pass1에서 section 하나를 처리하는 동안의 상태.
+ * locctr 등 section 내부 상태를 Assembler 필드 대신 여기에 두어 section별 병렬 처리가 가능하게 한다.
+ */
+class SectionContext {
+	final int index;
+	String name = "NONAME";
+	int startAddr;
+	int length;
+	int locctr;
+	final SymbolTable symbols;
+	final TokenTable tokens;
+	final LiteralTable literals;
+	/** 증분 어셈블용 소스 해시. 캐시를 쓰지 않으면 null */
+	String hash;
+	/** 캐시에서 복원된 section의 레코드. 새로 처리한 section이면 null */
+	List<String> cachedRecords;
+	/** section 첫 토큰의 소스 줄 (토큰 i는 firstLine + i번째 줄) */
+	int firstLine;
+
+	SectionContext(int index, InstTable instTable) {
+		this(index, instTable, false);
+	}
+
+	SectionContext(int index, InstTable instTable, boolean columnar) {
+		this.index = index;
+		this.symbols = new SymbolTable();
+		this.tokens = new TokenTable(symbols, instTable, columnar);
+		this.literals = new LiteralTable();
+	}
+}
@@ -0,0 +1,517 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 어셈블된 프로그램을 실행하는 SIC/XE 시뮬레이터(interpreter). <br>
+ * 1 MB byte 배열 메모리에 object deck(LinkingLoader로 링크) 또는 메모리 이미지를 올리고,
+ * 형식 1~4 명령어를 opcode byte 하나로 찾는 256칸 dispatch 테이블로 해석한다.
+ * 테이블은 InstTable의 getInstByOpcode로 만들므로 opcode 값은 명령어 명세 파일을 따르고,
+ * 시뮬레이터는 mnemonic별 동작만 정의한다.
+ * <br><br>
+ * 레지스터 번호는 Assembler.getRegisterNumber와 같다. (A 0, X 1, L 2, B 3, S 4, T 5, F 6, PC 8, SW 9)
+ * 정수 레지스터는 24 bit, F는 double로 보관하고 메모리에는 48 bit SIC/XE 실수 형식으로 읽고 쓴다.
+ * 주소는 20 bit로 자르므로 메모리 밖을 가리키지 않는다.
+ * <br><br>
+ * 실행은 다음 경우에 멈춘다.
+ *   1) PC가 EXIT_ADDRESS가 되었을 때 (시작할 때 L에 넣어 두므로 최상위 RSUB, J @RETADR 등)<br>
+ *   2) 자기 자신으로 가는 J (HALT J HALT 관례)<br>
+ *   3) 지정한 명령어 수를 모두 실행했을 때
+ * <br><br>
+ * setTranslation을 켜면 자주 실행되는 basic block을 BlockTranslator가 JVM bytecode로 번역하여 실행한다.
+ * 결과(레지스터, 메모리, 실행한 명령어 수)는 interpreter와 같다.
+ */
+public class Simulator {
+	static final int MEMORY_SIZE = 1 << 20;
+	static final int ADDRESS_MASK = MEMORY_SIZE - 1;
+	static final int WORD_MASK = 0xFFFFFF;
+	/** 프로그램 시작 시 L 레지스터 값. 이 주소로 돌아가면 실행을 끝낸다. */
+	static final int EXIT_ADDRESS = 0xFFFFFF;
+
+	/** 실행이 멈춘 이유 */
+	enum Halt {
+		EXIT, SELF_LOOP, STEP_LIMIT
+	}
+
+	// dispatch 테이블에 들어가는 동작 번호. 0은 실행할 수 없는 opcode
+	static final int ADD = 1, ADDF = 2, ADDR = 3, AND = 4, CLEAR = 5, COMP = 6, COMPF = 7, COMPR = 8,
+			DIV = 9, DIVF = 10, DIVR = 11, FIX = 12, FLOAT = 13, HIO = 14, J = 15, JEQ = 16, JGT = 17,
+			JLT = 18, JSUB = 19, LDA = 20, LDB = 21, LDCH = 22, LDF = 23, LDL = 24, LDS = 25, LDT = 26,
+			LDX = 27, LPS = 28, MUL = 29, MULF = 30, MULR = 31, NORM = 32, OR = 33, RD = 34, RMO = 35,
+			RSUB = 36, SHIFTL = 37, SHIFTR = 38, SIO = 39, SSK = 40, STA = 41, STB = 42, STCH = 43,
+			STF = 44, STI = 45, STL = 46, STS = 47, STSW = 48, STT = 49, STX = 50, SUB = 51, SUBF = 52,
+			SUBR = 53, SVC = 54, TD = 55, TIO = 56, TIX = 57, TIXR = 58, WD = 59;
+
+	/** 동작 번호 순서의 mnemonic */
+	private static final String[] OPERATIONS = {
+			null, "ADD", "ADDF", "ADDR", "AND", "CLEAR", "COMP", "COMPF", "COMPR",
+			"DIV", "DIVF", "DIVR", "FIX", "FLOAT", "HIO", "J", "JEQ", "JGT",
+			"JLT", "JSUB", "LDA", "LDB", "LDCH", "LDF", "LDL", "LDS", "LDT",
+			"LDX", "LPS", "MUL", "MULF", "MULR", "NORM", "OR", "RD", "RMO",
+			"RSUB", "SHIFTL", "SHIFTR", "SIO", "SSK", "STA", "STB", "STCH",
+			"STF", "STI", "STL", "STS", "STSW", "STT", "STX", "SUB", "SUBF",
+			"SUBR", "SVC", "TD", "TIO", "TIX", "TIXR", "WD"
+	};
+
+	/** 메모리. 끝에서 word/실수를 읽어도 예외가 나지 않도록 6 byte를 더 둔다. */
+	final byte[] memory = new byte[MEMORY_SIZE + 6];
+	int a, x, l, b, s, t, pc;
+	double f;
+	/** condition code. 음수 '<', 0 '=', 양수 '>' */
+	int cc;
+
+	/** opcode byte별 동작 번호 */
+	final byte[] operation = new byte[256];
+	/** opcode byte별 형식 (1, 2, 3). 형식 4는 e bit로 구분한다 */
+	final byte[] format = new byte[256];
+	private final Instruction[] instructions = new Instruction[256];
+	private final Device[] devices = new Device[256];
+
+	private long executed;
+	/** basic block 번역 tier. null이면 모두 interpreter로 실행한다 */
+	private BlockTranslator translator;
+	/** 실행 프로파일러. null이면 세지 않는다 */
+	private Profiler profiler;
+
+	public Simulator(InstTable instTable) {
+		HashMap<String, Integer> ids = new HashMap<>();
+		for (int i = 1; i < OPERATIONS.length; i++) ids.put(OPERATIONS[i], i);
+		for (int op = 0; op < 256; op++) {
+			Instruction inst = instTable.getInstByOpcode(op);
+			if (inst == null) continue;
+			// 형식 1/2는 opcode byte가 정확히 같아야 하고, 형식 3/4는 하위 2 bit가 n,i이다
+			boolean match = inst.format >= 3 ? (inst.opcode & 0xFC) == (op & 0xFC) : inst.opcode == op;
+			Integer id = ids.get(inst.mnemonic);
+			if (!match || id == null) continue;
+			operation[op] = (byte) (int) id;
+			format[op] = (byte) Math.min(inst.format, 3);
+			instructions[op] = inst;
+		}
+		reset(0);
+	}
+
+	/**
+	 * 레지스터를 초기화하고 PC를 entry로 둔다. L은 EXIT_ADDRESS가 된다. (메모리는 그대로)
+	 */
+	public void reset(int entry) {
+		a = x = b = s = t = 0;
+		f = 0;
+		cc = 0;
+		l = EXIT_ADDRESS;
+		pc = entry;
+	}
+
+	/**
+	 * 링크된 메모리 이미지를 load 주소에 올리고 entry 주소에서 시작하도록 초기화한다.
+	 */
+	public void load(LinkingLoader loader) {
+		load(loader.image(), loader.loadAddress(), loader.entryAddress());
+	}
+
+	/**
+	 * 메모리 이미지를 address에 올리고 entry 주소에서 시작하도록 초기화한다.
+	 */
+	public void load(byte[] image, int address, int entry) {
+		if (address < 0 || (long) address + image.length > MEMORY_SIZE) {
+			throw new IllegalArgumentException(String.format("Image of %d bytes does not fit at %06X", image.length, address));
+		}
+		System.arraycopy(image, 0, memory, address, image.length);
+		if (translator != null) translator.clear();
+		reset(entry);
+	}
+
+	/** number번 장치를 연결한다. 연결되지 않은 장치는 항상 준비 상태이고 읽으면 0, 쓰면 버린다. */
+	public void attach(int number, Device device) {
+		devices[number & 0xFF] = device;
+	}
+
+	/**
+	 * threshold번 실행된 주소부터 basic block을 JVM bytecode로 번역하여 실행한다. (BlockTranslator)
+	 * 0 이하이면 번역하지 않는다.
+	 */
+	public void setTranslation(int threshold) {
+		translator = threshold > 0 ? new BlockTranslator(this, threshold) : null;
+	}
+
+	/**
+	 * 프로파일러를 연결한다. 연결되어 있는 동안은 주소별로 세기 위해 번역된 block을 쓰지 않는다. (null이면 해제)
+	 */
+	public void setProfiler(Profiler profiler) {
+		this.profiler = profiler;
+	}
+
+	/** 번역 tier. 번역하지 않으면 null */
+	BlockTranslator translator() {
+		return translator;
+	}
+
+	/**
+	 * 메모리 [address, address+length)에 쓴 것을 번역 tier에 알린다.
+	 * @return 번역된 코드를 덮어써서 그 block을 버렸으면 true
+	 */
+	boolean codeWrite(int address, int length) {
+		BlockTranslator tr = translator;
+		return tr != null && tr.written(address, length);
+	}
+
+	/** 지금까지 실행한 명령어 수 */
+	public long executed() {
+		return executed;
+	}
+
+	/**
+	 * 멈출 때까지 실행한다.
+	 * @param maxSteps : 이번 호출에서 실행할 최대 명령어 수
+	 * @return 멈춘 이유
+	 * @throws IllegalStateException 실행할 수 없는 명령어 (0으로 나누기 포함)
+	 */
+	public Halt run(long maxSteps) {
+		final byte[] m = memory;
+		final Profiler prof = profiler;
+		final BlockTranslator tr = prof == null ? translator : null;
+		long n = 0;
+		try {
+			while (true) {
+				int cur = pc;
+				if (cur >= MEMORY_SIZE) {
+					if (cur == EXIT_ADDRESS) return Halt.EXIT;
+					throw new IllegalStateException(String.format("PC out of memory: %06X", cur));
+				}
+				if (n == maxSteps) return Halt.STEP_LIMIT;
+				if (prof != null && --prof.countdown == 0) prof.sample(m, cur);
+				if (tr != null) {
+					TranslatedBlock blk = tr.block(cur);
+					if (blk != null) {
+						int done = blk.execute(this, (int) Math.min(maxSteps - n, Integer.MAX_VALUE));
+						if (done > 0) {
+							n += done;
+							continue;
+						}
+					}
+				}
+				int op = m[cur] & 0xFF;
+				int id = operation[op];
+				int fmt = format[op];
+				if (fmt == 3) {
+					// 형식 3/4: target address 계산
+					int b1 = m[cur + 1] & 0xFF;
+					int ni = op & 3;
+					int ta;
+					int next;
+					if (ni == 0) {
+						// SIC 표준 형식: 15 bit 주소
+						ta = ((b1 & 0x7F) << 8) | (m[cur + 2] & 0xFF);
+						next = cur + 3;
+					} else if ((b1 & 0x10) != 0) {
+						ta = ((b1 & 0xF) << 16) | ((m[cur + 2] & 0xFF) << 8) | (m[cur + 3] & 0xFF);
+						next = cur + 4;
+					} else {
+						int disp = ((b1 & 0xF) << 8) | (m[cur + 2] & 0xFF);
+						next = cur + 3;
+						if ((b1 & 0x20) != 0) ta = next + ((disp << 20) >> 20);
+						else if ((b1 & 0x40) != 0) ta = b + disp;
+						else ta = disp;
+					}
+					if ((b1 & 0x80) != 0) ta += x;
+					ta &= ADDRESS_MASK;
+					// indirect이면 메모리의 word가 주소가 된다 (EXIT_ADDRESS로 돌아갈 수 있도록 자르지 않는다)
+					if (ni == 2) ta = word(m, ta);
+					int ea = ta & ADDRESS_MASK;
+					pc = next;
+					switch (id) {
+						case LDA: a = ni == 1 ? ta : word(m, ea); break;
+						case LDX: x = ni == 1 ? ta : word(m, ea); break;
+						case LDL: l = ni == 1 ? ta : word(m, ea); break;
+						case LDB: b = ni == 1 ? ta : word(m, ea); break;
+						case LDS: s = ni == 1 ? ta : word(m, ea); break;
+						case LDT: t = ni == 1 ? ta : word(m, ea); break;
+						case LDCH: a = (a & 0xFFFF00) | (ni == 1 ? ta & 0xFF : m[ea] & 0xFF); break;
+						case LDF: f = toDouble(float48(m, ea)); break;
+						case STA: putWord(m, ea, a); codeWrite(ea, 3); break;
+						case STX: putWord(m, ea, x); codeWrite(ea, 3); break;
+						case STL: putWord(m, ea, l); codeWrite(ea, 3); break;
+						case STB: putWord(m, ea, b); codeWrite(ea, 3); break;
+						case STS: putWord(m, ea, s); codeWrite(ea, 3); break;
+						case STT: putWord(m, ea, t); codeWrite(ea, 3); break;
+						case STCH: m[ea] = (byte) a; codeWrite(ea, 1); break;
+						case STF: putFloat48(m, ea, fromDouble(f)); codeWrite(ea, 6); break;
+						case STSW: putWord(m, ea, sw()); codeWrite(ea, 3); break;
+						case ADD: a = (a + (ni == 1 ? ta : word(m, ea))) & WORD_MASK; break;
+						case SUB: a = (a - (ni == 1 ? ta : word(m, ea))) & WORD_MASK; break;
+						case MUL: a = (signed(a) * signed(ni == 1 ? ta : word(m, ea))) & WORD_MASK; break;
+						case DIV: a = divide(a, ni == 1 ? ta : word(m, ea), cur); break;
+						case AND: a &= ni == 1 ? ta : word(m, ea); break;
+						case OR: a = (a | (ni == 1 ? ta : word(m, ea))) & WORD_MASK; break;
+						case COMP: cc = Integer.compare(signed(a), signed(ni == 1 ? ta : word(m, ea))); break;
+						case TIX:
+							x = (x + 1) & WORD_MASK;
+							cc = Integer.compare(signed(x), signed(ni == 1 ? ta : word(m, ea)));
+							break;
+						case J:
+							pc = ta;
+							if (ta == cur) {
+								n++;
+								return Halt.SELF_LOOP;
+							}
+							break;
+						case JEQ: if (cc == 0) pc = ta; break;
+						case JGT: if (cc > 0) pc = ta; break;
+						case JLT: if (cc < 0) pc = ta; break;
+						case JSUB: l = next; pc = ta; break;
+						case RSUB: pc = l; break;
+						case ADDF: f += toDouble(float48(m, ea)); break;
+						case SUBF: f -= toDouble(float48(m, ea)); break;
+						case MULF: f *= toDouble(float48(m, ea)); break;
+						case DIVF: f /= toDouble(float48(m, ea)); break;
+						case COMPF: cc = Double.compare(f, toDouble(float48(m, ea))); break;
+						case TD: cc = device(ni == 1 ? ta : m[ea]).test() ? -1 : 0; break;
+						case RD: a = (a & 0xFFFF00) | (device(ni == 1 ? ta : m[ea]).read() & 0xFF); break;
+						case WD: device(ni == 1 ? ta : m[ea]).write(a & 0xFF); break;
+						default:
+							pc = cur;
+							throw unsupported(op, cur);
+					}
+				} else if (fmt == 2) {
+					int r = m[cur + 1] & 0xFF;
+					int r1 = r >>> 4, r2 = r & 0xF;
+					pc = cur + 2;
+					switch (id) {
+						case ADDR: setRegister(r2, register(r2) + register(r1)); break;
+						case SUBR: setRegister(r2, register(r2) - register(r1)); break;
+						case MULR: setRegister(r2, signed(register(r2)) * signed(register(r1))); break;
+						case DIVR: setRegister(r2, divide(register(r2), register(r1), cur)); break;
+						case COMPR: cc = Integer.compare(signed(register(r1)), signed(register(r2))); break;
+						case RMO: setRegister(r2, register(r1)); break;
+						case CLEAR: setRegister(r1, 0); break;
+						case TIXR:
+							x = (x + 1) & WORD_MASK;
+							cc = Integer.compare(signed(x), signed(register(r1)));
+							break;
+						case SHIFTL: {
+							int v = register(r1), k = (r2 + 1) % 24;
+							setRegister(r1, (v << k) | (v >>> (24 - k)));
+							break;
+						}
+						case SHIFTR: setRegister(r1, signed(register(r1)) >> (r2 + 1)); break;
+						default:
+							pc = cur;
+							throw unsupported(op, cur);
+					}
+				} else if (fmt == 1) {
+					pc = cur + 1;
+					switch (id) {
+						case FIX: a = (int) f & WORD_MASK; break;
+						case FLOAT: f = signed(a); break;
+						case NORM: break; // F는 항상 정규화된 double이다
+						default:
+							pc = cur;
+							throw unsupported(op, cur);
+					}
+				} else {
+					throw new IllegalStateException(String.format("Invalid opcode %02X at %06X", op, cur));
+				}
+				n++;
+			}
+		} finally {
+			executed += n;
+		}
+	}
+
+	private IllegalStateException unsupported(int op, int address) {
+		return new IllegalStateException(String.format("Unsupported instruction %s at %06X",
+				instructions[op].mnemonic, address));
+	}
+
+	private static int divide(int dividend, int divisor, int address) {
+		if ((divisor & WORD_MASK) == 0) throw new IllegalStateException(String.format("Division by zero at %06X", address));
+		return (signed(dividend) / signed(divisor)) & WORD_MASK;
+	}
+
+	/** 24 bit 값을 부호 있는 int로 */
+	static int signed(int v) {
+		return (v << 8) >> 8;
+	}
+
+	static int word(byte[] m, int address) {
+		return ((m[address] & 0xFF) << 16) | ((m[address + 1] & 0xFF) << 8) | (m[address + 2] & 0xFF);
+	}
+
+	static void putWord(byte[] m, int address, int v) {
+		m[address] = (byte) (v >> 16);
+		m[address + 1] = (byte) (v >> 8);
+		m[address + 2] = (byte) v;
+	}
+
+	private static long float48(byte[] m, int address) {
+		long v = 0;
+		for (int i = 0; i < 6; i++) v = (v << 8) | (m[address + i] & 0xFF);
+		return v;
+	}
+
+	private static void putFloat48(byte[] m, int address, long v) {
+		for (int i = 5; i >= 0; i--, v >>>= 8) m[address + i] = (byte) v;
+	}
+
+	/**
+	 * 48 bit SIC/XE 실수(부호 1, 지수 11(bias 1024), 소수부 36 bit. 값 = 0.소수부 * 2^(지수-1024))를 double로
+	 */
+	static double toDouble(long bits) {
+		long fraction = bits & ((1L << 36) - 1);
+		if (fraction == 0) return 0;
+		int exponent = (int) ((bits >>> 36) & 0x7FF);
+		double v = Math.scalb((double) fraction, exponent - 1024 - 36);
+		return (bits >>> 47) != 0 ? -v : v;
+	}
+
+	/** double을 48 bit SIC/XE 실수로. 지수 범위를 넘으면 가장 가까운 값으로 자른다. */
+	static long fromDouble(double d) {
+		if (d == 0 || Double.isNaN(d)) return 0;
+		long sign = d < 0 ? 1L << 47 : 0;
+		d = Math.abs(d);
+		int exponent = Math.getExponent(d) + 1; // d = 0.1xxx(2) * 2^exponent
+		if (exponent + 1024 < 0) return sign;
+		if (exponent + 1024 > 0x7FF) return sign | (0x7FFL << 36) | ((1L << 36) - 1);
+		long fraction = (long) Math.scalb(d, 36 - exponent);
+		return sign | ((long) (exponent + 1024) << 36) | fraction;
+	}
+
+	/** 레지스터 번호(getRegisterNumber)로 값을 읽는다 */
+	int register(int r) {
+		switch (r) {
+			case 0: return a;
+			case 1: return x;
+			case 2: return l;
+			case 3: return b;
+			case 4: return s;
+			case 5: return t;
+			case 6: return (int) f & WORD_MASK;
+			case 8: return pc;
+			case 9: return sw();
+			default: return 0;
+		}
+	}
+
+	void setRegister(int r, int v) {
+		v &= WORD_MASK;
+		switch (r) {
+			case 0: a = v; break;
+			case 1: x = v; break;
+			case 2: l = v; break;
+			case 3: b = v; break;
+			case 4: s = v; break;
+			case 5: t = v; break;
+			case 6: f = signed(v); break;
+			case 8: pc = v; break;
+			case 9: cc = ((v >> 6) & 3) - 1; break;
+			default: break;
+		}
+	}
+
+	/** SW 레지스터. condition code만 bit 6-7에 둔다. (00 '<', 01 '=', 10 '>') */
+	int sw() {
+		return (Integer.signum(cc) + 1) << 6;
+	}
+
+	private Device device(int number) {
+		Device d = devices[number & 0xFF];
+		return d != null ? d : Device.NONE;
+	}
+
+	/** 레지스터 값을 한 줄로 */
+	public String registers() {
+		return String.format("A=%06X X=%06X L=%06X B=%06X S=%06X T=%06X F=%s PC=%06X CC=%c",
+				a, x, l, b, s, t, f, pc, cc < 0 ? '<' : cc == 0 ? '=' : '>');
+	}
+
+	/**
+	 * 시뮬레이터의 메인 루틴<br>
+	 * 사용법: Simulator [--address &lt;16진수&gt;] [--steps &lt;n&gt;] [--translate]
+	 *                   [--input &lt;장치&gt;=&lt;파일&gt;]... [--output &lt;장치&gt;=&lt;파일&gt;]...
+	 *                   (&lt;object 파일&gt;... | --image &lt;이미지 파일&gt;)
+	 * <br>
+	 * object 파일은 LinkingLoader로 링크하여 올리고, 메모리 이미지는 address에 올려 address부터 실행한다.
+	 * --translate는 basic block 번역을 켜고 번역/무효화한 block 수도 출력한다.
+	 * --input/--output은 16진수 장치 번호(예: F1, 05)를 파일에 연결한다. (FileDevice)
+	 * 실행한 명령어 수, 시간, 초당 명령어 수와 멈춘 시점의 레지스터를 출력한다.
+	 */
+	public static void main(String[] args) {
+		int address = LinkingLoader.DEFAULT_LOAD_ADDRESS;
+		long steps = Long.MAX_VALUE;
+		String image = null;
+		boolean translate = false;
+		List<String> files = new ArrayList<>();
+		List<String> inputs = new ArrayList<>();
+		List<String> outputs = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if ("--address".equals(arg) && i + 1 < args.length) address = Integer.parseInt(args[++i], 16);
+			else if ("--steps".equals(arg) && i + 1 < args.length) steps = Long.parseLong(args[++i]);
+			else if ("--image".equals(arg) && i + 1 < args.length) image = args[++i];
+			else if ("--translate".equals(arg)) translate = true;
+			else if ("--input".equals(arg) && i + 1 < args.length) inputs.add(args[++i]);
+			else if ("--output".equals(arg) && i + 1 < args.length) outputs.add(args[++i]);
+			else files.add(arg);
+		}
+		if (image == null && files.isEmpty()) {
+			System.err.println("usage: Simulator [--address <hex>] [--steps <n>] [--translate]"
+					+ " [--input <dev>=<file>]... [--output <dev>=<file>]... (<object file>... | --image <file>)");
+			System.exit(2);
+		}
+
+		List<FileDevice> opened = new ArrayList<>();
+		try {
+			Simulator sim = new Simulator(new InstTable());
+			if (translate) sim.setTranslation(BlockTranslator.DEFAULT_THRESHOLD);
+			for (String spec : inputs) opened.add(attachFile(sim, spec, true));
+			for (String spec : outputs) opened.add(attachFile(sim, spec, false));
+			if (image != null) {
+				sim.load(Files.readAllBytes(Paths.get(image)), address, address);
+			} else {
+				LinkingLoader loader = new LinkingLoader(address);
+				if (!loader.link(files)) {
+					for (String e : loader.errors()) System.err.println("Error: " + e);
+					System.exit(1);
+				}
+				sim.load(loader);
+			}
+			long start = System.nanoTime();
+			Halt halt;
+			try {
+				halt = sim.run(steps);
+			} finally {
+				long nanos = System.nanoTime() - start;
+				System.out.printf("%d instructions, %.2f ms, %.1f MIPS%n", sim.executed(), nanos / 1e6,
+						sim.executed() * 1e3 / Math.max(1, nanos));
+				System.out.println(sim.registers());
+				if (sim.translator != null) {
+					System.out.printf("%d blocks translated, %d invalidated%n",
+							sim.translator.translated(), sim.translator.invalidated());
+				}
+			}
+			System.out.println("halt: " + halt);
+			for (FileDevice d : opened) d.close();
+		} catch (IOException | UncheckedIOException | IllegalArgumentException | IllegalStateException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * "장치=파일" 형식의 spec대로 파일 장치를 열어 연결한다.
+	 */
+	static FileDevice attachFile(Simulator sim, String spec, boolean input) throws IOException {
+		int eq = spec.indexOf('=');
+		if (eq <= 0 || eq == spec.length() - 1) throw new IllegalArgumentException("Invalid device spec: " + spec);
+		int number = Integer.parseInt(spec.substring(0, eq), 16);
+		if (number < 0 || number > 0xFF) throw new IllegalArgumentException("Invalid device number: " + spec);
+		String file = spec.substring(eq + 1);
+		FileDevice device = input ? FileDevice.input(file, FileDevice.DEFAULT_BUFFER_SIZE)
+				: FileDevice.output(file, FileDevice.DEFAULT_BUFFER_SIZE);
+		sim.attach(number, device);
+		return device;
+	}
+}
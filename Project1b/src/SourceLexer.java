@@ -0,0 +1,188 @@
+/**
+ * 소스 한 줄을 한 번의 문자 스캔으로 label/operator/operand/comment 필드로 분류하는 lexer. <br>
+ * 결과는 문자열이 아니라 줄 안의 [start, end) 위치로만 기록하므로 스캔 자체는 메모리를 할당하지 않는다.
+ * 인스턴스는 스캔 결과를 담는 버퍼를 재사용하므로 한 스레드에서만 사용해야 한다.
+ * <br><br>
+ * 필드 규칙 <br>
+ *  1) '.'으로 시작하는 줄은 전체가 주석이다. <br>
+ *  2) 첫 단어가 명령어(앞의 '+' 허용) 또는 지시어이면 operator, 아니면 label이고 다음 단어가 operator이다. <br>
+ *  3) operand가 없는 명령어(RSUB 등)와 지시어(LTORG, CSECT)는 operator 다음부터가 주석이다. <br>
+ *  4) operand 필드는 다음 공백까지이며, 작은따옴표 안(C'...')의 공백, '.', ','는 구분자로 보지 않는다. <br>
+ *  5) operand 필드 뒤의 나머지는 모두 주석이다.
+ */
+final class SourceLexer {
+	/** 지시어 목록. operator 문자열로 이 상수를 그대로 사용하여 할당을 줄인다. */
+	static final String[] DIRECTIVES = {
+			"START", "END", "BYTE", "WORD", "RESW", "RESB",
+			"LTORG", "CSECT", "EXTDEF", "EXTREF", "EQU"
+	};
+	/** operand를 받지 않는 지시어 */
+	private static final String[] NO_OPERAND_DIRECTIVES = { "LTORG", "CSECT" };
+
+	private final InstTable instTab;
+
+	int labelStart, labelEnd;
+	int operatorStart, operatorEnd;
+	int commentStart, commentEnd;
+	/** operand i의 위치는 [operandBounds[2i], operandBounds[2i+1]) */
+	final int[] operandBounds = new int[TokenTable.MAX_OPERAND * 2];
+	int operandCount;
+	/** operator가 명령어이면 해당 Instruction, 아니면 null */
+	Instruction inst;
+	/** operator가 지시어이면 DIRECTIVES의 상수, 아니면 null */
+	String directive;
+
+	SourceLexer(InstTable instTab) {
+		this.instTab = instTab;
+	}
+
+	/**
+	 * 한 줄을 스캔한다.
+	 * @return label, operator 또는 operand가 있으면 true. 빈 줄이나 주석 줄이면 false
+	 */
+	boolean scan(CharSequence line) {
+		labelStart = labelEnd = operatorStart = operatorEnd = commentStart = commentEnd = 0;
+		operandCount = 0;
+		inst = null;
+		directive = null;
+
+		int end = line.length();
+		int pos = skipSpace(line, 0, end);
+		while (end > pos && line.charAt(end - 1) <= ' ') end--;
+		if (pos == end) return false;
+		if (line.charAt(pos) == '.') {
+			commentStart = pos;
+			commentEnd = end;
+			return false;
+		}
+
+		// 첫 단어: operator 또는 label
+		int ws = pos;
+		pos = skipWord(line, pos, end);
+		if (classify(line, ws, pos)) {
+			operatorStart = ws;
+			operatorEnd = pos;
+		} else {
+			labelStart = ws;
+			labelEnd = pos;
+			pos = skipSpace(line, pos, end);
+			if (pos < end && line.charAt(pos) != '.') {
+				ws = pos;
+				pos = skipWord(line, pos, end);
+				classify(line, ws, pos);
+				operatorStart = ws;
+				operatorEnd = pos;
+			}
+		}
+		if (operatorEnd > operatorStart && takesOperand()) {
+			pos = skipSpace(line, pos, end);
+			if (pos < end && line.charAt(pos) != '.') {
+				pos = scanOperands(line, pos, end);
+			}
+		}
+
+		// 나머지는 주석
+		pos = skipSpace(line, pos, end);
+		if (pos < end) {
+			commentStart = pos;
+			commentEnd = end;
+		}
+		return true;
+	}
+
+	/**
+	 * [from, to) 단어가 명령어 또는 지시어인지 확인하고 inst/directive를 기록한다.
+	 */
+	private boolean classify(CharSequence line, int from, int to) {
+		int key = line.charAt(from) == '+' ? from + 1 : from;
+		inst = instTab.getInst(line, key, to);
+		directive = inst == null ? findDirective(line, key, to) : null;
+		return inst != null || directive != null;
+	}
+
+	private boolean takesOperand() {
+		if (inst != null) return inst.operandCount > 0;
+		if (directive != null) {
+			for (String d : NO_OPERAND_DIRECTIVES) {
+				if (d.equals(directive)) return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * operand 필드를 ','로 나누어 기록하고 필드의 끝 위치를 반환한다.
+	 */
+	private int scanOperands(CharSequence line, int pos, int end) {
+		int itemStart = pos;
+		boolean quoted = false;
+		for (; pos < end; pos++) {
+			char c = line.charAt(pos);
+			if (c == '\'') {
+				quoted = !quoted;
+			} else if (!quoted) {
+				if (c <= ' ') break;
+				if (c == ',') {
+					addOperand(itemStart, pos);
+					itemStart = pos + 1;
+				}
+			}
+		}
+		addOperand(itemStart, pos);
+		return pos;
+	}
+
+	private void addOperand(int from, int to) {
+		if (operandCount < TokenTable.MAX_OPERAND) {
+			operandBounds[operandCount * 2] = from;
+			operandBounds[operandCount * 2 + 1] = to;
+			operandCount++;
+		}
+	}
+
+	private static int skipSpace(CharSequence s, int pos, int end) {
+		while (pos < end && s.charAt(pos) <= ' ') pos++;
+		return pos;
+	}
+
+	private static int skipWord(CharSequence s, int pos, int end) {
+		while (pos < end && s.charAt(pos) > ' ') pos++;
+		return pos;
+	}
+
+	/**
+	 * s[from, to) 구간에 해당하는 지시어 상수를 반환한다.
+	 * @return DIRECTIVES의 상수. 지시어가 아니면 null
+	 */
+	static String findDirective(CharSequence s, int from, int to) {
+		for (String d : DIRECTIVES) {
+			if (d.length() != to - from) continue;
+			int i = 0;
+			while (i < d.length() && d.charAt(i) == s.charAt(from + i)) i++;
+			if (i == d.length()) return d;
+		}
+		return null;
+	}
+
+	/**
+	 * operator 구간을 문자열로 반환한다.
+	 * 구간이 인식된 명령어/지시어와 같으면 새 문자열 대신 테이블의 상수를 반환한다.
+	 */
+	String operatorText(CharSequence s) {
+		String canonical = directive != null ? directive : inst != null ? inst.mnemonic : null;
+		if (canonical != null && canonical.length() == operatorEnd - operatorStart) {
+			int i = 0;
+			while (i < canonical.length() && canonical.charAt(i) == s.charAt(operatorStart + i)) i++;
+			if (i == canonical.length()) return canonical;
+		}
+		return text(s, operatorStart, operatorEnd);
+	}
+
+	/** s[from, to) 구간을 문자열로 반환한다. */
+	static String text(CharSequence s, int from, int to) {
+		if (from == to) return "";
+		if (s instanceof String) return ((String) s).substring(from, to);
+		if (s instanceof ByteSlice) return ((ByteSlice) s).substring(from, to);
+		return s.subSequence(from, to).toString();
+	}
+}
@@ -1,21 +1,32 @@
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * symbol과 관련된 데이터와 연산을 소유한다.
  * section 별로 하나씩 인스턴스를 할당한다.
+ * <br><br>
+ * 검색은 SymbolIndex(이름을 long으로 압축한 키 → 인덱스의 open addressing 해시)를 통해 O(1)로 수행되고,
+ * symbolList/locationList는 입력 순서를 그대로 유지하여 toString() 출력 순서가 바뀌지 않는다.
  */
 public class SymbolTable {
-	/** 심볼 이름 목록 */
+	/** 심볼 이름 목록 (입력 순서) */
 	private ArrayList<String> symbolList;
-	/** 심볼 주소 목록 */
-	private ArrayList<Integer> locationList;
+	/** 심볼 주소 목록. symbolList와 같은 인덱스를 사용한다. */
+	private int[] locationList;
+	/** 심볼 이름 → symbolList 인덱스 */
+	private SymbolIndex index;
+	/** searchSymbol 호출 수와 그중 찾지 못한 수 (통계용) */
+	private int lookupCount;
+	private int missCount;
 
 	/**
 	 * 기본 생성자: 내부 리스트를 초기화
 	 */
 	public SymbolTable() {
 		this.symbolList = new ArrayList<>();
-		this.locationList = new ArrayList<>();
+		this.locationList = new int[16];
+		this.index = new SymbolIndex();
 	}
 
 	/**
@@ -27,9 +38,13 @@ public class SymbolTable {
 	 * 매칭되는 주소값의 변경은 modifySymbol()을 통해서 이루어져야 한다.
 	 */
 	public void putSymbol(String symbol, int location) {
-		if (symbolList.contains(symbol)) return; // 중복 방지
+		int idx = symbolList.size();
+		if (index.putIfAbsent(symbol, idx, symbolList) != idx) return; // 중복 방지
+		if (idx == locationList.length) {
+			locationList = Arrays.copyOf(locationList, idx * 2);
+		}
 		symbolList.add(symbol);
-		locationList.add(location);
+		locationList[idx] = location;
 	}
 
 	/**
@@ -46,21 +61,33 @@ public class SymbolTable {
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		for (int i = 0; i < symbolList.size(); i++) {
-			sb.append(String.format("%-10s %X", symbolList.get(i), locationList.get(i)));
+			sb.append(String.format("%-10s %X", symbolList.get(i), locationList[i]));
 			sb.append(System.lineSeparator());
 		}
 		return sb.toString();
 	}
 
+	/**
+	 * toString()과 같은 내용을 문자열을 만들지 않고 out에 바로 쓴다.
+	 */
+	void write(RecordWriter out) throws IOException {
+		for (int i = 0; i < symbolList.size(); i++) {
+			out.writePadded(symbolList.get(i), 10);
+			out.write(' ');
+			out.writeHex(locationList[i]);
+			out.newLine();
+		}
+	}
+
 	/**
 	 * 기존에 존재하는 symbol 값에 대해서 가리키는 주소값을 변경한다.
 	 * @param symbol : 변경을 원하는 symbol의 label
 	 * @param newLocation : 새로 바꾸고자 하는 주소값
 	 */
 	public void modifySymbol(String symbol, int newLocation) {
-		int idx = symbolList.indexOf(symbol);
+		int idx = index.get(symbol, symbolList);
 		if (idx >= 0) {
-			locationList.set(idx, newLocation);
+			locationList[idx] = newLocation;
 		}
 	}
 
@@ -70,16 +97,137 @@ public class SymbolTable {
 	 * @return symbol이 가지고 있는 주소값. 해당 symbol이 없을 경우 -1 리턴
 	 */
 	public int searchSymbol(String symbol) {
-		int idx = symbolList.indexOf(symbol);
+		lookupCount++;
+		int idx = index.get(symbol, symbolList);
 		if (idx >= 0) {
-			return locationList.get(idx);
+			return locationList[idx];
 		}
+		missCount++;
 		return -1;
 	}
 
+	/** searchSymbol 호출 수 반환 */
+	public int lookupCount() {
+		return lookupCount;
+	}
+
+	/** searchSymbol에서 심볼을 찾지 못한 횟수 반환 */
+	public int missCount() {
+		return missCount;
+	}
+
+	/** 인덱스(입력 순서)에 해당하는 심볼 이름 반환 */
+	public String getSymbolName(int index) {
+		return symbolList.get(index);
+	}
+
+	/** 인덱스(입력 순서)에 해당하는 심볼 주소 반환 */
+	public int getLocation(int index) {
+		return locationList[index];
+	}
+
 	/** EQU 등에서 사용할 수 있는 심볼 조회 함수 */
 	public int getSymbol(String symbol) {
 		int addr = searchSymbol(symbol);
 		return addr;
 	}
 }
+
+/**
+ * 심볼 이름 → 인덱스를 저장하는 open addressing 해시 (long → int, boxing 없음). <br>
+ * 8자 이하의 ASCII 이름은 문자를 그대로 long에 압축하여 키로 쓰므로 키 비교만으로 일치 여부가 결정된다.
+ * 그 외의 이름은 최상위 비트를 세운 63 bit 해시값을 키로 쓰고, 일치 여부는 names 목록의 문자열로 확인한다.
+ * (String.hashCode는 label에 쓰이는 문자 범위에서 서로 다른 이름이 같은 값이 되는 경우가 많아 같은 키끼리 probe가 길어진다)
+ */
+class SymbolIndex {
+	private static final long EMPTY = 0L;
+	private static final long HASHED = Long.MIN_VALUE;
+
+	private long[] keys;
+	private int[] values;
+	private int count;
+	private int mask;
+
+	SymbolIndex() {
+		keys = new long[32];
+		values = new int[32];
+		mask = keys.length - 1;
+	}
+
+	/**
+	 * 이름을 long 키로 압축한다. 압축할 수 없는 이름(9자 이상, 비 ASCII 문자 포함)은 해시 키(FNV-1a 64 bit)를 반환한다.
+	 * 압축 키는 각 바이트가 0x7F 이하이므로 최상위 비트가 항상 0이다.
+	 * 빈 이름은 압축하면 EMPTY(0)가 되므로 해시 키를 쓴다. 따라서 어떤 이름도 EMPTY 키가 되지 않는다.
+	 */
+	static long pack(String name) {
+		int len = name.length();
+		if (len > 0 && len <= 8) {
+			long key = 0;
+			int i = 0;
+			for (; i < len; i++) {
+				char c = name.charAt(i);
+				if (c == 0 || c > 0x7F) break;
+				key = (key << 8) | c;
+			}
+			if (i == len) return key;
+		}
+		long h = 0xCBF29CE484222325L;
+		for (int i = 0; i < len; i++) {
+			h = (h ^ name.charAt(i)) * 0x100000001B3L;
+		}
+		return HASHED | h;
+	}
+
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	/**
+	 * 이름에 해당하는 인덱스를 반환한다.
+	 * @param names : 해시 키 충돌 확인에 쓰이는 이름 목록
+	 * @return 인덱스. 없으면 -1
+	 */
+	int get(String name, ArrayList<String> names) {
+		long key = pack(name);
+		for (int s = slot(key, mask); ; s = (s + 1) & mask) {
+			long k = keys[s];
+			if (k == EMPTY) return -1;
+			if (k == key && (key >= 0 || names.get(values[s]).equals(name))) return values[s];
+		}
+	}
+
+	/**
+	 * 이름이 없으면 value로 등록한다.
+	 * @return 이미 등록된 인덱스, 또는 새로 등록된 경우 value
+	 */
+	int putIfAbsent(String name, int value, ArrayList<String> names) {
+		long key = pack(name);
+		int s = slot(key, mask);
+		for (; ; s = (s + 1) & mask) {
+			long k = keys[s];
+			if (k == EMPTY) break;
+			if (k == key && (key >= 0 || names.get(values[s]).equals(name))) return values[s];
+		}
+		keys[s] = key;
+		values[s] = value;
+		if (++count * 2 > keys.length) grow();
+		return value;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldKeys.length * 2];
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			long k = oldKeys[i];
+			if (k == EMPTY) continue;
+			int s = slot(k, mask);
+			while (keys[s] != EMPTY) s = (s + 1) & mask;
+			keys[s] = k;
+			values[s] = oldValues[i];
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * T 레코드 하나를 만드는 builder. <br>
+ * 미리 할당한 char 배열에 'T', 시작 주소 6자리, 길이 2자리, object code를 직접 채운다.
+ * object code는 byte별 16진수 두 자리 lookup table(Hex.BYTE_HEX)로 변환하므로 StringBuilder나 String.format을 거치지 않는다.
+ * <br><br>
+ * 레코드 길이 제한과 주소 연속성은 add에서만 검사한다. 추가할 항목이 최대 길이를 넘게 하거나
+ * 현재 레코드 끝에 이어지지 않으면(RESW/RESB로 건너뛴 경우) 지금까지의 레코드를 끝내고
+ * 그 항목의 주소에서 새 레코드를 시작한다. 항목 하나가 최대 길이보다 긴 경우(긴 리터럴 등)에는
+ * 그 항목만으로 한 레코드가 된다. (길이 필드 2자리의 한계인 0xFF byte까지)
+ */
+final class TextRecordBuilder {
+	/** 기본 최대 레코드 길이 (byte) */
+	static final int DEFAULT_MAX_LENGTH = 30;
+	/** 길이 필드 2자리로 나타낼 수 있는 최대 byte 수 */
+	static final int LIMIT = 0xFF;
+	/** 'T' + 시작 주소 6자리 + 길이 2자리 */
+	static final int HEADER_LENGTH = 9;
+
+	private final int maxLength;
+	private final char[] chars = new char[HEADER_LENGTH + 2 * LIMIT];
+	/** 현재 레코드의 byte 수 */
+	private int length;
+	/** 현재(또는 마지막) 레코드의 시작 주소. 비운 뒤에도 다음 레코드를 시작할 때까지 유지된다. */
+	private int start = -1;
+
+	TextRecordBuilder() {
+		this(DEFAULT_MAX_LENGTH);
+	}
+
+	/**
+	 * @param maxLength : 레코드 하나의 최대 byte 수 (1 ~ 0xFF)
+	 */
+	TextRecordBuilder(int maxLength) {
+		if (maxLength < 1 || maxLength > LIMIT) {
+			throw new IllegalArgumentException("Text record length must be between 1 and " + LIMIT + ": " + maxLength);
+		}
+		this.maxLength = maxLength;
+		chars[0] = 'T';
+	}
+
+	int maxLength() {
+		return maxLength;
+	}
+
+	/** 현재 레코드의 byte 수 */
+	int length() {
+		return length;
+	}
+
+	boolean isEmpty() {
+		return length == 0;
+	}
+
+	/**
+	 * data[off, off+len)을 address에 있는 항목으로 추가한다.
+	 * 레코드가 비어 있으면 address에서 새 레코드를 시작하고, 최대 길이를 넘게 되거나
+	 * address가 현재 레코드 끝이 아니면 지금까지의 레코드를 끝내고 address에서 새 레코드를 시작한다.
+	 * @return 끝난 레코드. 없으면 null
+	 */
+	String add(byte[] data, int off, int len, int address) {
+		String done = null;
+		if (length > 0 && (length + len > maxLength || address != start + length)) {
+			done = flush();
+		}
+		if (length == 0) start = address;
+		put(data, off, len);
+		return done;
+	}
+
+	/**
+	 * 주소 검사 없이 현재 레코드 뒤에 붙인다. (레코드가 비어 있으면 마지막 시작 주소를 그대로 쓴다)
+	 * @throws IllegalStateException 0xFF byte를 넘는 경우
+	 */
+	void put(byte[] data, int off, int len) {
+		if (length + len > LIMIT) {
+			throw new IllegalStateException("Text record overflow: " + (length + len) + " bytes");
+		}
+		int pos = HEADER_LENGTH + 2 * length;
+		for (int i = off; i < off + len; i++) {
+			int b = (data[i] & 0xFF) << 1;
+			chars[pos++] = Hex.BYTE_HEX[b];
+			chars[pos++] = Hex.BYTE_HEX[b + 1];
+		}
+		length += len;
+	}
+
+	/**
+	 * 이미 추가한 byte를 덮어쓴다. (one-pass 모드의 forward reference)
+	 * @param offset : 레코드 안의 byte 위치
+	 */
+	void patch(int offset, byte[] data, int off, int len) {
+		if (offset < 0 || offset + len > length) {
+			throw new IllegalArgumentException("Patch outside text record: " + offset);
+		}
+		int pos = HEADER_LENGTH + 2 * offset;
+		for (int i = off; i < off + len; i++) {
+			int b = (data[i] & 0xFF) << 1;
+			chars[pos++] = Hex.BYTE_HEX[b];
+			chars[pos++] = Hex.BYTE_HEX[b + 1];
+		}
+	}
+
+	/**
+	 * 현재 레코드를 문자열로 만들고 비운다. 비어 있어도 길이 00인 레코드를 만든다.
+	 */
+	String flush() {
+		for (int i = 0, v = start; i < 6; i++, v <<= 4) {
+			chars[1 + i] = Hex.DIGITS[(v >>> 20) & 0xF];
+		}
+		chars[7] = Hex.DIGITS[length >>> 4];
+		chars[8] = Hex.DIGITS[length & 0xF];
+		String record = new String(chars, 0, HEADER_LENGTH + 2 * length);
+		length = 0;
+		return record;
+	}
+
+	/**
+	 * data 전체를 address에서 시작하는 레코드 하나로 만든다. (literal pool 출력용)
+	 * 현재 레코드는 비어 있어야 하고, 다음 레코드에 쓰일 마지막 시작 주소는 바뀌지 않는다.
+	 */
+	String single(int address, byte[] data) {
+		if (length > 0) throw new IllegalStateException("Text record not flushed");
+		int last = start;
+		start = address;
+		put(data, 0, data.length);
+		String record = flush();
+		start = last;
+		return record;
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * Token: 한 소스 라인을 label/operator/operand로 분해하여 저장
+ */
+class Token {
+	int location;
+	String label = "";
+	String operator = "";
+	String[] operand = new String[]{""};
+	String comment = "";
+	char nixbpe;
+	String objectCode;
+	int byteSize;
+	/** operand[0]을 파싱한 식. expression()에서 처음 필요할 때 만든다. (파싱 실패 시 null) */
+	private Expression expr;
+	private boolean exprParsed;
+
+	/** 주석 줄 등 operand가 없는 토큰이 공유하는 빈 operand 배열 */
+	static final String[] NO_OPERANDS = { "", "", "" };
+
+	/** TokenColumns의 view용 빈 토큰 */
+	Token() {
+	}
+
+	/** 이미 파싱된 식을 지정한다. (TokenColumns가 보관한 EQU/WORD 식) */
+	void setExpression(Expression expr) {
+		this.expr = expr;
+		this.exprParsed = true;
+	}
+
+	/**
+	 * 생성자: 한 줄을 파싱하여 필드 채움
+	 * @param line 소스 코드 라인
+	 * @param instTab 인스트럭션 명세 테이블
+	 */
+	public Token(String line, InstTable instTab) {
+		this(line, new SourceLexer(instTab));
+	}
+
+	/**
+	 * 생성자: CharSequence로 주어진 한 줄(예: MappedSource의 byte 구간)을 파싱하여 필드 채움.
+	 * @param line 소스 코드 라인
+	 * @param instTab 인스트럭션 명세 테이블
+	 */
+	public Token(CharSequence line, InstTable instTab) {
+		this(line, new SourceLexer(instTab));
+	}
+
+	/**
+	 * 생성자: lexer로 한 줄을 스캔한 뒤 필드 값만 문자열로 만든다.
+	 * @param line 소스 코드 라인
+	 * @param lexer 재사용되는 lexer
+	 */
+	Token(CharSequence line, SourceLexer lexer) {
+		boolean hasFields = lexer.scan(line);
+		if (lexer.commentEnd > lexer.commentStart) {
+			this.comment = SourceLexer.text(line, lexer.commentStart, lexer.commentEnd);
+		}
+		if (!hasFields) {
+			this.operand = NO_OPERANDS;
+			return;
+		}
+
+		this.label = SourceLexer.text(line, lexer.labelStart, lexer.labelEnd);
+		this.operator = lexer.operatorText(line);
+		if (lexer.operandCount == 0) {
+			this.operand = NO_OPERANDS;
+			return;
+		}
+		this.operand = new String[TokenTable.MAX_OPERAND];
+		for (int i = 0; i < TokenTable.MAX_OPERAND; i++) {
+			this.operand[i] = i < lexer.operandCount
+					? SourceLexer.text(line, lexer.operandBounds[2 * i], lexer.operandBounds[2 * i + 1])
+					: "";
+		}
+	}
+
+	/**
+	 * operand[0]의 식을 반환한다. 한 번만 파싱하고 이후에는 같은 결과를 재사용한다.
+	 * 앞의 '#', '@'는 식에 포함하지 않는다.
+	 * @return 파싱된 식. operand가 없거나 식이 아니면 null
+	 */
+	Expression expression() {
+		if (!exprParsed) {
+			String op = operand[0];
+			if (!op.isEmpty() && (op.charAt(0) == '#' || op.charAt(0) == '@')) op = op.substring(1);
+			expr = op.isEmpty() || op.charAt(0) == '=' ? null : Expression.tryParse(op);
+			exprParsed = true;
+		}
+		return expr;
+	}
+
+	/**
+	 * nixbpe flag 설정
+	 */
+	public void setFlag(int flag, int value) {
+		if (value == 0) nixbpe &= ~flag;
+		else nixbpe |= flag;
+	}
+
+	/**
+	 * nixbpe flag 반환
+	 */
+	public int getFlag(int flags) {
+		return nixbpe & flags;
+	}
+}
@@ -1,9 +1,18 @@
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
 /**
  * TokenTable: Pass1 단계에서 각 소스 라인을 Token 객체로 파싱하여 저장
+ * <br><br>
+ * columnar 모드에서는 Token 객체를 보관하지 않고 TokenColumns의 primitive 배열과 문자 arena에 저장한다.
+ * getToken(int)은 그때그때 값을 채운 Token view를 반환하므로, view의 필드를 바꿔도 테이블에는 반영되지 않는다.
+ * 위치 등을 바꿀 때는 setLocation 등 테이블의 메소드를 사용한다.
+ * EQU/WORD의 파싱된 식은 테이블에 보관하여 view마다 다시 파싱하지 않는다. 명령어 operand의 식은 view마다
+ * 처음 필요할 때 파싱한다. (pass2는 토큰 목록을 몇 번 훑으므로 토큰당 몇 번 파싱하지만, 명령어마다
+ * Expression을 보관하지 않아 columnar 모드의 메모리 절약이 유지된다)
  */
 public class TokenTable {
 	public static final int MAX_OPERAND = 3;
@@ -17,29 +26,81 @@ public class TokenTable {
 
 	private SymbolTable symTab;
 	private InstTable instTab;
+	/** Token 객체 목록. columnar 모드이면 null */
 	private ArrayList<Token> tokenList;
+	/** columnar 모드의 저장소. 기본 모드이면 null */
+	private TokenColumns columns;
+	/** putToken에서 재사용하는 lexer */
+	private SourceLexer lexer;
 
 	/**
 	 * 생성자: 심볼 테이블, 인스트럭션 테이블 링크 및 내부 리스트 초기화
 	 */
 	public TokenTable(SymbolTable symTab, InstTable instTab) {
+		this(symTab, instTab, false);
+	}
+
+	/**
+	 * 생성자: 저장 방식을 지정한다.
+	 * @param columnar : true이면 Token 객체 대신 열 단위 배열에 저장한다. (대용량 소스의 메모리 절약용)
+	 */
+	public TokenTable(SymbolTable symTab, InstTable instTab, boolean columnar) {
 		this.symTab = symTab;
 		this.instTab = instTab;
-		this.tokenList = new ArrayList<>();
+		if (columnar) this.columns = new TokenColumns();
+		else this.tokenList = new ArrayList<>();
+		this.lexer = new SourceLexer(instTab);
 	}
 
 	/** 저장된 토큰 개수 반환 */
 	public int size() {
-		return tokenList.size();
+		return columns != null ? columns.size() : tokenList.size();
 	}
 
-	/** 지정 인덱스의 Token 반환 */
+	/** 지정 인덱스의 Token 반환. columnar 모드이면 새로 만든 view */
 	public Token getToken(int index) {
-		return tokenList.get(index);
+		return columns != null ? columns.view(index) : tokenList.get(index);
+	}
+
+	/**
+	 * 토큰 목록 반환. columnar 모드이면 원소마다 getToken(int)의 view를 만드는 읽기 전용 목록
+	 */
+	public List<Token> getTokenList() {
+		if (columns == null) return tokenList;
+		return new AbstractList<Token>() {
+			@Override
+			public Token get(int index) {
+				return columns.view(index);
+			}
+
+			@Override
+			public int size() {
+				return columns.size();
+			}
+		};
 	}
 
-	public ArrayList<Token> getTokenList() {
-		return tokenList;
+	/** 지정 인덱스 토큰의 주소 반환 */
+	public int getLocation(int index) {
+		return columns != null ? columns.location[index] : tokenList.get(index).location;
+	}
+
+	/** 지정 인덱스 토큰의 주소 설정 */
+	public void setLocation(int index, int location) {
+		if (columns != null) columns.location[index] = location;
+		else tokenList.get(index).location = location;
+	}
+
+	/** 지정 인덱스 토큰이 차지하는 byte 수 설정 (pass1에서 locctr 증가량) */
+	public void setByteSize(int index, int byteSize) {
+		if (columns != null) columns.byteSize[index] = byteSize;
+		else tokenList.get(index).byteSize = byteSize;
+	}
+
+	/** 지정 인덱스 토큰의 nixbpe flag 전체 설정 */
+	public void setNixbpe(int index, int nixbpe) {
+		if (columns != null) columns.nixbpe[index] = (byte) nixbpe;
+		else tokenList.get(index).nixbpe = (char) nixbpe;
 	}
 
 	/**
@@ -47,7 +108,16 @@ public class TokenTable {
 	 * @param line 어셈블리 소스 한 줄
 	 */
 	public void putToken(String line) {
-		tokenList.add(new Token(line, instTab));
+		putToken((CharSequence) line);
+	}
+
+	/**
+	 * 입력 라인(매핑된 버퍼 위의 구간 등)을 Token으로 파싱하여 리스트에 추가
+	 * @param line 어셈블리 소스 한 줄
+	 */
+	public void putToken(CharSequence line) {
+		if (columns != null) columns.add(line, lexer);
+		else tokenList.add(new Token(line, lexer));
 	}
 
 	/**
@@ -68,87 +138,127 @@ public class TokenTable {
 }
 
 /**
- * Token: 한 소스 라인을 label/operator/operand로 분해하여 저장
+ * TokenTable의 columnar 저장소. 토큰 i의 값은 각 배열의 i번째 원소에 있다. <br>
+ * 주소, operator 번호, nixbpe, byte 크기는 primitive 배열에, label/operand/comment 문자열은
+ * 하나의 문자 arena에 이어서 저장하고 시작 위치와 필드별 길이만 기록한다.
+ * operator는 종류가 적으므로 이름 목록의 번호로 저장한다.
  */
-class Token {
-	int location;
-	String label = "";
-	String operator = "";
-	String[] operand = new String[]{""};
-	String comment = "";
-	char nixbpe;
-	String objectCode;
-	int byteSize;
+class TokenColumns {
+	/** 토큰당 문자열 필드 수 (label, operand 3개, comment) */
+	private static final int FIELDS = 2 + TokenTable.MAX_OPERAND;
+
+	private int size;
+	int[] location = new int[64];
+	private int[] operatorId = new int[64];
+	byte[] nixbpe = new byte[64];
+	int[] byteSize = new int[64];
+	/** 토큰의 첫 필드가 arena에서 시작하는 위치 */
+	private int[] textStart = new int[64];
+	/** 필드별 길이. 토큰 i의 필드 k는 fieldLength[i * FIELDS + k] */
+	private char[] fieldLength = new char[64 * FIELDS];
+	private char[] arena = new char[1024];
+	private int arenaSize;
+
+	private final ArrayList<String> operatorNames = new ArrayList<>();
+	private final HashMap<String, Integer> operatorIndex = new HashMap<>();
+	/** EQU/WORD 토큰 번호 → 파싱된 식 (식이 아니면 null). 처음 view를 만들 때 채운다 */
+	private final HashMap<Integer, Expression> expressions = new HashMap<>();
+
+	int size() {
+		return size;
+	}
 
 	/**
-	 * 생성자: 한 줄을 파싱하여 필드 채움
-	 * @param line 소스 코드 라인
-	 * @param instTab 인스트럭션 명세 테이블
+	 * lexer로 한 줄을 스캔하여 필드를 arena에 복사한다. operator 외에는 문자열을 만들지 않는다.
 	 */
-	public Token(String line, InstTable instTab) {
-		this.operand = new String[TokenTable.MAX_OPERAND];
-		Arrays.fill(this.operand, "");
-
-		String trimmed = line.trim();
-		if (trimmed.startsWith(".")) {
-			this.comment = trimmed;
-			return;
-		}
+	void add(CharSequence line, SourceLexer lexer) {
+		if (size == location.length) grow();
+		boolean hasFields = lexer.scan(line);
+		int i = size++;
+		location[i] = 0;
+		nixbpe[i] = 0;
+		byteSize[i] = 0;
+		textStart[i] = arenaSize;
+		int base = i * FIELDS;
+		Arrays.fill(fieldLength, base, base + FIELDS, (char) 0);
 
-		// 주석 분리
-		int commentIndex = line.indexOf(".");
-		if (commentIndex != -1) {
-			comment = line.substring(commentIndex).trim();
-			line = line.substring(0, commentIndex).trim();
+		if (hasFields) {
+			copy(line, lexer.labelStart, lexer.labelEnd, base);
+			for (int k = 0; k < lexer.operandCount; k++) {
+				copy(line, lexer.operandBounds[2 * k], lexer.operandBounds[2 * k + 1], base + 1 + k);
+			}
 		}
+		copy(line, lexer.commentStart, lexer.commentEnd, base + FIELDS - 1);
+		operatorId[i] = hasFields ? operatorId(lexer.operatorText(line)) : operatorId("");
+	}
 
-		String[] parts = line.split("\\s+");
-		if (parts.length == 0) return;
-
-		String first = parts[0];
-		String key = first.startsWith("+") ? first.substring(1) : first;
-		List<String> directives = Arrays.asList(
-				"START","END","BYTE","WORD","RESW","RESB",
-				"LTORG","CSECT","EXTDEF","EXTREF","EQU"
-		);
-
-		boolean isOp = instTab.instMap.containsKey(key) || directives.contains(key);
-		int idx = 0;
-
-		if (isOp) {
-			this.operator = parts[0];
-			idx = 1;
-		} else {
-			this.label = parts[0];
-			if (parts.length > 1) {
-				this.operator = parts[1];
-			}
-			idx = 2;
+	private void copy(CharSequence line, int from, int to, int field) {
+		int len = to - from;
+		if (len > Character.MAX_VALUE) throw new IllegalArgumentException("Source field too long: " + len + " chars");
+		if (arenaSize + len > arena.length) {
+			arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + len));
+		}
+		for (int k = 0; k < len; k++) {
+			arena[arenaSize + k] = line.charAt(from + k);
 		}
+		arenaSize += len;
+		fieldLength[field] = (char) len;
+	}
 
-		// operand 처리
-		if (parts.length > idx) {
-			String operandStr = parts[idx];
-			// 콤마로 구분되는 경우 (최대 MAX_OPERAND개)
-			String[] ops = operandStr.split(",");
-			for (int i = 0; i < ops.length && i < TokenTable.MAX_OPERAND; i++) {
-				this.operand[i] = ops[i].trim();
-			}
+	private int operatorId(String operator) {
+		Integer id = operatorIndex.get(operator);
+		if (id == null) {
+			id = operatorNames.size();
+			operatorNames.add(operator);
+			operatorIndex.put(operator, id);
 		}
+		return id;
 	}
 
-	/**
-	 * nixbpe flag 설정
-	 */
-	public void setFlag(int flag, int value) {
-		if (value == 0) nixbpe &= ~flag;
-		else nixbpe |= flag;
+	private void grow() {
+		int n = size * 2;
+		location = Arrays.copyOf(location, n);
+		operatorId = Arrays.copyOf(operatorId, n);
+		nixbpe = Arrays.copyOf(nixbpe, n);
+		byteSize = Arrays.copyOf(byteSize, n);
+		textStart = Arrays.copyOf(textStart, n);
+		fieldLength = Arrays.copyOf(fieldLength, n * FIELDS);
 	}
 
 	/**
-	 * nixbpe flag 반환
+	 * 토큰 i의 값을 채운 Token을 새로 만든다. Token(CharSequence, SourceLexer)가 만드는 것과 같은 값이다.
 	 */
-	public int getFlag(int flags) {
-		return nixbpe & flags;
+	Token view(int i) {
+		if (i >= size) throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		Token t = new Token();
+		t.location = location[i];
+		t.nixbpe = (char) nixbpe[i];
+		t.byteSize = byteSize[i];
+		t.operator = operatorNames.get(operatorId[i]);
+
+		int base = i * FIELDS;
+		int pos = textStart[i];
+		t.label = text(pos, fieldLength[base]);
+		pos += fieldLength[base];
+		boolean hasOperand = false;
+		String[] operand = new String[TokenTable.MAX_OPERAND];
+		for (int k = 0; k < TokenTable.MAX_OPERAND; k++) {
+			int len = fieldLength[base + 1 + k];
+			operand[k] = text(pos, len);
+			pos += len;
+			hasOperand |= len > 0;
+		}
+		t.operand = hasOperand ? operand : Token.NO_OPERANDS;
+		t.comment = text(pos, fieldLength[base + FIELDS - 1]);
+		if ("EQU".equals(t.operator) || "WORD".equals(t.operator)) {
+			// pass1의 EQU 계산과 pass2가 같은 식을 다시 파싱하지 않도록 한 번 파싱한 결과를 쓴다
+			if (expressions.containsKey(i)) t.setExpression(expressions.get(i));
+			else expressions.put(i, t.expression());
+		}
+		return t;
 	}
-}
\ No newline at end of file
+
+	private String text(int from, int len) {
+		return len == 0 ? "" : new String(arena, from, len);
+	}
+}
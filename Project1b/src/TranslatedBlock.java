@@ -0,0 +1,10 @@
+/**
+ * 번역된 basic block. 실행이 끝나면 sim의 레지스터, condition code, pc가 갱신되어 있다.
+ */
+interface TranslatedBlock {
+	/**
+	 * @param budget : 실행할 수 있는 최대 명령어 수
+	 * @return 실행한 명령어 수. budget이 block 하나보다 작으면 실행하지 않고 0
+	 */
+	int execute(Simulator sim, int budget);
+}